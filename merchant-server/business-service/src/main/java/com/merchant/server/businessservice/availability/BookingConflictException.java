@@ -0,0 +1,11 @@
+package com.merchant.server.businessservice.availability;
+
+/**
+ * 资源在请求的时段已被预约
+ */
+public class BookingConflictException extends RuntimeException {
+
+    public BookingConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,207 @@
+package com.merchant.server.businessservice.availability;
+
+import com.merchant.server.businessservice.entity.Appointment;
+import com.merchant.server.businessservice.entity.Resource;
+import com.merchant.server.businessservice.mapper.AppointmentMapper;
+import com.merchant.server.businessservice.mapper.ResourceMapper;
+import com.merchant.server.businessservice.util.TransactionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 预约占用守卫：保证同一资源同一时段的预约数不超过资源容量（capacity，默认 1）
+ *
+ * 同一资源同一天的预约写入按以下顺序串行化，只有写入同一资源同一天的请求互相等待：
+ * 1. 本实例内按 (资源, 日期) 分段加锁，避免同一实例的请求同时争用数据库行锁；
+ * 2. 在 resource_booking_guard 中写入 (资源, 日期) 行并持有其行锁直到事务结束，多实例之间同样串行；
+ * 3. 用加锁读检查与已提交预约是否重叠（走 idx_resource_date_time），不受事务快照影响。
+ * 加锁读会在 idx_resource_date_time 上加间隙锁，先持有当天的守卫行可保证同一资源同一天只有一个事务在读取并插入，
+ * 不会出现两个事务各自持有间隙锁、再插入对方间隙的死锁。
+ * 容量大于 1 的资源（多人房间、多床位理疗室等）在加锁前先按时段原子计数（{@link SlotReservations}），
+ * 本实例内同一时段进行中的预约已达容量时直接拒绝，不再排队等待守卫行；持有守卫行后读取重叠的已提交预约，
+ * 计算新占用时段内同时进行的最大数量，达到容量时拒绝。
+ * 加锁前先按资源编译好的每周可用时段检查营业时间，未配置可用时段的资源不限制（与空闲时段搜索一致）。
+ * 锁和计数都在事务结束后释放，因此必须在事务内调用。
+ */
+@Component
+@Slf4j
+public class BookingGuard {
+
+    private final AppointmentMapper appointmentMapper;
+
+    private final WeeklyHoursIndex weeklyHoursIndex;
+
+    private final ResourceMapper resourceMapper;
+
+    private final SlotReservations slotReservations;
+
+    private final ReentrantLock[] stripes;
+
+    private final long lockTimeoutMillis;
+
+    private final AtomicLong reservations = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicLong outsideHours = new AtomicLong();
+    private final AtomicLong sharedReservations = new AtomicLong();
+    private final AtomicLong capacityRejections = new AtomicLong();
+    private final AtomicLong lockWaitNanos = new AtomicLong();
+
+    public BookingGuard(AppointmentMapper appointmentMapper,
+                        WeeklyHoursIndex weeklyHoursIndex,
+                        ResourceMapper resourceMapper,
+                        SlotReservations slotReservations,
+                        @Value("${appointment.booking.lock-stripes:256}") int lockStripes,
+                        @Value("${appointment.booking.lock-timeout:5000}") long lockTimeoutMillis) {
+        this.appointmentMapper = appointmentMapper;
+        this.weeklyHoursIndex = weeklyHoursIndex;
+        this.resourceMapper = resourceMapper;
+        this.slotReservations = slotReservations;
+        // 分段数取 2 的幂，便于按位取模
+        int size = Integer.highestOneBit(Math.max(lockStripes, 1) * 2 - 1);
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.lockTimeoutMillis = lockTimeoutMillis;
+    }
+
+    /**
+     * 为预约的新占用加锁并检查冲突，冲突时抛出 {@link BookingConflictException}，
+     * 不在资源可用时段内时抛出 {@link OutsideBusinessHoursException}
+     * 新占用完全落在原占用之内（或不占用资源）时无需检查
+     *
+     * @param appointmentId 修改已有预约时传入其ID，检查时排除自身；新增时为 null
+     */
+    public void reserve(Long appointmentId, ResourceBookingIndex.Booking before, ResourceBookingIndex.Booking after) {
+        if (after == null || within(after, before)) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Resource bookings must be reserved inside a transaction");
+        }
+        Long resourceId = after.getResourceId();
+        LocalDate date = after.getDate();
+        WeeklyHours hours = weeklyHoursIndex.get(resourceId);
+        if (!hours.isOpen(date.getDayOfWeek(), after.getStartMinute(), after.getEndMinute())) {
+            outsideHours.incrementAndGet();
+            throw new OutsideBusinessHoursException("Resource " + resourceId + " is not available on " + date
+                + " between " + timeOf(after.getStartMinute()) + " and " + timeOf(after.getEndMinute()));
+        }
+        int capacity = capacityOf(resourceId);
+        LocalTime startTime = timeOf(after.getStartMinute());
+        LocalTime endTime = timeOf(after.getEndMinute());
+        if (capacity > 1) {
+            if (!slotReservations.tryAcquire(after, capacity)) {
+                capacityRejections.incrementAndGet();
+                throw new BookingConflictException("Resource " + resourceId + " is fully booked on " + date
+                    + " between " + startTime + " and " + endTime + " (capacity " + capacity + ")");
+            }
+            TransactionUtil.afterCompletion(() -> { }, () -> slotReservations.release(after));
+        }
+        lockDay(resourceId, date);
+
+        if (capacity > 1) {
+            checkCapacity(appointmentId, after, capacity);
+            sharedReservations.incrementAndGet();
+        } else if (appointmentMapper.countOverlappingBookings(resourceId, date, startTime, endTime, appointmentId) > 0) {
+            conflicts.incrementAndGet();
+            throw new BookingConflictException("Resource " + resourceId + " is already booked on " + date
+                + " between " + startTime + " and " + endTime);
+        }
+        reservations.incrementAndGet();
+    }
+
+    /**
+     * 先取本实例的分段锁，再写入并锁定数据库中的 (资源, 日期) 守卫行，两者都持有到事务结束
+     */
+    private void lockDay(Long resourceId, LocalDate date) {
+        ReentrantLock lock = stripeFor(resourceId, date);
+        long waitStart = System.nanoTime();
+        try {
+            if (!lock.tryLock(lockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new RuntimeException("Timed out waiting to book resource " + resourceId + " on " + date);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting to book resource " + resourceId, e);
+        }
+        TransactionUtil.afterCompletion(() -> { }, lock::unlock);
+        appointmentMapper.lockResourceDay(resourceId, date);
+        lockWaitNanos.addAndGet(System.nanoTime() - waitStart);
+    }
+
+    /**
+     * 容量大于 1 的资源：检查新占用时段内同时进行的已提交预约数，调用方需持有当天的守卫行
+     */
+    private void checkCapacity(Long appointmentId, ResourceBookingIndex.Booking after, int capacity) {
+        Long resourceId = after.getResourceId();
+        LocalDate date = after.getDate();
+        LocalTime startTime = timeOf(after.getStartMinute());
+        LocalTime endTime = timeOf(after.getEndMinute());
+        List<ResourceBookingIndex.Booking> overlapping = new ArrayList<>();
+        for (Appointment appointment
+                : appointmentMapper.selectOverlappingBookings(resourceId, date, startTime, endTime, appointmentId)) {
+            int start = appointment.getAppointmentTime().getHour() * 60 + appointment.getAppointmentTime().getMinute();
+            int duration = appointment.getDuration() != null ? appointment.getDuration() : 0;
+            overlapping.add(new ResourceBookingIndex.Booking(resourceId, date, start, start + duration));
+        }
+        int peak = ResourceBookingIndex.peakConcurrency(overlapping, after.getStartMinute(), after.getEndMinute());
+        if (peak >= capacity) {
+            conflicts.incrementAndGet();
+            throw new BookingConflictException("Resource " + resourceId + " is fully booked on " + date
+                + " between " + startTime + " and " + endTime + " (capacity " + capacity + ")");
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("lockStripes", stripes.length);
+        stats.put("reservations", reservations.get());
+        stats.put("conflicts", conflicts.get());
+        stats.put("outsideHours", outsideHours.get());
+        stats.put("sharedReservations", sharedReservations.get());
+        stats.put("capacityRejections", capacityRejections.get());
+        stats.put("slotCounterDays", slotReservations.activeDays());
+        long attempts = reservations.get() + conflicts.get();
+        stats.put("avgLockWaitMillis", attempts > 0 ? lockWaitNanos.get() / attempts / 1_000_000.0 : 0.0);
+        return stats;
+    }
+
+    private int capacityOf(Long resourceId) {
+        Resource resource = resourceMapper.findById(resourceId);
+        return resource != null && resource.getCapacity() != null ? Math.max(resource.getCapacity(), 1) : 1;
+    }
+
+    private ReentrantLock stripeFor(Long resourceId, LocalDate date) {
+        int hash = resourceId.hashCode() * 31 + date.hashCode();
+        hash ^= hash >>> 16;
+        return stripes[hash & (stripes.length - 1)];
+    }
+
+    private static boolean within(ResourceBookingIndex.Booking after, ResourceBookingIndex.Booking before) {
+        return before != null
+            && before.getResourceId().equals(after.getResourceId())
+            && before.getDate().equals(after.getDate())
+            && after.getStartMinute() >= before.getStartMinute()
+            && after.getEndMinute() <= before.getEndMinute();
+    }
+
+    /**
+     * 跨过午夜的结束时间按当天结束处理
+     */
+    private static LocalTime timeOf(int minute) {
+        return minute >= 24 * 60 ? LocalTime.MAX : LocalTime.of(minute / 60, minute % 60);
+    }
+}
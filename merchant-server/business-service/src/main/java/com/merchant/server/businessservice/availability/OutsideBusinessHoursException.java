@@ -0,0 +1,11 @@
+package com.merchant.server.businessservice.availability;
+
+/**
+ * 请求的时段不在资源的可用时段内
+ */
+public class OutsideBusinessHoursException extends RuntimeException {
+
+    public OutsideBusinessHoursException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,522 @@
+package com.merchant.server.businessservice.availability;
+
+import com.merchant.server.businessservice.entity.Appointment;
+import com.merchant.server.businessservice.mapper.AppointmentMapper;
+import com.merchant.server.businessservice.util.TransactionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 资源预约占用索引
+ *
+ * 按 (资源, 日期) 保存已占用时段的有序区间数组，覆盖从今天起 window-days 天的滚动窗口，
+ * 冲突检查为一次二分查找加少量回溯，不再访问数据库。
+ * 预约增删改在事务进行期间把涉及的日期标记为待定，待定日期以及窗口外的日期回退到数据库查询；
+ * 事务提交后应用变更并清除标记。定时重载整个窗口，同时推进窗口并修正可能出现的漂移。
+ */
+@Component
+@Slf4j
+public class ResourceBookingIndex {
+
+    private final AppointmentMapper appointmentMapper;
+
+    private final int windowDays;
+
+    private volatile Map<DayKey, DaySlots> days = new ConcurrentHashMap<>();
+
+    // 已加载的日期窗口，首次加载完成前为 null
+    private volatile Window window;
+
+    // 进行中的事务涉及的 (资源, 日期) 及其事务数
+    private final Map<DayKey, Integer> pending = new ConcurrentHashMap<>();
+
+    private final Object writeLock = new Object();
+
+    // 重载期间提交的变更，重载完成后在新数据上重放（受 writeLock 保护）
+    private List<Change> replay;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+    private final AtomicLong reloads = new AtomicLong();
+    private final AtomicLong lastReloadNanos = new AtomicLong();
+
+    public ResourceBookingIndex(AppointmentMapper appointmentMapper,
+                                @Value("${appointment.availability.window-days:90}") int windowDays) {
+        this.appointmentMapper = appointmentMapper;
+        this.windowDays = windowDays;
+    }
+
+    /**
+     * 检查资源在指定时段是否空闲；索引无法确定时调用 fallback 查询数据库
+     */
+    public boolean isAvailable(Long resourceId, LocalDate date, LocalTime startTime, LocalTime endTime,
+                               BooleanSupplier fallback) {
+        DayKey key = new DayKey(resourceId, date);
+        if (!covers(date) || pending.containsKey(key)) {
+            fallbacks.incrementAndGet();
+            return fallback.getAsBoolean();
+        }
+        hits.incrementAndGet();
+        DaySlots slots = days.get(key);
+        return slots == null || !slots.overlaps(minuteOf(startTime), minuteOf(endTime));
+    }
+
+    /**
+     * 检查容量为 capacity 的资源在指定时段是否还能再容纳一个预约；索引无法确定时调用 fallback 查询数据库
+     */
+    public boolean hasCapacity(Long resourceId, LocalDate date, int startMinute, int endMinute, int capacity,
+                               BooleanSupplier fallback) {
+        DayKey key = new DayKey(resourceId, date);
+        if (!covers(date) || pending.containsKey(key)) {
+            fallbacks.incrementAndGet();
+            return fallback.getAsBoolean();
+        }
+        hits.incrementAndGet();
+        DaySlots slots = days.get(key);
+        return slots == null || slots.peak(startMinute, endMinute) < capacity;
+    }
+
+    /**
+     * 把容量为 capacity 的资源某天已满的时段（占用数达到容量）写入 busy；索引无法确定时返回 false
+     */
+    public boolean markFull(Long resourceId, LocalDate date, int capacity, SlotBitmap busy) {
+        if (capacity <= 1) {
+            return markBooked(resourceId, date, busy);
+        }
+        DayKey key = new DayKey(resourceId, date);
+        if (!covers(date) || pending.containsKey(key)) {
+            fallbacks.incrementAndGet();
+            return false;
+        }
+        hits.incrementAndGet();
+        DaySlots slots = days.get(key);
+        if (slots != null) {
+            busy.or(SlotBitmap.atLeast(slots.countBooked(), capacity));
+        }
+        return true;
+    }
+
+    /**
+     * 一组占用在 [start, end) 内同时进行的最大数量
+     */
+    public static int peakConcurrency(List<Booking> bookings, int start, int end) {
+        int[] starts = new int[bookings.size()];
+        int[] ends = new int[bookings.size()];
+        int count = 0;
+        for (Booking booking : bookings) {
+            int from = Math.max(booking.start, start);
+            int to = Math.min(booking.end, end);
+            if (from < to) {
+                starts[count] = from;
+                ends[count] = to;
+                count++;
+            }
+        }
+        return peakOf(starts, ends, count);
+    }
+
+    /**
+     * 把资源某天已占用的时段写入 busy；索引无法确定（窗口外或有进行中的变更）时返回 false，由调用方查询数据库
+     */
+    public boolean markBooked(Long resourceId, LocalDate date, SlotBitmap busy) {
+        DayKey key = new DayKey(resourceId, date);
+        if (!covers(date) || pending.containsKey(key)) {
+            fallbacks.incrementAndGet();
+            return false;
+        }
+        hits.incrementAndGet();
+        DaySlots slots = days.get(key);
+        if (slots != null) {
+            slots.markBooked(busy);
+        }
+        return true;
+    }
+
+    /**
+     * 预约占用的时段；未分配资源、已取消或爽约的预约不占用时段，返回 null
+     * 需在修改实体前取得修改前的占用
+     */
+    public Booking bookingOf(Appointment appointment) {
+        if (appointment == null || appointment.getResourceId() == null
+                || appointment.getAppointmentDate() == null || appointment.getAppointmentTime() == null
+                || appointment.getStatus() == Appointment.AppointmentStatus.CANCELLED
+                || appointment.getStatus() == Appointment.AppointmentStatus.NO_SHOW) {
+            return null;
+        }
+        int start = minuteOf(appointment.getAppointmentTime());
+        int duration = appointment.getDuration() != null ? appointment.getDuration() : 0;
+        return new Booking(appointment.getResourceId(), appointment.getAppointmentDate(), start, start + duration);
+    }
+
+    /**
+     * 预约新增、修改、状态变化或删除后调用（新增时 before 为 null，删除时 after 为 null）
+     */
+    public void onAppointmentChanged(Long appointmentId, Booking before, Booking after) {
+        if (appointmentId == null || (before == null && after == null)) {
+            return;
+        }
+        Change change = new Change(appointmentId, before, after);
+        List<DayKey> keys = change.keys();
+        keys.forEach(key -> pending.merge(key, 1, Integer::sum));
+        TransactionUtil.afterCompletion(
+            () -> apply(change),
+            () -> keys.forEach(key -> pending.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null)));
+    }
+
+    /**
+     * 加载 [今天, 今天 + window-days] 内占用资源的预约；启动后立即执行一次，之后定时重载
+     */
+    @Scheduled(fixedDelayString = "${appointment.availability.reload-interval:1800000}", initialDelay = 0)
+    public void reload() {
+        long start = System.nanoTime();
+        LocalDate from = LocalDate.now();
+        LocalDate to = from.plusDays(windowDays);
+        synchronized (writeLock) {
+            replay = new ArrayList<>();
+        }
+        Map<DayKey, DaySlots> fresh = new ConcurrentHashMap<>();
+        try {
+            Map<DayKey, List<Change>> grouped = new HashMap<>();
+            for (Appointment appointment : appointmentMapper.selectBookedSlots(from, to)) {
+                Booking booking = bookingOf(appointment);
+                if (booking != null) {
+                    grouped.computeIfAbsent(booking.key(), k -> new ArrayList<>())
+                        .add(new Change(appointment.getId(), null, booking));
+                }
+            }
+            grouped.forEach((key, bookings) -> fresh.put(key, DaySlots.of(bookings)));
+        } catch (RuntimeException e) {
+            synchronized (writeLock) {
+                replay = null;
+            }
+            log.error("Failed to load resource bookings for {} - {}", from, to, e);
+            return;
+        }
+
+        Window loaded = new Window(from, to);
+        synchronized (writeLock) {
+            for (Change change : replay) {
+                applyTo(fresh, change, loaded);
+            }
+            replay = null;
+            days = fresh;
+            window = loaded;
+        }
+        long elapsed = System.nanoTime() - start;
+        reloads.incrementAndGet();
+        lastReloadNanos.set(elapsed);
+        log.info("Loaded resource bookings for {} resource-days ({} - {}) in {} ms",
+            fresh.size(), from, to, elapsed / 1_000_000);
+    }
+
+    public Map<String, Object> stats() {
+        Window current = window;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("ready", current != null);
+        stats.put("windowStart", current != null ? current.start : null);
+        stats.put("windowEnd", current != null ? current.end : null);
+        stats.put("resourceDays", days.size());
+        stats.put("bookings", days.values().stream().mapToInt(DaySlots::size).sum());
+        stats.put("pendingDays", pending.size());
+        stats.put("hits", hits.get());
+        stats.put("fallbacks", fallbacks.get());
+        stats.put("reloads", reloads.get());
+        stats.put("lastReloadMillis", lastReloadNanos.get() / 1_000_000.0);
+        return stats;
+    }
+
+    private boolean covers(LocalDate date) {
+        Window current = window;
+        return current != null && date != null && current.contains(date);
+    }
+
+    private void apply(Change change) {
+        synchronized (writeLock) {
+            Window current = window;
+            if (current != null) {
+                applyTo(days, change, current);
+            }
+            if (replay != null) {
+                replay.add(change);
+            }
+        }
+    }
+
+    /**
+     * 按预约ID移除旧占用、写入新占用；可重复应用
+     */
+    private static void applyTo(Map<DayKey, DaySlots> target, Change change, Window range) {
+        if (change.before != null) {
+            target.computeIfPresent(change.before.key(), (key, slots) -> {
+                DaySlots rest = slots.without(change.appointmentId);
+                return rest.size() > 0 ? rest : null;
+            });
+        }
+        if (change.after != null && range.contains(change.after.date)) {
+            Booking after = change.after;
+            target.compute(after.key(), (key, slots) -> (slots != null ? slots : DaySlots.EMPTY)
+                .without(change.appointmentId)
+                .with(change.appointmentId, after.start, after.end));
+        }
+    }
+
+    private static int minuteOf(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    record DayKey(Long resourceId, LocalDate date) {
+    }
+
+    private record Window(LocalDate start, LocalDate end) {
+        boolean contains(LocalDate date) {
+            return !date.isBefore(start) && !date.isAfter(end);
+        }
+    }
+
+    /**
+     * 预约在某个资源某天占用的时段，分钟数 [start, end)
+     */
+    public static final class Booking {
+        final Long resourceId;
+        final LocalDate date;
+        final int start;
+        final int end;
+
+        Booking(Long resourceId, LocalDate date, int start, int end) {
+            this.resourceId = resourceId;
+            this.date = date;
+            this.start = start;
+            this.end = end;
+        }
+
+        public Long getResourceId() {
+            return resourceId;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public int getStartMinute() {
+            return start;
+        }
+
+        public int getEndMinute() {
+            return end;
+        }
+
+        DayKey key() {
+            return new DayKey(resourceId, date);
+        }
+    }
+
+    private static final class Change {
+        final Long appointmentId;
+        final Booking before;
+        final Booking after;
+
+        Change(Long appointmentId, Booking before, Booking after) {
+            this.appointmentId = appointmentId;
+            this.before = before;
+            this.after = after;
+        }
+
+        List<DayKey> keys() {
+            List<DayKey> keys = new ArrayList<>(2);
+            if (before != null) {
+                keys.add(before.key());
+            }
+            if (after != null && !keys.contains(after.key())) {
+                keys.add(after.key());
+            }
+            return keys;
+        }
+    }
+
+    /**
+     * 前 count 个区间 [starts[i], ends[i]) 同时进行的最大数量，会重排两个数组
+     */
+    private static int peakOf(int[] starts, int[] ends, int count) {
+        Arrays.sort(starts, 0, count);
+        Arrays.sort(ends, 0, count);
+        int peak = 0;
+        int active = 0;
+        for (int i = 0, j = 0; i < count; i++) {
+            // 结束于此刻或之前的区间不与当前区间重叠
+            while (j < count && ends[j] <= starts[i]) {
+                active--;
+                j++;
+            }
+            active++;
+            peak = Math.max(peak, active);
+        }
+        return peak;
+    }
+
+    /**
+     * 某资源某天的占用时段，按开始时间排序的不可变数组
+     * maxEnd[i] 为前 i+1 个区间的最大结束时间，用于提前结束回溯
+     */
+    static final class DaySlots {
+
+        static final DaySlots EMPTY = new DaySlots(new long[0], new int[0], new int[0]);
+
+        private final long[] ids;
+        private final int[] starts;
+        private final int[] ends;
+        private final int[] maxEnd;
+
+        private DaySlots(long[] ids, int[] starts, int[] ends) {
+            this.ids = ids;
+            this.starts = starts;
+            this.ends = ends;
+            this.maxEnd = new int[ends.length];
+            int max = Integer.MIN_VALUE;
+            for (int i = 0; i < ends.length; i++) {
+                max = Math.max(max, ends[i]);
+                maxEnd[i] = max;
+            }
+        }
+
+        static DaySlots of(List<Change> bookings) {
+            bookings.sort((a, b) -> Integer.compare(a.after.start, b.after.start));
+            int n = bookings.size();
+            long[] slotIds = new long[n];
+            int[] starts = new int[n];
+            int[] ends = new int[n];
+            for (int i = 0; i < n; i++) {
+                Change booking = bookings.get(i);
+                slotIds[i] = booking.appointmentId;
+                starts[i] = booking.after.start;
+                ends[i] = booking.after.end;
+            }
+            return new DaySlots(slotIds, starts, ends);
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        /**
+         * [start, end) 是否与任一已占用区间重叠
+         */
+        boolean overlaps(int start, int end) {
+            // 开始时间早于 end 的区间才可能重叠
+            int i = lowerBound(end) - 1;
+            for (; i >= 0 && maxEnd[i] > start; i--) {
+                if (ends[i] > start) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void markBooked(SlotBitmap busy) {
+            for (int i = 0; i < ids.length; i++) {
+                busy.setTouching(starts[i], ends[i]);
+            }
+        }
+
+        /**
+         * 每个时段的占用数
+         */
+        int[] countBooked() {
+            int[] counts = new int[SlotBitmap.SLOTS_PER_DAY];
+            for (int i = 0; i < ids.length; i++) {
+                SlotBitmap.countTouching(counts, starts[i], ends[i]);
+            }
+            return counts;
+        }
+
+        /**
+         * [start, end) 内同时进行的最大占用数
+         */
+        int peak(int start, int end) {
+            int last = lowerBound(end);
+            int[] clippedStarts = new int[last];
+            int[] clippedEnds = new int[last];
+            int count = 0;
+            for (int i = 0; i < last; i++) {
+                int from = Math.max(starts[i], start);
+                int to = Math.min(ends[i], end);
+                if (from < to) {
+                    clippedStarts[count] = from;
+                    clippedEnds[count] = to;
+                    count++;
+                }
+            }
+            return peakOf(clippedStarts, clippedEnds, count);
+        }
+
+        DaySlots with(long id, int start, int end) {
+            int pos = lowerBound(start);
+            int n = ids.length;
+            long[] newIds = new long[n + 1];
+            int[] newStarts = new int[n + 1];
+            int[] newEnds = new int[n + 1];
+            System.arraycopy(ids, 0, newIds, 0, pos);
+            System.arraycopy(starts, 0, newStarts, 0, pos);
+            System.arraycopy(ends, 0, newEnds, 0, pos);
+            newIds[pos] = id;
+            newStarts[pos] = start;
+            newEnds[pos] = end;
+            System.arraycopy(ids, pos, newIds, pos + 1, n - pos);
+            System.arraycopy(starts, pos, newStarts, pos + 1, n - pos);
+            System.arraycopy(ends, pos, newEnds, pos + 1, n - pos);
+            return new DaySlots(newIds, newStarts, newEnds);
+        }
+
+        DaySlots without(long id) {
+            int pos = -1;
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    pos = i;
+                    break;
+                }
+            }
+            if (pos < 0) {
+                return this;
+            }
+            long[] newIds = new long[ids.length - 1];
+            int[] newStarts = new int[ids.length - 1];
+            int[] newEnds = new int[ids.length - 1];
+            System.arraycopy(ids, 0, newIds, 0, pos);
+            System.arraycopy(starts, 0, newStarts, 0, pos);
+            System.arraycopy(ends, 0, newEnds, 0, pos);
+            System.arraycopy(ids, pos + 1, newIds, pos, ids.length - pos - 1);
+            System.arraycopy(starts, pos + 1, newStarts, pos, ids.length - pos - 1);
+            System.arraycopy(ends, pos + 1, newEnds, pos, ids.length - pos - 1);
+            return new DaySlots(newIds, newStarts, newEnds);
+        }
+
+        /**
+         * 第一个开始时间 >= minute 的位置
+         */
+        private int lowerBound(int minute) {
+            int lo = 0;
+            int hi = starts.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (starts[mid] < minute) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
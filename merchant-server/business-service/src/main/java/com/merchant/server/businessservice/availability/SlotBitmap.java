@@ -0,0 +1,227 @@
+package com.merchant.server.businessservice.availability;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一天内按 5 分钟划分的时段位图（288 位，5 个 long）
+ * 第 i 位表示 [i*5, i*5+5) 分钟的时段
+ */
+public final class SlotBitmap {
+
+    public static final int SLOT_MINUTES = 5;
+
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+
+    static final int WORDS = (SLOTS_PER_DAY + 63) / 64;
+
+    private final long[] words;
+
+    public SlotBitmap() {
+        this.words = new long[WORDS];
+    }
+
+    private SlotBitmap(long[] words) {
+        this.words = words;
+    }
+
+    /**
+     * 将完全落在 [startMinute, endMinute) 内的时段置位（用于营业时段：不足 5 分钟的零头不可预约）
+     */
+    public SlotBitmap setInside(int startMinute, int endMinute) {
+        setSlots(ceilSlot(startMinute), endMinute / SLOT_MINUTES);
+        return this;
+    }
+
+    /**
+     * 将与 [startMinute, endMinute) 有重叠的时段置位（用于已有预约：占用零头的时段整个不可用）
+     */
+    public SlotBitmap setTouching(int startMinute, int endMinute) {
+        setSlots(startMinute / SLOT_MINUTES, ceilSlot(endMinute));
+        return this;
+    }
+
+    /**
+     * 清除与 [startMinute, endMinute) 有重叠的时段
+     */
+    public SlotBitmap clearTouching(int startMinute, int endMinute) {
+        SlotBitmap mask = new SlotBitmap().setTouching(startMinute, endMinute);
+        return andNot(mask);
+    }
+
+    /**
+     * 清除 minute 之前开始的时段
+     */
+    public SlotBitmap clearBefore(int minute) {
+        return andNot(new SlotBitmap().setSlots(0, ceilSlot(minute)));
+    }
+
+    public SlotBitmap copy() {
+        return new SlotBitmap(words.clone());
+    }
+
+    /**
+     * 从 source[offset..offset+WORDS) 复制出一天的位图
+     */
+    static SlotBitmap copyOf(long[] source, int offset) {
+        long[] words = new long[WORDS];
+        System.arraycopy(source, offset, words, 0, WORDS);
+        return new SlotBitmap(words);
+    }
+
+    /**
+     * 写入 target[offset..offset+WORDS)
+     */
+    void copyTo(long[] target, int offset) {
+        System.arraycopy(words, 0, target, offset, WORDS);
+    }
+
+    /**
+     * source[offset..offset+WORDS) 表示的一天中 [fromSlot, toSlot) 是否全部置位，越界部分视为未置位
+     */
+    static boolean allSet(long[] source, int offset, int fromSlot, int toSlot) {
+        if (fromSlot < 0 || toSlot > SLOTS_PER_DAY) {
+            return false;
+        }
+        for (int slot = fromSlot; slot < toSlot; ) {
+            int bit = slot % 64;
+            int span = Math.min(64 - bit, toSlot - slot);
+            long mask = span == 64 ? -1L : ((1L << span) - 1) << bit;
+            if ((source[offset + slot / 64] & mask) != mask) {
+                return false;
+            }
+            slot += span;
+        }
+        return true;
+    }
+
+    public SlotBitmap or(SlotBitmap other) {
+        for (int i = 0; i < WORDS; i++) {
+            words[i] |= other.words[i];
+        }
+        return this;
+    }
+
+    public SlotBitmap andNot(SlotBitmap other) {
+        for (int i = 0; i < WORDS; i++) {
+            words[i] &= ~other.words[i];
+        }
+        return this;
+    }
+
+    /**
+     * 可以开始连续 slotCount 个空闲时段的起点：第 i 位置位当且仅当 i..i+slotCount-1 位都置位
+     * 按倍增移位计算，移位次数为 O(log slotCount)
+     */
+    public SlotBitmap fittingStarts(int slotCount) {
+        if (slotCount <= 0 || slotCount > SLOTS_PER_DAY) {
+            return new SlotBitmap();
+        }
+        long[] result = words.clone();
+        // result 的第 i 位表示 i 起连续 covered 个时段都空闲
+        int covered = 1;
+        while (covered < slotCount) {
+            int step = Math.min(covered, slotCount - covered);
+            long[] shifted = shiftDown(result, step);
+            for (int i = 0; i < WORDS; i++) {
+                result[i] &= shifted[i];
+            }
+            covered += step;
+        }
+        return new SlotBitmap(result);
+    }
+
+    /**
+     * counts 为每个时段的占用数（长度 SLOTS_PER_DAY），将与 [startMinute, endMinute) 有重叠的时段各加一
+     */
+    public static void countTouching(int[] counts, int startMinute, int endMinute) {
+        int from = Math.max(startMinute / SLOT_MINUTES, 0);
+        int to = Math.min(ceilSlot(endMinute), SLOTS_PER_DAY);
+        for (int slot = from; slot < to; slot++) {
+            counts[slot]++;
+        }
+    }
+
+    /**
+     * 占用数达到 threshold 的时段
+     */
+    public static SlotBitmap atLeast(int[] counts, int threshold) {
+        SlotBitmap bitmap = new SlotBitmap();
+        for (int slot = 0; slot < SLOTS_PER_DAY; slot++) {
+            if (counts[slot] >= threshold) {
+                bitmap.words[slot / 64] |= 1L << (slot % 64);
+            }
+        }
+        return bitmap;
+    }
+
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * 置位时段的开始时间
+     */
+    public List<LocalTime> startTimes() {
+        List<LocalTime> times = new ArrayList<>(cardinality());
+        for (int i = 0; i < WORDS; i++) {
+            long word = words[i];
+            while (word != 0) {
+                int slot = i * 64 + Long.numberOfTrailingZeros(word);
+                times.add(LocalTime.MIN.plusMinutes((long) slot * SLOT_MINUTES));
+                word &= word - 1;
+            }
+        }
+        return times;
+    }
+
+    /**
+     * 置位 [fromSlot, toSlot) 内的时段，越界部分忽略
+     */
+    private SlotBitmap setSlots(int fromSlot, int toSlot) {
+        int from = Math.max(fromSlot, 0);
+        int to = Math.min(toSlot, SLOTS_PER_DAY);
+        for (int slot = from; slot < to; ) {
+            int word = slot / 64;
+            int bit = slot % 64;
+            int span = Math.min(64 - bit, to - slot);
+            long mask = span == 64 ? -1L : ((1L << span) - 1) << bit;
+            words[word] |= mask;
+            slot += span;
+        }
+        return this;
+    }
+
+    /**
+     * 向低位移动 n 位（第 i 位变为原第 i+n 位）
+     */
+    private static long[] shiftDown(long[] source, int n) {
+        long[] result = new long[WORDS];
+        int wordShift = n / 64;
+        int bitShift = n % 64;
+        for (int i = 0; i + wordShift < WORDS; i++) {
+            long low = source[i + wordShift] >>> bitShift;
+            long high = bitShift != 0 && i + wordShift + 1 < WORDS ? source[i + wordShift + 1] << (64 - bitShift) : 0;
+            result[i] = low | high;
+        }
+        return result;
+    }
+
+    static int ceilSlot(int minute) {
+        return (minute + SLOT_MINUTES - 1) / SLOT_MINUTES;
+    }
+}
@@ -0,0 +1,138 @@
+package com.merchant.server.businessservice.availability;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 本实例进行中的预约按 (资源, 日期, 5 分钟时段) 计数
+ *
+ * 每个时段一个原子计数器，占用用 CAS 逐个时段加一，任一时段达到上限时回退已加的时段，不加锁。
+ * 同一时段同时进行的预约超过资源容量时，多出的请求直接拒绝，不再去争用数据库行锁。
+ * 计数只反映本实例，跨实例的容量上限由 {@link BookingGuard} 持有守卫行后的检查保证。
+ */
+@Component
+public class SlotReservations {
+
+    private final Map<DayKey, Counters> counters = new ConcurrentHashMap<>();
+
+    /**
+     * 为占用的每个时段计数加一；任一时段已有 limit 个进行中的预约时返回 false，计数不变
+     */
+    public boolean tryAcquire(ResourceBookingIndex.Booking booking, int limit) {
+        int from = fromSlot(booking);
+        int to = toSlot(booking);
+        while (true) {
+            Counters day = counters.computeIfAbsent(new DayKey(booking.getResourceId(), booking.getDate()),
+                key -> new Counters());
+            synchronized (day) {
+                // 计数器已被回收时重新获取
+                if (day.retired) {
+                    continue;
+                }
+                day.holders++;
+            }
+            for (int slot = from; slot < to; slot++) {
+                if (!increment(day.slots, slot, limit)) {
+                    for (int acquired = from; acquired < slot; acquired++) {
+                        day.slots.decrementAndGet(acquired);
+                    }
+                    releaseHolder(booking, day);
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 释放 {@link #tryAcquire} 成功时占用的计数
+     */
+    public void release(ResourceBookingIndex.Booking booking) {
+        Counters day = counters.get(new DayKey(booking.getResourceId(), booking.getDate()));
+        if (day == null) {
+            return;
+        }
+        for (int slot = fromSlot(booking); slot < toSlot(booking); slot++) {
+            day.slots.decrementAndGet(slot);
+        }
+        releaseHolder(booking, day);
+    }
+
+    /**
+     * 有进行中预约的 (资源, 日期) 数
+     */
+    public int activeDays() {
+        return counters.size();
+    }
+
+    private static boolean increment(AtomicIntegerArray slots, int slot, int limit) {
+        while (true) {
+            int current = slots.get(slot);
+            if (current >= limit) {
+                return false;
+            }
+            if (slots.compareAndSet(slot, current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 最后一个持有者离开时回收该天的计数器，避免日期不断增长
+     */
+    private void releaseHolder(ResourceBookingIndex.Booking booking, Counters day) {
+        synchronized (day) {
+            if (--day.holders == 0) {
+                day.retired = true;
+                counters.remove(new DayKey(booking.getResourceId(), booking.getDate()), day);
+            }
+        }
+    }
+
+    private static int fromSlot(ResourceBookingIndex.Booking booking) {
+        return Math.max(booking.getStartMinute() / SlotBitmap.SLOT_MINUTES, 0);
+    }
+
+    private static int toSlot(ResourceBookingIndex.Booking booking) {
+        return Math.min(SlotBitmap.ceilSlot(booking.getEndMinute()), SlotBitmap.SLOTS_PER_DAY);
+    }
+
+    private static final class Counters {
+        final AtomicIntegerArray slots = new AtomicIntegerArray(SlotBitmap.SLOTS_PER_DAY);
+        // 持有计数的进行中预约数，受 synchronized (this) 保护
+        int holders;
+        boolean retired;
+    }
+
+    private static final class DayKey {
+        final Long resourceId;
+        final LocalDate date;
+
+        DayKey(Long resourceId, LocalDate date) {
+            this.resourceId = resourceId;
+            this.date = date;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DayKey)) {
+                return false;
+            }
+            DayKey other = (DayKey) o;
+            return resourceId.equals(other.resourceId) && date.equals(other.date);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(resourceId, date);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.merchant.server.businessservice.availability;
+
+import com.merchant.server.businessservice.entity.ResourceAvailability;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 资源编译后的每周可用时段：7 天 × 288 个 5 分钟时段，连续存放在一个 long[] 中（35 个 long）
+ * 第 d 天（0 为周一）占 words[d*WORDS .. d*WORDS+WORDS)，位的含义与 {@link SlotBitmap} 相同。
+ * 编译后只读，可在线程间共享。
+ */
+public final class WeeklyHours {
+
+    /**
+     * 没有配置任何可用时段的资源：不做营业时间限制，每天全天可用
+     */
+    public static final WeeklyHours NONE = new WeeklyHours(allDay(), false);
+
+    private final long[] words;
+
+    private final boolean configured;
+
+    private WeeklyHours(long[] words, boolean configured) {
+        this.words = words;
+        this.configured = configured;
+    }
+
+    /**
+     * 编译一个资源的可用时段规则；is_available=false 的时段从同一天的可用时段中扣除，
+     * 星期或时间不完整的规则忽略
+     */
+    public static WeeklyHours compile(List<ResourceAvailability> availabilities) {
+        SlotBitmap[] week = new SlotBitmap[7];
+        List<ResourceAvailability> closed = new ArrayList<>();
+        boolean configured = false;
+        for (ResourceAvailability availability : availabilities) {
+            if (availability.getDayOfWeek() == null || availability.getDayOfWeek() < 1 || availability.getDayOfWeek() > 7
+                    || availability.getStartTime() == null || availability.getEndTime() == null) {
+                continue;
+            }
+            configured = true;
+            if (Boolean.FALSE.equals(availability.getIsAvailable())) {
+                closed.add(availability);
+                continue;
+            }
+            int day = availability.getDayOfWeek() - 1;
+            if (week[day] == null) {
+                week[day] = new SlotBitmap();
+            }
+            week[day].setInside(minuteOf(availability.getStartTime()), endMinuteOf(availability.getEndTime()));
+        }
+        if (!configured) {
+            return NONE;
+        }
+        for (ResourceAvailability availability : closed) {
+            SlotBitmap open = week[availability.getDayOfWeek() - 1];
+            if (open != null) {
+                open.clearTouching(minuteOf(availability.getStartTime()), endMinuteOf(availability.getEndTime()));
+            }
+        }
+        long[] words = new long[7 * SlotBitmap.WORDS];
+        for (int day = 0; day < 7; day++) {
+            if (week[day] != null) {
+                week[day].copyTo(words, day * SlotBitmap.WORDS);
+            }
+        }
+        return new WeeklyHours(words, true);
+    }
+
+    /**
+     * 是否配置了可用时段；未配置时为 {@link #NONE}，全天可用
+     */
+    public boolean isConfigured() {
+        return configured;
+    }
+
+    /**
+     * 当天可用时段的副本
+     */
+    public SlotBitmap day(DayOfWeek dayOfWeek) {
+        return SlotBitmap.copyOf(words, offsetOf(dayOfWeek));
+    }
+
+    /**
+     * minute 所在的时段是否可用
+     */
+    public boolean isOpenAt(DayOfWeek dayOfWeek, int minute) {
+        int slot = minute / SlotBitmap.SLOT_MINUTES;
+        return slot >= 0 && slot < SlotBitmap.SLOTS_PER_DAY
+            && (words[offsetOf(dayOfWeek) + slot / 64] & (1L << (slot % 64))) != 0;
+    }
+
+    /**
+     * 与 [startMinute, endMinute) 有重叠的时段是否全部可用；超过 24:00 的部分按次日的可用时段检查
+     */
+    public boolean isOpen(DayOfWeek dayOfWeek, int startMinute, int endMinute) {
+        int fromSlot = startMinute / SlotBitmap.SLOT_MINUTES;
+        int toSlot = SlotBitmap.ceilSlot(endMinute);
+        if (toSlot <= SlotBitmap.SLOTS_PER_DAY) {
+            return SlotBitmap.allSet(words, offsetOf(dayOfWeek), fromSlot, toSlot);
+        }
+        return SlotBitmap.allSet(words, offsetOf(dayOfWeek), fromSlot, SlotBitmap.SLOTS_PER_DAY)
+            && SlotBitmap.allSet(words, offsetOf(dayOfWeek.plus(1)), 0,
+                Math.min(toSlot - SlotBitmap.SLOTS_PER_DAY, SlotBitmap.SLOTS_PER_DAY));
+    }
+
+    private static long[] allDay() {
+        long[] words = new long[7 * SlotBitmap.WORDS];
+        SlotBitmap day = new SlotBitmap().setInside(0, 24 * 60);
+        for (int d = 0; d < 7; d++) {
+            day.copyTo(words, d * SlotBitmap.WORDS);
+        }
+        return words;
+    }
+
+    private static int offsetOf(DayOfWeek dayOfWeek) {
+        return (dayOfWeek.getValue() - 1) * SlotBitmap.WORDS;
+    }
+
+    private static int minuteOf(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    /**
+     * 结束时间 00:00 视为当天 24:00
+     */
+    private static int endMinuteOf(LocalTime time) {
+        int minute = minuteOf(time);
+        return minute == 0 ? 24 * 60 : minute;
+    }
+}
@@ -0,0 +1,81 @@
+package com.merchant.server.businessservice.availability;
+
+import com.merchant.server.businessservice.entity.ResourceAvailability;
+import com.merchant.server.businessservice.mapper.ResourceMapper;
+import com.merchant.server.businessservice.cache.GenerationGuardedCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 资源每周可用时段的编译结果缓存
+ *
+ * 可用时段规则只在设置可用时段时变化，编译结果按资源缓存，规则变更在事务提交后失效；
+ * TTL 兜底其他实例上的修改。预约营业时间检查、空闲时段搜索和在岗查询都只做位运算。
+ * 资源加载期间发生过失效时不回填，避免把旧规则写回缓存。
+ */
+@Component
+public class WeeklyHoursIndex {
+
+    private final ResourceMapper resourceMapper;
+
+    private final GenerationGuardedCache<Long, WeeklyHours> entries;
+
+    private final AtomicLong compilations = new AtomicLong();
+    private final AtomicLong compileNanos = new AtomicLong();
+
+    public WeeklyHoursIndex(ResourceMapper resourceMapper,
+                            @Value("${appointment.business-hours.cache-ttl:600000}") long ttlMillis) {
+        this.resourceMapper = resourceMapper;
+        this.entries = new GenerationGuardedCache<>(ttlMillis);
+    }
+
+    /**
+     * 资源的每周可用时段，未配置时返回 {@link WeeklyHours#NONE}
+     */
+    public WeeklyHours get(Long resourceId) {
+        return getAll(Collections.singletonList(resourceId)).get(resourceId);
+    }
+
+    /**
+     * 批量读取，未缓存的资源用一条查询加载并编译
+     */
+    public Map<Long, WeeklyHours> getAll(List<Long> resourceIds) {
+        return entries.getAll(resourceIds, this::load);
+    }
+
+    /**
+     * 资源的可用时段规则变更后调用
+     */
+    public void invalidate(Long resourceId) {
+        entries.invalidate(resourceId);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = entries.stats();
+        long compiled = compilations.get();
+        stats.put("compilations", compiled);
+        stats.put("avgCompileMicros", compiled > 0 ? compileNanos.get() / compiled / 1000.0 : 0.0);
+        return stats;
+    }
+
+    private Map<Long, WeeklyHours> load(List<Long> resourceIds) {
+        Map<Long, List<ResourceAvailability>> byResource = resourceMapper.findAvailabilitiesByResourceIds(resourceIds)
+            .stream()
+            .collect(Collectors.groupingBy(ResourceAvailability::getResourceId));
+        long start = System.nanoTime();
+        Map<Long, WeeklyHours> compiled = new HashMap<>();
+        for (Long resourceId : resourceIds) {
+            compiled.put(resourceId, WeeklyHours.compile(byResource.getOrDefault(resourceId, Collections.emptyList())));
+        }
+        compilations.addAndGet(resourceIds.size());
+        compileNanos.addAndGet(System.nanoTime() - start);
+        return compiled;
+    }
+}
@@ -0,0 +1,151 @@
+package com.merchant.server.businessservice.cache;
+
+import com.merchant.server.businessservice.dto.CustomerDTO;
+import com.merchant.server.businessservice.util.TransactionUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 客户详情短时缓存
+ *
+ * 客户详情抽屉打开频繁，缓存几十秒即可吸收大部分重复请求。
+ * 客户和预约的写操作在事务提交后失效对应条目；TTL 兜底覆盖其余途径的修改。
+ * 加载期间发生过失效时不回填，避免把加载到的旧数据写回缓存。
+ */
+@Component
+public class CustomerDetailCache {
+
+    private final long ttlMillis;
+
+    private final int maxEntries;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    // 每次失效递增，用于识别加载期间发生的失效
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loadNanos = new AtomicLong();
+
+    public CustomerDetailCache(@Value("${customer.detail.cache-ttl:30000}") long ttlMillis,
+                               @Value("${customer.detail.cache-max-entries:10000}") int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * 读取未过期的详情，返回副本
+     */
+    public CustomerDTO get(Long customerId) {
+        Entry entry = entries.get(customerId);
+        if (entry == null || entry.expiresAt < System.currentTimeMillis()) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return copyOf(entry.detail);
+    }
+
+    /**
+     * 开始从数据库加载前调用，返回值传给 {@link #put}
+     */
+    public long beginLoad() {
+        return generation.get();
+    }
+
+    /**
+     * @param loadNanos 本次从数据库加载的耗时，用于统计
+     */
+    public void put(Long customerId, CustomerDTO detail, long loadGeneration, long loadNanos) {
+        this.loadNanos.addAndGet(loadNanos);
+        if (generation.get() != loadGeneration) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            evictExpired();
+            if (entries.size() >= maxEntries) {
+                return;
+            }
+        }
+        entries.put(customerId, new Entry(copyOf(detail), System.currentTimeMillis() + ttlMillis));
+    }
+
+    /**
+     * 客户或其预约变更后调用
+     */
+    public void invalidate(Long customerId) {
+        if (customerId == null) {
+            return;
+        }
+        TransactionUtil.afterCommit(() -> {
+            generation.incrementAndGet();
+            entries.remove(customerId);
+        });
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        long missCount = misses.get();
+        stats.put("entries", entries.size());
+        stats.put("hits", hits.get());
+        stats.put("misses", missCount);
+        stats.put("avgLoadMillis", missCount > 0 ? loadNanos.get() / missCount / 1_000_000.0 : 0.0);
+        return stats;
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt < now);
+    }
+
+    /**
+     * 调用方会修改返回的详情（如补充字段），缓存中只保存和返回副本
+     */
+    private static CustomerDTO copyOf(CustomerDTO detail) {
+        CustomerDTO copy = new CustomerDTO();
+        copy.setId(detail.getId());
+        copy.setTenantId(detail.getTenantId());
+        copy.setFirstName(detail.getFirstName());
+        copy.setLastName(detail.getLastName());
+        copy.setPhone(detail.getPhone());
+        copy.setEmail(detail.getEmail());
+        copy.setAddress(detail.getAddress());
+        copy.setDateOfBirth(detail.getDateOfBirth());
+        copy.setGender(detail.getGender());
+        copy.setMembershipLevel(detail.getMembershipLevel());
+        copy.setPoints(detail.getPoints());
+        copy.setTotalSpent(detail.getTotalSpent());
+        copy.setStatus(detail.getStatus());
+        copy.setNotes(detail.getNotes());
+        copy.setAllergies(detail.getAllergies());
+        copy.setCommunicationPreference(detail.getCommunicationPreference());
+        copy.setCreatedAt(detail.getCreatedAt());
+        copy.setUpdatedAt(detail.getUpdatedAt());
+        copy.setFullName(detail.getFullName());
+        if (detail.getPreferredServiceIds() != null) {
+            copy.setPreferredServiceIds(new ArrayList<>(detail.getPreferredServiceIds()));
+        }
+        copy.setTotalAppointments(detail.getTotalAppointments());
+        copy.setCompletedAppointments(detail.getCompletedAppointments());
+        copy.setAverageRating(detail.getAverageRating());
+        copy.setLastVisit(detail.getLastVisit());
+        return copy;
+    }
+
+    private static final class Entry {
+        final CustomerDTO detail;
+        final long expiresAt;
+
+        Entry(CustomerDTO detail, long expiresAt) {
+            this.detail = detail;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.merchant.server.businessservice.cache;
+
+import com.merchant.server.businessservice.entity.Customer;
+import com.merchant.server.businessservice.mapper.CustomerMapper;
+import com.merchant.server.businessservice.service.support.CustomerPreferredServices;
+import com.merchant.server.businessservice.util.TransactionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 租户客户消费排行榜
+ *
+ * 每个租户保留消费最高的若干客户（容量为最大 K 的两倍，留出余量吸收消费下降和删除），
+ * 按 (COALESCE(total_spent, 0) DESC, id DESC) 有序，消费为空按 0 计，
+ * 与 (tenant_id, COALESCE(total_spent, 0), id) 函数索引的倒序扫描一致。
+ * 不变式：榜外客户的排序都不高于榜单末位，因此榜单始终是精确的前 N 名。
+ * 榜单不足所需条数且租户还有榜外客户时，用一条索引查询重建。
+ * 定时重建有读取的租户榜单以同步其他实例上的修改，一个周期内没有读取的榜单直接释放。
+ */
+@Component
+@Slf4j
+public class CustomerLeaderboard {
+
+    private static final Comparator<Customer> RANKING = Comparator
+        .comparing((Customer customer) -> Objects.requireNonNullElse(customer.getTotalSpent(), BigDecimal.ZERO))
+        .thenComparing(Customer::getId)
+        .reversed();
+
+    private final CustomerMapper customerMapper;
+
+    private final CustomerPreferredServices customerPreferredServices;
+
+    private final int maxSize;
+
+    private final int capacity;
+
+    private final Map<Long, Board> boards = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final AtomicLong rebuildNanos = new AtomicLong();
+    private final AtomicLong lastRebuildNanos = new AtomicLong();
+
+    public CustomerLeaderboard(CustomerMapper customerMapper,
+                               CustomerPreferredServices customerPreferredServices,
+                               @Value("${customer.leaderboard.max-size:100}") int maxSize) {
+        this.customerMapper = customerMapper;
+        this.customerPreferredServices = customerPreferredServices;
+        this.maxSize = maxSize;
+        this.capacity = maxSize * 2;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * 获取租户消费前 limit 名客户（limit 不超过 max-size）
+     */
+    public List<Customer> top(Long tenantId, int limit) {
+        int k = Math.max(0, Math.min(limit, maxSize));
+        Board board = boards.get(tenantId);
+        if (board != null) {
+            board.used = true;
+            List<Customer> result = board.top(k);
+            if (result != null) {
+                hits.incrementAndGet();
+                return result;
+            }
+        }
+        misses.incrementAndGet();
+        return rebuild(tenantId, k);
+    }
+
+    /**
+     * 客户新增或修改（含消费金额变化）后调用，传入最新的客户数据
+     */
+    public void onCustomerSaved(Customer customer) {
+        Customer snapshot = copyOf(customer);
+        TransactionUtil.afterCommit(() -> {
+            Board board = boards.get(snapshot.getTenantId());
+            if (board != null) {
+                board.upsert(snapshot);
+            }
+        });
+    }
+
+    public void onCustomerDeleted(Long tenantId, Long customerId) {
+        TransactionUtil.afterCommit(() -> {
+            Board board = boards.get(tenantId);
+            if (board != null) {
+                board.remove(customerId);
+            }
+        });
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("tenants", boards.size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("rebuilds", rebuilds.get());
+        long count = rebuilds.get();
+        stats.put("avgRebuildMillis", count > 0 ? rebuildNanos.get() / count / 1_000_000.0 : 0.0);
+        stats.put("lastRebuildMillis", lastRebuildNanos.get() / 1_000_000.0);
+        return stats;
+    }
+
+    /**
+     * 定时重建：上个周期有读取的榜单重新加载，同步其他实例上的修改；没有读取的榜单释放
+     */
+    @Scheduled(fixedDelayString = "${customer.leaderboard.refresh-interval:600000}",
+               initialDelayString = "${customer.leaderboard.refresh-interval:600000}")
+    public void refresh() {
+        for (Map.Entry<Long, Board> entry : boards.entrySet()) {
+            Long tenantId = entry.getKey();
+            Board board = entry.getValue();
+            if (!board.used) {
+                boards.remove(tenantId, board);
+                continue;
+            }
+            board.used = false;
+            try {
+                synchronized (board) {
+                    load(tenantId, board);
+                }
+            } catch (Exception e) {
+                log.error("Failed to refresh spending leaderboard for tenant: {}", tenantId, e);
+            }
+        }
+    }
+
+    /**
+     * 重建榜单；在榜单锁内查询，期间提交的变更会在重建完成后再应用到新榜单上
+     */
+    private List<Customer> rebuild(Long tenantId, int k) {
+        Board board = boards.computeIfAbsent(tenantId, id -> new Board());
+        board.used = true;
+        synchronized (board) {
+            // 并发读取时可能已被其他线程重建
+            List<Customer> result = board.top(k);
+            if (result != null) {
+                return result;
+            }
+            load(tenantId, board);
+            return board.top(k);
+        }
+    }
+
+    /**
+     * 调用方需持有榜单锁
+     */
+    private void load(Long tenantId, Board board) {
+        long start = System.nanoTime();
+        List<Customer> customers = customerPreferredServices.load(
+            customerMapper.selectTopSpendingCustomers(tenantId, capacity));
+        board.reset(customers, customers.size() < capacity);
+        long elapsed = System.nanoTime() - start;
+        rebuilds.incrementAndGet();
+        rebuildNanos.addAndGet(elapsed);
+        lastRebuildNanos.set(elapsed);
+        log.info("Rebuilt spending leaderboard for tenant {}: {} customers in {} ms",
+            tenantId, customers.size(), elapsed / 1_000_000);
+    }
+
+    private static Customer copyOf(Customer customer) {
+        Customer copy = new Customer();
+        BeanUtils.copyProperties(customer, copy, "appointments");
+        if (customer.getPreferredServiceIds() != null) {
+            copy.setPreferredServiceIds(new ArrayList<>(customer.getPreferredServiceIds()));
+        }
+        return copy;
+    }
+
+    private final class Board {
+        private final TreeSet<Customer> ranking = new TreeSet<>(RANKING);
+        private final Map<Long, Customer> members = new HashMap<>();
+        // 是否包含了租户的全部客户
+        private boolean complete;
+        private boolean loaded;
+        // 上次定时重建后是否有过读取
+        volatile boolean used;
+
+        synchronized List<Customer> top(int k) {
+            if (!loaded || (ranking.size() < k && !complete)) {
+                return null;
+            }
+            List<Customer> result = new ArrayList<>(Math.min(k, ranking.size()));
+            Iterator<Customer> it = ranking.iterator();
+            while (it.hasNext() && result.size() < k) {
+                result.add(copyOf(it.next()));
+            }
+            return result;
+        }
+
+        synchronized void reset(List<Customer> customers, boolean complete) {
+            ranking.clear();
+            members.clear();
+            for (Customer customer : customers) {
+                ranking.add(customer);
+                members.put(customer.getId(), customer);
+            }
+            this.complete = complete;
+            this.loaded = true;
+        }
+
+        synchronized void upsert(Customer customer) {
+            if (!loaded) {
+                return;
+            }
+            Customer previous = members.remove(customer.getId());
+            if (previous != null) {
+                ranking.remove(previous);
+            }
+            // 榜单不完整时，低于末位的客户可能被榜外客户超过，不能放入
+            if (!complete && (ranking.isEmpty() || RANKING.compare(customer, ranking.last()) > 0)) {
+                return;
+            }
+            ranking.add(customer);
+            members.put(customer.getId(), customer);
+            if (ranking.size() > capacity) {
+                Customer evicted = ranking.pollLast();
+                members.remove(evicted.getId());
+                complete = false;
+            }
+        }
+
+        synchronized void remove(Long customerId) {
+            Customer previous = members.remove(customerId);
+            if (previous != null) {
+                ranking.remove(previous);
+            }
+        }
+    }
+}
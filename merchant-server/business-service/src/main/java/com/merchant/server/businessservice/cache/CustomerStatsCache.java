@@ -0,0 +1,166 @@
+package com.merchant.server.businessservice.cache;
+
+import com.merchant.server.businessservice.entity.Customer;
+import com.merchant.server.businessservice.entity.CustomerStats;
+import com.merchant.server.businessservice.mapper.CustomerMapper;
+import com.merchant.server.businessservice.util.TransactionUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 租户客户统计缓存
+ *
+ * 每个租户首次读取时用一条聚合 SQL 计算，之后由客户增删改在事务提交后按增量维护，
+ * 读取为 O(1)。定时对账任务重新聚合并修正可能出现的漂移。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CustomerStatsCache {
+
+    private final CustomerMapper customerMapper;
+
+    private final Map<Long, TenantStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * 获取租户统计
+     */
+    public CustomerStats get(Long tenantId) {
+        return stats.computeIfAbsent(tenantId, this::load).snapshot(tenantId);
+    }
+
+    public void onCustomerCreated(Customer customer) {
+        Contribution added = Contribution.of(customer);
+        apply(customer.getTenantId(), null, added);
+    }
+
+    /**
+     * @param before 修改前的贡献（需在修改实体前通过 {@link #contributionOf} 取得）
+     */
+    public void onCustomerUpdated(Contribution before, Customer after) {
+        apply(after.getTenantId(), before, Contribution.of(after));
+    }
+
+    public void onCustomerDeleted(Customer customer) {
+        apply(customer.getTenantId(), Contribution.of(customer), null);
+    }
+
+    public Contribution contributionOf(Customer customer) {
+        return Contribution.of(customer);
+    }
+
+    /**
+     * 定时对账：重新聚合已缓存的租户，修正增量维护中的漂移
+     */
+    @Scheduled(fixedDelayString = "${customer.stats.reconcile-interval:600000}",
+               initialDelayString = "${customer.stats.reconcile-interval:600000}")
+    public void reconcile() {
+        for (Long tenantId : stats.keySet()) {
+            try {
+                TenantStats fresh = load(tenantId);
+                TenantStats cached = stats.put(tenantId, fresh);
+                if (cached != null && !cached.sameAs(fresh)) {
+                    log.warn("Customer stats drift repaired for tenant {}: cached={}, actual={}",
+                        tenantId, cached.snapshot(tenantId), fresh.snapshot(tenantId));
+                }
+            } catch (Exception e) {
+                log.error("Failed to reconcile customer stats for tenant: {}", tenantId, e);
+            }
+        }
+    }
+
+    private void apply(Long tenantId, Contribution removed, Contribution added) {
+        TransactionUtil.afterCommit(() -> {
+            TenantStats tenantStats = stats.get(tenantId);
+            if (tenantStats == null) {
+                return;
+            }
+            if (removed != null) {
+                tenantStats.add(removed, -1);
+            }
+            if (added != null) {
+                tenantStats.add(added, 1);
+            }
+        });
+    }
+
+    private TenantStats load(Long tenantId) {
+        CustomerStats row = customerMapper.selectStatsByTenantId(tenantId);
+        TenantStats tenantStats = new TenantStats();
+        tenantStats.total.set(row.getTotalCustomers());
+        tenantStats.active.set(row.getActiveCustomers());
+        tenantStats.vip.set(row.getVipCustomers());
+        tenantStats.spentCents.set(toCents(row.getTotalSpent()));
+        return tenantStats;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    /**
+     * 单个客户对统计值的贡献
+     */
+    public static final class Contribution {
+        final boolean active;
+        final boolean vip;
+        final long spentCents;
+
+        private Contribution(boolean active, boolean vip, long spentCents) {
+            this.active = active;
+            this.vip = vip;
+            this.spentCents = spentCents;
+        }
+
+        static Contribution of(Customer customer) {
+            Customer.MembershipLevel level = customer.getMembershipLevel();
+            return new Contribution(
+                customer.getStatus() == Customer.CustomerStatus.ACTIVE,
+                level == Customer.MembershipLevel.GOLD || level == Customer.MembershipLevel.PLATINUM,
+                toCents(customer.getTotalSpent()));
+        }
+    }
+
+    private static final class TenantStats {
+        final AtomicLong total = new AtomicLong();
+        final AtomicLong active = new AtomicLong();
+        final AtomicLong vip = new AtomicLong();
+        final AtomicLong spentCents = new AtomicLong();
+
+        void add(Contribution contribution, int sign) {
+            total.addAndGet(sign);
+            if (contribution.active) {
+                active.addAndGet(sign);
+            }
+            if (contribution.vip) {
+                vip.addAndGet(sign);
+            }
+            spentCents.addAndGet(sign * contribution.spentCents);
+        }
+
+        boolean sameAs(TenantStats other) {
+            return total.get() == other.total.get()
+                && active.get() == other.active.get()
+                && vip.get() == other.vip.get()
+                && spentCents.get() == other.spentCents.get();
+        }
+
+        CustomerStats snapshot(Long tenantId) {
+            CustomerStats snapshot = new CustomerStats();
+            snapshot.setTenantId(tenantId);
+            snapshot.setTotalCustomers(total.get());
+            snapshot.setActiveCustomers(active.get());
+            snapshot.setVipCustomers(vip.get());
+            snapshot.setTotalSpent(BigDecimal.valueOf(spentCents.get(), 2));
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.merchant.server.businessservice.cache;
+
+import com.merchant.server.businessservice.util.TransactionUtil;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 带 TTL 的读穿缓存，失效在事务提交后生效，加载期间发生过失效时不回填
+ *
+ * 每个键属于一个失效范围（如租户或键本身），每个范围有自己的代数：失效时范围的代数加一，
+ * 加载前记下代数，写回时代数变了就丢弃加载结果，避免把加载到的旧数据写回缓存。
+ * 代数按范围的哈希分片存放，不随范围数增长；不同范围落到同一分片时只会多丢弃一次加载结果。
+ * TTL 兜底覆盖其他实例和其余途径的修改。
+ *
+ * @param <K> 键
+ * @param <V> 缓存的值，调用方不应修改
+ */
+public final class GenerationGuardedCache<K, V> {
+
+    private static final int GENERATION_STRIPES = 256;
+
+    private final long ttlMillis;
+
+    private final int maxEntries;
+
+    private final Function<K, ?> scopeOf;
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong loadNanos = new AtomicLong();
+
+    /**
+     * 每个键自成一个失效范围，条目数不限
+     */
+    public GenerationGuardedCache(long ttlMillis) {
+        this(ttlMillis, Integer.MAX_VALUE, Function.identity());
+    }
+
+    /**
+     * @param maxEntries 条目数上限，达到上限时先清理过期条目，仍然满时不再缓存新条目
+     * @param scopeOf    键所属的失效范围
+     */
+    public GenerationGuardedCache(long ttlMillis, int maxEntries, Function<K, ?> scopeOf) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+        this.scopeOf = scopeOf;
+    }
+
+    /**
+     * 读取未过期的值，未缓存或已过期时用 loader 加载
+     */
+    public V get(K key, Function<K, V> loader) {
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long loadGeneration = generationOf(key);
+        long start = System.nanoTime();
+        V value = loader.apply(key);
+        loadNanos.addAndGet(System.nanoTime() - start);
+        put(key, value, loadGeneration);
+        return value;
+    }
+
+    /**
+     * 批量读取，未缓存或已过期的键一次交给 loader 加载；loader 没有返回的键不缓存
+     */
+    public Map<K, V> getAll(Collection<K> keys, Function<List<K>, Map<K, V>> loader) {
+        Map<K, V> result = new HashMap<>();
+        List<K> missing = new ArrayList<>();
+        for (K key : keys) {
+            V cached = getIfPresent(key);
+            if (cached != null) {
+                result.put(key, cached);
+            } else {
+                missing.add(key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+        Map<K, Long> loadGenerations = new HashMap<>();
+        for (K key : missing) {
+            loadGenerations.put(key, generationOf(key));
+        }
+        long start = System.nanoTime();
+        Map<K, V> loaded = loader.apply(missing);
+        loadNanos.addAndGet(System.nanoTime() - start);
+        loaded.forEach((key, value) -> put(key, value, loadGenerations.get(key)));
+        result.putAll(loaded);
+        return result;
+    }
+
+    /**
+     * 读取未过期的值，没有时返回 null
+     */
+    public V getIfPresent(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null || entry.expiresAt < System.currentTimeMillis()) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    /**
+     * 条目仍是 expected 时替换为 value，过期时间不变；期间被失效时不回填
+     */
+    public boolean replace(K key, V expected, V value) {
+        Entry<V> current = entries.get(key);
+        return current != null && current.value == expected
+            && entries.replace(key, current, new Entry<>(value, current.expiresAt));
+    }
+
+    /**
+     * 事务提交后失效一个键
+     */
+    public void invalidate(K key) {
+        Object scope = scopeOf.apply(key);
+        TransactionUtil.afterCommit(() -> {
+            bump(scope);
+            entries.remove(key);
+        });
+    }
+
+    /**
+     * 事务提交后失效一个范围内满足 filter 的键，并丢弃该范围内进行中的加载
+     */
+    public void invalidateScope(Object scope, Predicate<K> filter) {
+        TransactionUtil.afterCommit(() -> {
+            bump(scope);
+            entries.keySet().removeIf(key -> Objects.equals(scopeOf.apply(key), scope) && filter.test(key));
+        });
+    }
+
+    /**
+     * entries、hits、misses、invalidations、avgLoadMillis（按未命中次数平均）
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        long missCount = misses.get();
+        stats.put("entries", entries.size());
+        stats.put("hits", hits.get());
+        stats.put("misses", missCount);
+        stats.put("invalidations", invalidations.get());
+        stats.put("avgLoadMillis", missCount > 0 ? loadNanos.get() / missCount / 1_000_000.0 : 0.0);
+        return stats;
+    }
+
+    private void put(K key, V value, long loadGeneration) {
+        if (generationOf(key) != loadGeneration) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            long now = System.currentTimeMillis();
+            entries.values().removeIf(entry -> entry.expiresAt < now);
+            if (entries.size() >= maxEntries) {
+                return;
+            }
+        }
+        Entry<V> entry = new Entry<>(value, System.currentTimeMillis() + ttlMillis);
+        entries.put(key, entry);
+        // 检查和写入之间发生的失效可能已经先执行了删除，写入后再检查一次
+        if (generationOf(key) != loadGeneration) {
+            entries.remove(key, entry);
+        }
+    }
+
+    private void bump(Object scope) {
+        generations.incrementAndGet(stripeOf(scope));
+        invalidations.incrementAndGet();
+    }
+
+    private long generationOf(K key) {
+        return generations.get(stripeOf(scopeOf.apply(key)));
+    }
+
+    private static int stripeOf(Object scope) {
+        int h = Objects.hashCode(scope);
+        return ((h ^ (h >>> 16)) & 0x7fffffff) % GENERATION_STRIPES;
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.merchant.server.businessservice.cache;
+
+import com.merchant.server.businessservice.dto.ResourceOccupancy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 资源周占用热力图缓存，按 (租户, 周一日期, 时间段长度) 缓存
+ *
+ * 预约写入在事务提交后只失效该预约所在周的条目；资源增删改失效整个租户。
+ * TTL 兜底覆盖其余途径的修改；租户加载期间发生过失效时不回填。
+ */
+@Component
+public class OccupancyCache {
+
+    private final GenerationGuardedCache<Key, List<ResourceOccupancy>> entries;
+
+    public OccupancyCache(@Value("${appointment.occupancy.cache-ttl:300000}") long ttlMillis,
+                          @Value("${appointment.occupancy.cache-max-entries:1000}") int maxEntries) {
+        this.entries = new GenerationGuardedCache<>(ttlMillis, maxEntries, Key::tenantId);
+    }
+
+    /**
+     * date 所在周的周一
+     */
+    public static LocalDate weekStartOf(LocalDate date) {
+        return date.with(DayOfWeek.MONDAY);
+    }
+
+    /**
+     * 读取未过期的热力图，未缓存时用 loader 从数据库加载汇总；返回副本
+     */
+    public List<ResourceOccupancy> get(Long tenantId, LocalDate weekStart, int bucketMinutes,
+                                       Supplier<List<ResourceOccupancy>> loader) {
+        return copyOf(entries.get(new Key(tenantId, weekStart, bucketMinutes), key -> loader.get()));
+    }
+
+    /**
+     * 租户在 date 当天的预约变更后调用
+     */
+    public void invalidate(Long tenantId, LocalDate date) {
+        if (tenantId == null || date == null) {
+            return;
+        }
+        LocalDate weekStart = weekStartOf(date);
+        entries.invalidateScope(tenantId, key -> key.weekStart.equals(weekStart));
+    }
+
+    /**
+     * 租户的资源变更后调用
+     */
+    public void invalidateTenant(Long tenantId) {
+        if (tenantId == null) {
+            return;
+        }
+        entries.invalidateScope(tenantId, key -> true);
+    }
+
+    public Map<String, Object> stats() {
+        return entries.stats();
+    }
+
+    private static List<ResourceOccupancy> copyOf(List<ResourceOccupancy> occupancy) {
+        List<ResourceOccupancy> copy = new ArrayList<>(occupancy.size());
+        for (ResourceOccupancy resource : occupancy) {
+            ResourceOccupancy item = new ResourceOccupancy();
+            item.setResourceId(resource.getResourceId());
+            item.setResourceName(resource.getResourceName());
+            item.setResourceType(resource.getResourceType());
+            Map<String, int[]> days = new LinkedHashMap<>();
+            resource.getOccupancy().forEach((day, buckets) -> days.put(day, buckets.clone()));
+            item.setOccupancy(days);
+            copy.add(item);
+        }
+        return copy;
+    }
+
+    private record Key(Long tenantId, LocalDate weekStart, int bucketMinutes) {
+    }
+}
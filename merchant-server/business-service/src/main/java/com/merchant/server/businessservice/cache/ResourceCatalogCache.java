@@ -0,0 +1,89 @@
+package com.merchant.server.businessservice.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.merchant.server.businessservice.dto.ResourceCatalog;
+import com.merchant.server.businessservice.entity.Resource;
+import com.merchant.server.businessservice.entity.ResourceAvailability;
+import com.merchant.server.businessservice.mapper.ResourceMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 租户资源目录缓存
+ *
+ * 资源和每周可用时段很少变化，但每个预约页面都会读取。目录用两条集合查询加载（资源、全部资源的可用时段），
+ * 资源增删改和可用时段设置在事务提交后失效对应租户；TTL 兜底覆盖其余途径的修改。
+ * 加载期间发生过失效时不回填，避免把加载到的旧数据写回缓存。
+ */
+@Component
+public class ResourceCatalogCache {
+
+    private final ResourceMapper resourceMapper;
+
+    private final ObjectMapper objectMapper;
+
+    private final GenerationGuardedCache<Long, ResourceCatalog> entries;
+
+    public ResourceCatalogCache(ResourceMapper resourceMapper,
+                                ObjectMapper objectMapper,
+                                @Value("${resource.catalog.cache-ttl:600000}") long ttlMillis) {
+        this.resourceMapper = resourceMapper;
+        this.objectMapper = objectMapper;
+        this.entries = new GenerationGuardedCache<>(ttlMillis);
+    }
+
+    /**
+     * 读取租户的资源目录，未缓存或已过期时从数据库加载
+     */
+    public ResourceCatalog get(Long tenantId) {
+        return entries.get(tenantId, this::load);
+    }
+
+    /**
+     * 租户的资源或可用时段变更后调用
+     */
+    public void invalidate(Long tenantId) {
+        if (tenantId == null) {
+            return;
+        }
+        entries.invalidate(tenantId);
+    }
+
+    public Map<String, Object> stats() {
+        return entries.stats();
+    }
+
+    private ResourceCatalog load(Long tenantId) {
+        List<Resource> resources = resourceMapper.findByTenantId(tenantId);
+        if (!resources.isEmpty()) {
+            List<Long> resourceIds = resources.stream().map(Resource::getId).collect(Collectors.toList());
+            Map<Long, List<ResourceAvailability>> byResource = resourceMapper.findAvailabilitiesByResourceIds(resourceIds)
+                .stream()
+                .collect(Collectors.groupingBy(ResourceAvailability::getResourceId));
+            for (Resource resource : resources) {
+                resource.setAvailabilities(byResource.getOrDefault(resource.getId(), new ArrayList<>()));
+            }
+        }
+        List<Resource> snapshot = Collections.unmodifiableList(resources);
+        return new ResourceCatalog(tenantId, snapshot, etagOf(snapshot));
+    }
+
+    /**
+     * 按序列化后的内容计算 ETag，多实例之间、重启前后相同内容得到相同的值
+     */
+    private String etagOf(List<Resource> resources) {
+        try {
+            return "\"" + DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(resources)) + "\"";
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to compute resource catalog etag", e);
+        }
+    }
+}
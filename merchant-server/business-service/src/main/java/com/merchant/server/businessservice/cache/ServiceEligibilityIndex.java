@@ -0,0 +1,117 @@
+package com.merchant.server.businessservice.cache;
+
+import com.merchant.server.businessservice.dto.ResourceCatalog;
+import com.merchant.server.businessservice.dto.ServiceResourceRule;
+import com.merchant.server.businessservice.entity.Resource;
+import com.merchant.server.businessservice.mapper.ResourceMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 服务 -> 可提供该服务的资源索引（按租户）
+ *
+ * 资源需为 ACTIVE、类型符合服务的 resource_type；服务在 staff_services 中配置了员工时，
+ * 员工资源只保留配置了该服务的员工。查询可预约资源时不再访问数据库。
+ * 索引由两部分组成：服务规则（一条查询加载，按 TTL 或 {@link #invalidateRules} 重新加载）和
+ * 资源目录（{@link ResourceCatalogCache}）。资源变更只会使资源目录失效，索引发现目录换了新快照后
+ * 用已缓存的规则重新计算，不再查询服务和技能。
+ */
+@Component
+public class ServiceEligibilityIndex {
+
+    private final ResourceMapper resourceMapper;
+
+    private final ResourceCatalogCache resourceCatalogCache;
+
+    private final GenerationGuardedCache<Long, Entry> entries;
+
+    private final AtomicLong rebuilds = new AtomicLong();
+
+    public ServiceEligibilityIndex(ResourceMapper resourceMapper,
+                                   ResourceCatalogCache resourceCatalogCache,
+                                   @Value("${resource.eligibility.rules-ttl:300000}") long rulesTtlMillis) {
+        this.resourceMapper = resourceMapper;
+        this.resourceCatalogCache = resourceCatalogCache;
+        this.entries = new GenerationGuardedCache<>(rulesTtlMillis);
+    }
+
+    /**
+     * 可提供服务的资源，按类型、名称排序；服务不属于该租户时返回空列表。返回的资源来自缓存，调用方不应修改
+     */
+    public List<Resource> eligibleResources(Long tenantId, Long serviceId) {
+        ResourceCatalog catalog = resourceCatalogCache.get(tenantId);
+        Entry entry = entries.get(tenantId, id -> build(resourceMapper.selectServiceResourceRules(id), catalog));
+        if (entry.catalog != catalog) {
+            Entry stale = entry;
+            entry = build(stale.rules, catalog);
+            // 期间规则被失效时不回填
+            entries.replace(tenantId, stale, entry);
+        }
+        return entry.byService.getOrDefault(serviceId, Collections.emptyList());
+    }
+
+    /**
+     * 服务的资源类型或员工技能变更后调用，下次查询时重新加载该租户的规则
+     */
+    public void invalidateRules(Long tenantId) {
+        entries.invalidate(tenantId);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> cacheStats = entries.stats();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("tenants", cacheStats.get("entries"));
+        stats.put("hits", cacheStats.get("hits"));
+        stats.put("ruleLoads", cacheStats.get("misses"));
+        stats.put("invalidations", cacheStats.get("invalidations"));
+        stats.put("rebuilds", rebuilds.get());
+        return stats;
+    }
+
+    private Entry build(List<ServiceResourceRule> rules, ResourceCatalog catalog) {
+        rebuilds.incrementAndGet();
+        Map<Long, List<Resource>> byService = new HashMap<>();
+        for (ServiceResourceRule rule : rules) {
+            Set<Long> skilled = rule.isSkillRestricted() ? new HashSet<>(rule.getSkilledResourceIds()) : null;
+            List<Resource> eligible = new ArrayList<>();
+            for (Resource resource : catalog.resources()) {
+                if (resource.getStatus() == Resource.ResourceStatus.ACTIVE
+                        && typeMatches(rule.getResourceType(), resource.getType())
+                        && (skilled == null || resource.getType() != Resource.ResourceType.STAFF
+                            || skilled.contains(resource.getId()))) {
+                    eligible.add(resource);
+                }
+            }
+            byService.put(rule.getServiceId(), Collections.unmodifiableList(eligible));
+        }
+        return new Entry(rules, catalog, byService);
+    }
+
+    private static boolean typeMatches(String required, Resource.ResourceType type) {
+        if (required == null || type == null) {
+            return false;
+        }
+        return "BOTH".equals(required) || required.equals(type.name());
+    }
+
+    private static final class Entry {
+        final List<ServiceResourceRule> rules;
+        final ResourceCatalog catalog;
+        final Map<Long, List<Resource>> byService;
+
+        Entry(List<ServiceResourceRule> rules, ResourceCatalog catalog, Map<Long, List<Resource>> byService) {
+            this.rules = rules;
+            this.catalog = catalog;
+            this.byService = byService;
+        }
+    }
+}
@@ -10,96 +10,128 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
 @Component
 @Slf4j
 public class NotificationClient {
 
+    private static final String BASE_PATH = "/api/v2/appointment-notifications";
+
+    // 所有请求共用的只读请求头
+    private static final HttpHeaders JSON_HEADERS;
+
+    static {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        JSON_HEADERS = HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+
     private final RestTemplate restTemplate;
     private final String notificationServiceUrl;
 
-    public NotificationClient(RestTemplate restTemplate, 
+    // 按接口统计调用次数、失败次数和耗时
+    private final Map<String, CallStats> callStats = new ConcurrentHashMap<>();
+
+    public NotificationClient(RestTemplate restTemplate,
                             @Value("${notification.service.url:http://localhost:8084}") String notificationServiceUrl) {
         this.restTemplate = restTemplate;
         this.notificationServiceUrl = notificationServiceUrl;
     }
 
-    public void sendAppointmentConfirmation(AppointmentNotificationDTO notification) {
-        try {
-            log.info("Sending appointment confirmation notification for appointment: {}", notification.getAppointmentId());
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<AppointmentNotificationDTO> request = new HttpEntity<>(notification, headers);
-            
-            ResponseEntity<String> response = restTemplate.postForEntity(
-                notificationServiceUrl + "/api/v2/appointment-notifications/confirmation",
-                request,
-                String.class
-            );
-            
-            log.info("Appointment confirmation notification sent successfully: {}", response.getStatusCode());
-        } catch (Exception e) {
-            log.error("Failed to send appointment confirmation notification", e);
-        }
+    /**
+     * 单条通知均返回通知服务是否已接收，失败只记录日志，是否重试由调用方决定
+     */
+    public boolean sendAppointmentConfirmation(AppointmentNotificationDTO notification) {
+        log.info("Sending appointment confirmation notification for appointment: {}", notification.getAppointmentId());
+        return post("/confirmation", notification, "appointment confirmation notification");
     }
 
-    public void sendAppointmentCancellation(AppointmentNotificationDTO notification) {
-        try {
-            log.info("Sending appointment cancellation notification for appointment: {}", notification.getAppointmentId());
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<AppointmentNotificationDTO> request = new HttpEntity<>(notification, headers);
-            
-            ResponseEntity<String> response = restTemplate.postForEntity(
-                notificationServiceUrl + "/api/v2/appointment-notifications/cancellation",
-                request,
-                String.class
-            );
-            
-            log.info("Appointment cancellation notification sent successfully: {}", response.getStatusCode());
-        } catch (Exception e) {
-            log.error("Failed to send appointment cancellation notification", e);
-        }
+    public boolean sendAppointmentCancellation(AppointmentNotificationDTO notification) {
+        log.info("Sending appointment cancellation notification for appointment: {}", notification.getAppointmentId());
+        return post("/cancellation", notification, "appointment cancellation notification");
     }
 
-    public void sendAppointmentCompletion(AppointmentNotificationDTO notification) {
+    public boolean sendAppointmentCompletion(AppointmentNotificationDTO notification) {
+        log.info("Sending appointment completion notification for appointment: {}", notification.getAppointmentId());
+        return post("/completion", notification, "appointment completion notification");
+    }
+
+    public boolean sendAppointmentReminder(AppointmentNotificationDTO notification) {
+        log.info("Sending appointment reminder notification for appointment: {}", notification.getAppointmentId());
+        return post("/reminder", notification, "appointment reminder notification");
+    }
+
+    /**
+     * 批量发送预约提醒，一次请求交给通知服务，返回通知服务是否已接收
+     */
+    public boolean sendAppointmentReminders(List<AppointmentNotificationDTO> notifications) {
+        log.info("Sending batch appointment reminders, count: {}", notifications.size());
+        return post("/batch-reminders", notifications, "batch appointment reminders");
+    }
+
+    /**
+     * 各接口的调用统计：次数、失败次数、平均和最大耗时
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new TreeMap<>();
+        callStats.forEach((path, call) -> stats.put(path, call.snapshot()));
+        return stats;
+    }
+
+    private boolean post(String path, Object body, String description) {
+        CallStats stats = callStats.computeIfAbsent(path, key -> new CallStats());
+        long start = System.nanoTime();
+        boolean success = false;
         try {
-            log.info("Sending appointment completion notification for appointment: {}", notification.getAppointmentId());
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<AppointmentNotificationDTO> request = new HttpEntity<>(notification, headers);
-            
             ResponseEntity<String> response = restTemplate.postForEntity(
-                notificationServiceUrl + "/api/v2/appointment-notifications/completion",
-                request,
+                notificationServiceUrl + BASE_PATH + path,
+                new HttpEntity<>(body, JSON_HEADERS),
                 String.class
             );
-            
-            log.info("Appointment completion notification sent successfully: {}", response.getStatusCode());
+            success = true;
+            log.info("{} sent successfully: {}", capitalize(description), response.getStatusCode());
+            return true;
         } catch (Exception e) {
-            log.error("Failed to send appointment completion notification", e);
+            log.error("Failed to send {}", description, e);
+            return false;
+        } finally {
+            stats.record(System.nanoTime() - start, success);
         }
     }
 
-    public void sendAppointmentReminder(AppointmentNotificationDTO notification) {
-        try {
-            log.info("Sending appointment reminder notification for appointment: {}", notification.getAppointmentId());
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<AppointmentNotificationDTO> request = new HttpEntity<>(notification, headers);
-            
-            ResponseEntity<String> response = restTemplate.postForEntity(
-                notificationServiceUrl + "/api/v2/appointment-notifications/reminder",
-                request,
-                String.class
-            );
-            
-            log.info("Appointment reminder notification sent successfully: {}", response.getStatusCode());
-        } catch (Exception e) {
-            log.error("Failed to send appointment reminder notification", e);
+    private static String capitalize(String text) {
+        return Character.toUpperCase(text.charAt(0)) + text.substring(1);
+    }
+
+    private static final class CallStats {
+        final LongAdder calls = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos, boolean success) {
+            calls.increment();
+            if (!success) {
+                errors.increment();
+            }
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        Map<String, Object> snapshot() {
+            Map<String, Object> snapshot = new TreeMap<>();
+            long count = calls.sum();
+            snapshot.put("calls", count);
+            snapshot.put("errors", errors.sum());
+            snapshot.put("avgMillis", count > 0 ? totalNanos.sum() / count / 1_000_000.0 : 0.0);
+            snapshot.put("maxMillis", maxNanos.get() / 1_000_000.0);
+            return snapshot;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,48 @@
+package com.merchant.server.businessservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * 客户详情并行查询使用的线程池
+     * 队列满时由调用线程执行，退化为串行查询而不是拒绝请求
+     */
+    @Bean
+    public ThreadPoolTaskExecutor customerDetailExecutor(
+            @Value("${customer.detail.pool-size:8}") int poolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(poolSize * 16);
+        executor.setThreadNamePrefix("customer-detail-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 客户批量导入使用的线程池
+     * 导入在后台执行，请求只负责接收文件；队列满时拒绝新的导入，不占用请求线程
+     */
+    @Bean
+    public ThreadPoolTaskExecutor customerImportExecutor(
+            @Value("${customer.import.pool-size:2}") int poolSize,
+            @Value("${customer.import.queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("customer-import-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+}
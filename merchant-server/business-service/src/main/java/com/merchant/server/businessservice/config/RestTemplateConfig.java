@@ -1,14 +1,55 @@
 package com.merchant.server.businessservice.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * 服务间调用的 RestTemplate
+ *
+ * 底层使用 JDK HttpClient：连接在客户端内复用（keep-alive 连接池），支持 HTTP/2，
+ * 对端不支持时自动回退到 HTTP/1.1；连接和读取超时可配置，避免通知服务变慢时拖住调用线程。
+ * 默认按服务名通过注册中心负载均衡，直连固定地址时设置 notification.client.load-balanced=false。
+ */
 @Configuration
 public class RestTemplateConfig {
 
+    @Value("${notification.client.connect-timeout:2000}")
+    private long connectTimeoutMillis;
+
+    @Value("${notification.client.read-timeout:5000}")
+    private long readTimeoutMillis;
+
+    @Value("${notification.client.http-version:HTTP_2}")
+    private HttpClient.Version httpVersion;
+
     @Bean
+    @LoadBalanced
+    @ConditionalOnProperty(name = "notification.client.load-balanced", havingValue = "true", matchIfMissing = true)
     public RestTemplate restTemplate() {
-        return new RestTemplate();
+        return buildRestTemplate();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "notification.client.load-balanced", havingValue = "false")
+    public RestTemplate directRestTemplate() {
+        return buildRestTemplate();
+    }
+
+    private RestTemplate buildRestTemplate() {
+        HttpClient httpClient = HttpClient.newBuilder()
+            .version(httpVersion)
+            .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+            .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMillis));
+        return new RestTemplate(requestFactory);
     }
-}
\ No newline at end of file
+}
@@ -1,11 +1,21 @@
 package com.merchant.server.businessservice.controller;
 
+import com.merchant.server.businessservice.availability.BookingConflictException;
+import com.merchant.server.businessservice.availability.OutsideBusinessHoursException;
+import com.merchant.server.businessservice.dto.AppointmentPageQuery;
 import com.merchant.server.businessservice.entity.Appointment;
+import com.merchant.server.businessservice.entity.CustomerAppointmentStats;
+import com.merchant.server.businessservice.service.AppointmentNotificationService;
 import com.merchant.server.businessservice.service.AppointmentService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -14,7 +24,13 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class AppointmentController {
 
+    private static final int MAX_PAGE_SIZE = 200;
+
+    // 单次查询的最大日期窗口（天）
+    private static final int MAX_WINDOW_DAYS = 366;
+
     private final AppointmentService appointmentService;
+    private final AppointmentNotificationService notificationService;
 
     /**
      * 获取租户的所有预约记录
@@ -25,6 +41,45 @@ public class AppointmentController {
         return ResponseEntity.ok(appointments);
     }
 
+    /**
+     * 按日期窗口分页查询预约
+     * 必须指定 startDate/endDate（含两端），可按状态和资源过滤；按预约日期、时间排序并通过 cursor 翻页
+     */
+    @GetMapping("/page")
+    public ResponseEntity<Map<String, Object>> getAppointmentPage(
+            @RequestParam Long tenantId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Appointment.AppointmentStatus status,
+            @RequestParam(required = false) Long resourceId,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(required = false) String cursor) {
+
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("endDate must not be before startDate");
+        }
+        if (ChronoUnit.DAYS.between(startDate, endDate) >= MAX_WINDOW_DAYS) {
+            throw new IllegalArgumentException("Date window must not exceed " + MAX_WINDOW_DAYS + " days");
+        }
+        AppointmentPageQuery query = new AppointmentPageQuery();
+        query.setTenantId(tenantId);
+        query.setStartDate(startDate);
+        query.setEndDate(endDate);
+        query.setStatus(status);
+        query.setResourceId(resourceId);
+        query.setSortDir(sortDir);
+        query.setLimit(Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+
+        AppointmentService.AppointmentPageResult result = appointmentService.getAppointmentPage(query, cursor);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("appointments", result.getAppointments());
+        response.put("hasNext", result.isHasNext());
+        response.put("nextCursor", result.getNextCursor());
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * 根据客户ID获取预约记录
      */
@@ -40,18 +95,27 @@ public class AppointmentController {
      * 获取预约统计信息
      */
     @GetMapping("/customer/{customerId}/stats")
-    public ResponseEntity<Map<String, Object>> getAppointmentStats(
+    public ResponseEntity<CustomerAppointmentStats> getAppointmentStats(
             @PathVariable Long customerId,
             @RequestParam Long tenantId) {
-        Map<String, Object> stats = appointmentService.getAppointmentStats(customerId, tenantId);
+        CustomerAppointmentStats stats = appointmentService.getAppointmentStats(customerId, tenantId);
         return ResponseEntity.ok(stats);
     }
 
+    /**
+     * 调用通知服务的统计（各接口次数、失败次数、平均和最大耗时）
+     */
+    @GetMapping("/notifications/stats")
+    public ResponseEntity<Map<String, Object>> getNotificationDeliveryStats() {
+        return ResponseEntity.ok(notificationService.getDeliveryStats());
+    }
+
     /**
      * 创建新预约
      */
     @PostMapping
     public ResponseEntity<Appointment> createAppointment(@RequestBody Appointment appointment) {
+        validateDuration(appointment);
         Appointment created = appointmentService.createAppointment(appointment);
         return ResponseEntity.ok(created);
     }
@@ -76,6 +140,7 @@ public class AppointmentController {
             @PathVariable Long id,
             @RequestBody Appointment appointment) {
         appointment.setId(id);
+        validateDuration(appointment);
         Appointment updated = appointmentService.updateAppointment(appointment);
         return ResponseEntity.ok(updated);
     }
@@ -88,4 +153,36 @@ public class AppointmentController {
         appointmentService.deleteAppointment(id);
         return ResponseEntity.ok().build();
     }
-}
\ No newline at end of file
+
+    /**
+     * 时长必须为正；分配了资源的预约必须有时长，否则不占用任何时段
+     */
+    private static void validateDuration(Appointment appointment) {
+        Integer duration = appointment.getDuration();
+        if ((duration != null && duration <= 0) || (duration == null && appointment.getResourceId() != null)) {
+            throw new IllegalArgumentException("duration must be a positive number of minutes");
+        }
+    }
+
+    /**
+     * 请求参数不合法（日期窗口、游标、预约时长等）
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgument(IllegalArgumentException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", e.getMessage());
+        error.put("type", e.getClass().getSimpleName());
+        return ResponseEntity.badRequest().body(error);
+    }
+
+    /**
+     * 预约时段冲突或不在资源可用时段内
+     */
+    @ExceptionHandler({BookingConflictException.class, OutsideBusinessHoursException.class})
+    public ResponseEntity<Map<String, String>> handleBookingConflict(RuntimeException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", e.getMessage());
+        error.put("type", e.getClass().getSimpleName());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+}
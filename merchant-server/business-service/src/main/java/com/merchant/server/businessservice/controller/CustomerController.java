@@ -1,28 +1,60 @@
 package com.merchant.server.businessservice.controller;
 
+import com.merchant.server.businessservice.cache.CustomerDetailCache;
+import com.merchant.server.businessservice.cache.CustomerLeaderboard;
 import com.merchant.server.businessservice.dto.CustomerDTO;
+import com.merchant.server.businessservice.dto.CustomerFileFormat;
+import com.merchant.server.businessservice.dto.CustomerImportJob;
+import com.merchant.server.businessservice.dto.CustomerListField;
+import com.merchant.server.businessservice.dto.CustomerListItem;
+import com.merchant.server.businessservice.dto.CustomerPageQuery;
 import com.merchant.server.businessservice.entity.Customer;
+import com.merchant.server.businessservice.search.CustomerSearchIndex;
+import com.merchant.server.businessservice.service.CustomerExportService;
+import com.merchant.server.businessservice.service.CustomerImportService;
 import com.merchant.server.businessservice.service.CustomerService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.zip.GZIPOutputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/customers")
 public class CustomerController {
     
+    private static final int MAX_PAGE_SIZE = 200;
+    
     @Autowired
     private CustomerService customerService;
     
+    @Autowired
+    private CustomerImportService customerImportService;
+    
+    @Autowired
+    private CustomerExportService customerExportService;
+    
+    @Autowired
+    private CustomerSearchIndex customerSearchIndex;
+    
+    @Autowired
+    private CustomerLeaderboard customerLeaderboard;
+    
+    @Autowired
+    private CustomerDetailCache customerDetailCache;
+    
     private CustomerDTO convertToDTO(Customer customer) {
         CustomerDTO dto = new CustomerDTO();
         dto.setId(customer.getId());
@@ -51,6 +83,9 @@ public class CustomerController {
     
     /**
      * 分页查询客户
+     * 传入 cursor 时按 keyset 翻页（推荐，深翻页无需扫描前面的行）；否则按 page/size 偏移分页。
+     * count 取值 exact（默认）、estimated（最多数到上限）或 none（不统计总数）
+     * view=grid 或传入 fields 时只查询表格列并返回精简行，fields 为逗号分隔的字段名（稀疏字段集）
      */
     @GetMapping
     public ResponseEntity<Map<String, Object>> getCustomers(
@@ -61,21 +96,52 @@ public class CustomerController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "updatedAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "exact") String count,
+            @RequestParam(defaultValue = "full") String view,
+            @RequestParam(required = false) String fields) {
+        
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        CustomerPageQuery query = new CustomerPageQuery();
+        query.setTenantId(tenantId);
+        query.setKeyword(keyword);
+        query.setStatus(status);
+        query.setLevel(membershipLevel);
+        query.setSortBy(sortBy);
+        query.setSortDir(sortDir);
+        query.setOffset(Math.max(page, 0) * pageSize);
+        query.setLimit(pageSize);
+        boolean grid = "grid".equalsIgnoreCase(view) || fields != null;
+        Set<CustomerListField> listFields = grid ? CustomerListField.parse(fields) : null;
+        query.setListFields(listFields);
         
-        Sort sort = sortDir.equalsIgnoreCase("desc") ? 
-            Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
-        Pageable pageable = PageRequest.of(page, size, sort);
+        CustomerService.CountMode countMode = CustomerService.CountMode.valueOf(count.toUpperCase());
+        CustomerService.CustomerPageResult result = customerService.getCustomerPage(query, cursor, countMode);
+        
+        List<?> customers;
+        if (grid) {
+            List<CustomerListItem> items = new ArrayList<>(result.getCustomers().size());
+            for (Customer customer : result.getCustomers()) {
+                items.add(CustomerListItem.from(customer, listFields));
+            }
+            customers = items;
+        } else {
+            customers = result.getCustomers().stream()
+                .map(this::convertToDTO)
+                .collect(java.util.stream.Collectors.toList());
+        }
+        Long totalItems = result.getTotalItems();
         
-        Page<Customer> customerPage = customerService.getCustomers(tenantId, keyword, status, membershipLevel, pageable);
-        Page<CustomerDTO> dtoPage = customerPage.map(this::convertToDTO);
         Map<String, Object> response = new HashMap<>();
-        response.put("customers", dtoPage.getContent());
-        response.put("currentPage", dtoPage.getNumber());
-        response.put("totalItems", dtoPage.getTotalElements());
-        response.put("totalPages", dtoPage.getTotalPages());
-        response.put("hasNext", dtoPage.hasNext());
-        response.put("hasPrevious", dtoPage.hasPrevious());
+        response.put("customers", customers);
+        response.put("currentPage", page);
+        response.put("totalItems", totalItems);
+        response.put("totalExact", result.isTotalExact());
+        response.put("totalPages", totalItems != null ? (int) Math.ceil((double) totalItems / pageSize) : null);
+        response.put("hasNext", result.isHasNext());
+        response.put("hasPrevious", cursor != null || page > 0);
+        response.put("nextCursor", result.getNextCursor());
         
         return ResponseEntity.ok(response);
     }
@@ -156,6 +222,121 @@ public class CustomerController {
         return ResponseEntity.ok(customers);
     }
     
+    /**
+     * 消费排行榜命中率和重建耗时统计
+     */
+    @GetMapping("/top-spending/stats")
+    public ResponseEntity<Map<String, Object>> getLeaderboardStats() {
+        return ResponseEntity.ok(customerLeaderboard.stats());
+    }
+    
+    /**
+     * 关键字搜索客户，按相关度返回客户ID（前台搜索框联想）
+     */
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> searchCustomers(
+            @RequestParam Long tenantId,
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit) {
+        long start = System.nanoTime();
+        List<Long> ids = customerSearchIndex.search(tenantId, q, Math.min(limit, MAX_PAGE_SIZE));
+        Map<String, Object> response = new HashMap<>();
+        response.put("customerIds", ids);
+        response.put("tookMicros", (System.nanoTime() - start) / 1000);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 重建租户的客户搜索索引
+     */
+    @PostMapping("/search/reindex")
+    public ResponseEntity<Map<String, Object>> reindexCustomers(@RequestParam Long tenantId) {
+        return ResponseEntity.ok(customerSearchIndex.reindex(tenantId));
+    }
+    
+    /**
+     * 客户搜索索引内存占用统计
+     */
+    @GetMapping("/search/stats")
+    public ResponseEntity<Map<String, Object>> getSearchIndexStats() {
+        return ResponseEntity.ok(customerSearchIndex.stats());
+    }
+    
+    /**
+     * 批量导入客户
+     * 请求体为 CSV（首行为列名）或 NDJSON（每行一个客户 JSON），接收完成后在后台导入，
+     * 立即返回 202 和任务ID，通过 GET /import/{jobId} 查询进度
+     */
+    @PostMapping("/import")
+    public ResponseEntity<CustomerImportJob> importCustomers(
+            @RequestParam Long tenantId,
+            @RequestParam(required = false) String format,
+            HttpServletRequest request) throws IOException {
+        CustomerFileFormat importFormat = CustomerFileFormat.resolve(format, request.getContentType());
+        CustomerImportJob job = customerImportService.submitImport(tenantId, importFormat, request.getInputStream());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+    
+    /**
+     * 查询导入任务进度和错误明细
+     */
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<CustomerImportJob> getImportJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(customerImportService.getJob(jobId));
+    }
+    
+    /**
+     * 查询租户最近的导入任务（含进行中的任务）
+     */
+    @GetMapping("/import")
+    public ResponseEntity<List<CustomerImportJob>> getImportJobs(@RequestParam Long tenantId) {
+        return ResponseEntity.ok(customerImportService.getJobs(tenantId));
+    }
+    
+    /**
+     * 导出客户
+     * 以流式结果集边读边写，格式为 CSV（默认）或 NDJSON；客户端接受 gzip 时压缩输出
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportCustomers(
+            @RequestParam Long tenantId,
+            @RequestParam(required = false) Customer.CustomerStatus status,
+            @RequestParam(required = false) Customer.MembershipLevel membershipLevel,
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CustomerFileFormat exportFormat = CustomerFileFormat.resolve(format, accept);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        
+        StreamingResponseBody body = output -> {
+            if (gzip) {
+                GZIPOutputStream gzipOutput = new GZIPOutputStream(output, 8192);
+                customerExportService.exportCustomers(tenantId, status, membershipLevel, exportFormat, gzipOutput);
+                gzipOutput.finish();
+            } else {
+                customerExportService.exportCustomers(tenantId, status, membershipLevel, exportFormat, output);
+            }
+        };
+        
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+            .header(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"customers-" + tenantId + "." + exportFormat.getExtension() + "\"")
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+    
+    /**
+     * 客户详情缓存命中率和加载耗时统计
+     */
+    @GetMapping("/detail/stats")
+    public ResponseEntity<Map<String, Object>> getDetailCacheStats() {
+        return ResponseEntity.ok(customerDetailCache.stats());
+    }
+    
     /**
      * 异常处理
      */
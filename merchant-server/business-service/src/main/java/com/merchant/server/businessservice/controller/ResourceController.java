@@ -1,5 +1,8 @@
 package com.merchant.server.businessservice.controller;
 
+import com.merchant.server.businessservice.dto.ResourceCatalog;
+import com.merchant.server.businessservice.dto.ResourceOccupancy;
+import com.merchant.server.businessservice.dto.ResourceSlots;
 import com.merchant.server.businessservice.entity.Resource;
 import com.merchant.server.businessservice.entity.ResourceAvailability;
 import com.merchant.server.businessservice.service.ResourceService;
@@ -7,12 +10,14 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/resources")
@@ -20,16 +25,26 @@ import java.util.List;
 @Slf4j
 public class ResourceController {
 
+    // 可预约时段一次最多查询的天数
+    private static final int MAX_SLOT_DAYS = 7;
+
+    // 占用热力图时间段的最小分钟数
+    private static final int MIN_OCCUPANCY_BUCKET = 5;
+
     private final ResourceService resourceService;
 
     /**
      * 获取租户下所有资源
+     * 响应带内容 ETag，请求的 If-None-Match 与之相同时返回 304
      */
     @GetMapping("/tenant/{tenantId}")
-    public ResponseEntity<List<Resource>> getAllResources(@PathVariable Long tenantId) {
+    public ResponseEntity<List<Resource>> getAllResources(@PathVariable Long tenantId, WebRequest request) {
         log.info("Getting all resources for tenant: {}", tenantId);
-        List<Resource> resources = resourceService.getAllResourcesByTenantId(tenantId);
-        return ResponseEntity.ok(resources);
+        ResourceCatalog catalog = resourceService.getResourceCatalog(tenantId);
+        if (request.checkNotModified(catalog.etag())) {
+            return null;
+        }
+        return ResponseEntity.ok(catalog.resources());
     }
 
     /**
@@ -62,6 +77,16 @@ public class ResourceController {
         return ResponseEntity.ok(resources);
     }
 
+    /**
+     * 刷新服务资源规则
+     * 服务的资源类型或员工技能变更后调用
+     */
+    @PostMapping("/eligibility/refresh")
+    public ResponseEntity<Void> refreshServiceEligibility(@RequestParam Long tenantId) {
+        resourceService.refreshServiceEligibility(tenantId);
+        return ResponseEntity.ok().build();
+    }
+
     /**
      * 检查资源可用性
      */
@@ -76,11 +101,71 @@ public class ResourceController {
         LocalDate appointmentDate = LocalDate.parse(date);
         LocalTime start = LocalTime.parse(startTime);
         LocalTime end = LocalTime.parse(endTime);
+        if (!end.isAfter(start)) {
+            throw new RuntimeException("endTime must be after startTime");
+        }
         
         boolean available = resourceService.checkResourceAvailability(resourceId, appointmentDate, start, end);
         return ResponseEntity.ok(available);
     }
 
+    /**
+     * 查询可预约时段
+     * 一次返回能提供该服务的所有资源从 date 起 days 天（最多 7 天）内可以开始 duration 分钟服务的时间，按 5 分钟粒度
+     */
+    @GetMapping("/slots")
+    public ResponseEntity<List<ResourceSlots>> findFreeSlots(
+            @RequestParam Long tenantId,
+            @RequestParam Long serviceId,
+            @RequestParam String date,
+            @RequestParam int duration,
+            @RequestParam(defaultValue = "1") int days) {
+        if (duration <= 0 || duration > 24 * 60) {
+            throw new RuntimeException("duration must be between 1 and 1440 minutes");
+        }
+        if (days < 1 || days > MAX_SLOT_DAYS) {
+            throw new RuntimeException("days must be between 1 and " + MAX_SLOT_DAYS);
+        }
+        List<ResourceSlots> slots = resourceService.findFreeSlots(tenantId, serviceId, LocalDate.parse(date), days, duration);
+        return ResponseEntity.ok(slots);
+    }
+
+    /**
+     * 查询在岗资源
+     * 返回 at 时刻（默认当前时间）处于每周可用时段内的在用资源
+     */
+    @GetMapping("/working")
+    public ResponseEntity<List<Resource>> getWorkingResources(
+            @RequestParam Long tenantId,
+            @RequestParam(required = false) String at) {
+        LocalDateTime time = at != null ? LocalDateTime.parse(at) : LocalDateTime.now();
+        return ResponseEntity.ok(resourceService.getWorkingResources(tenantId, time));
+    }
+
+    /**
+     * 查询资源周占用热力图
+     * 返回租户所有资源在 date 所在周（周一至周日）每天每 bucket 分钟内被预约占用的分钟数，bucket 需能整除一天
+     */
+    @GetMapping("/occupancy")
+    public ResponseEntity<List<ResourceOccupancy>> getWeeklyOccupancy(
+            @RequestParam Long tenantId,
+            @RequestParam String date,
+            @RequestParam(defaultValue = "60") int bucket) {
+        if (bucket < MIN_OCCUPANCY_BUCKET || bucket > 24 * 60 || (24 * 60) % bucket != 0) {
+            throw new RuntimeException("bucket must divide 1440 and be at least " + MIN_OCCUPANCY_BUCKET + " minutes");
+        }
+        List<ResourceOccupancy> occupancy = resourceService.getWeeklyOccupancy(tenantId, LocalDate.parse(date), bucket);
+        return ResponseEntity.ok(occupancy);
+    }
+
+    /**
+     * 资源占用索引统计（命中、回退数据库次数、加载窗口、预约冲突等）
+     */
+    @GetMapping("/availability/stats")
+    public ResponseEntity<Map<String, Object>> getAvailabilityIndexStats() {
+        return ResponseEntity.ok(resourceService.getAvailabilityIndexStats());
+    }
+
     /**
      * 创建资源
      */
@@ -130,6 +215,18 @@ public class ResourceController {
 
 
 
+    /**
+     * 批量设置资源可用性
+     * 请求体为 资源ID -> 可用时段列表，所有资源在一个事务内更新
+     */
+    @PostMapping("/availability/batch")
+    public ResponseEntity<Void> setResourceAvailabilities(
+            @RequestBody Map<Long, List<ResourceAvailability>> availabilities) {
+        log.info("Setting availability for {} resources", availabilities.size());
+        resourceService.setResourceAvailabilities(availabilities);
+        return ResponseEntity.ok().build();
+    }
+
     /**
      * 设置资源可用性
      */
@@ -0,0 +1,70 @@
+package com.merchant.server.businessservice.dto;
+
+import com.merchant.server.businessservice.entity.Appointment;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Base64;
+
+/**
+ * 预约列表翻页游标
+ * 记录上一页最后一条预约的 (appointment_date, appointment_time, id)，编码为 URL 安全的 Base64 字符串
+ */
+public class AppointmentCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final String sortDir;
+    private final LocalDate date;
+    private final LocalTime time;
+    private final Long id;
+
+    private AppointmentCursor(String sortDir, LocalDate date, LocalTime time, Long id) {
+        this.sortDir = sortDir;
+        this.date = date;
+        this.time = time;
+        this.id = id;
+    }
+
+    /**
+     * 以页内最后一条预约生成下一页游标
+     */
+    public static AppointmentCursor after(Appointment last, String sortDir) {
+        return new AppointmentCursor(sortDir, last.getAppointmentDate(), last.getAppointmentTime(), last.getId());
+    }
+
+    public static AppointmentCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("unexpected segment count");
+            }
+            return new AppointmentCursor(parts[0], LocalDate.parse(parts[1]), LocalTime.parse(parts[2]), Long.valueOf(parts[3]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+
+    public String encode() {
+        String raw = String.join(SEPARATOR, sortDir, date.toString(), time.toString(), String.valueOf(id));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getSortDir() {
+        return sortDir;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public LocalTime getTime() {
+        return time;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,49 @@
+package com.merchant.server.businessservice.dto;
+
+import com.merchant.server.businessservice.entity.Appointment;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * 预约列表分页查询条件
+ * 按 (appointment_date, appointment_time, id) 排序并做 keyset 翻页，对应 idx_tenant_date_time_id
+ */
+@Data
+public class AppointmentPageQuery {
+
+    private Long tenantId;
+
+    // 日期窗口（含两端）
+    private LocalDate startDate;
+
+    private LocalDate endDate;
+
+    private Appointment.AppointmentStatus status;
+
+    private Long resourceId;
+
+    private String sortDir = "ASC";
+
+    // 游标位置（上一页最后一条）
+    private LocalDate cursorDate;
+
+    private LocalTime cursorTime;
+
+    private Long cursorId;
+
+    private int limit;
+
+    /**
+     * 应用游标；游标必须与当前排序方向一致
+     */
+    public void applyCursor(AppointmentCursor cursor) {
+        if (!cursor.getSortDir().equals(sortDir)) {
+            throw new RuntimeException("Cursor does not match the requested sort order");
+        }
+        this.cursorDate = cursor.getDate();
+        this.cursorTime = cursor.getTime();
+        this.cursorId = cursor.getId();
+    }
+}
@@ -0,0 +1,74 @@
+package com.merchant.server.businessservice.dto;
+
+import com.merchant.server.businessservice.entity.Customer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 客户列表翻页游标
+ * 记录上一页最后一行的排序列值和 id，编码为 URL 安全的 Base64 字符串
+ */
+public class CustomerCursor {
+
+    private static final String SEPARATOR = "\u001F";
+    private static final String NULL_MARKER = "\u0000";
+
+    private final CustomerSortField sortField;
+    private final String sortDir;
+    private final String value;
+    private final Long id;
+
+    private CustomerCursor(CustomerSortField sortField, String sortDir, String value, Long id) {
+        this.sortField = sortField;
+        this.sortDir = sortDir;
+        this.value = value;
+        this.id = id;
+    }
+
+    /**
+     * 以页内最后一个客户生成下一页游标
+     */
+    public static CustomerCursor after(Customer last, CustomerSortField sortField, String sortDir) {
+        return new CustomerCursor(sortField, sortDir, sortField.format(sortField.valueOf(last)), last.getId());
+    }
+
+    public static CustomerCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, -1);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("unexpected segment count");
+            }
+            CustomerSortField sortField = CustomerSortField.valueOf(parts[0]);
+            String value = NULL_MARKER.equals(parts[2]) ? null : parts[2];
+            // 提前校验取值格式，避免非法游标进入 SQL
+            sortField.parse(value);
+            return new CustomerCursor(sortField, parts[1], value, Long.valueOf(parts[3]));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor: " + token, e);
+        }
+    }
+
+    public String encode() {
+        String raw = String.join(SEPARATOR,
+            sortField.name(), sortDir, value != null ? value : NULL_MARKER, String.valueOf(id));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public CustomerSortField getSortField() {
+        return sortField;
+    }
+
+    public String getSortDir() {
+        return sortDir;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
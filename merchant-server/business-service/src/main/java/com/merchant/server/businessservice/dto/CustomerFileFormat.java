@@ -0,0 +1,42 @@
+package com.merchant.server.businessservice.dto;
+
+/**
+ * 客户导入/导出文件格式
+ */
+public enum CustomerFileFormat {
+
+    CSV("text/csv"),
+    NDJSON("application/x-ndjson");
+
+    private final String contentType;
+
+    CustomerFileFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return name().toLowerCase();
+    }
+
+    /**
+     * 优先使用显式指定的格式，否则根据 Content-Type / Accept 判断，默认 CSV
+     */
+    public static CustomerFileFormat resolve(String format, String mediaType) {
+        if (format != null && !format.isBlank()) {
+            try {
+                return valueOf(format.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Unsupported file format: " + format);
+            }
+        }
+        if (mediaType != null && (mediaType.contains("ndjson") || mediaType.contains("jsonl")
+                || mediaType.contains("json-seq"))) {
+            return NDJSON;
+        }
+        return CSV;
+    }
+}
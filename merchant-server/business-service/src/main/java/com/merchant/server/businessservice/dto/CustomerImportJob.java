@@ -0,0 +1,92 @@
+package com.merchant.server.businessservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 客户批量导入任务进度
+ */
+@Data
+public class CustomerImportJob {
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    private String jobId;
+
+    private Long tenantId;
+
+    private String format;
+
+    private Status status = Status.RUNNING;
+
+    // 已读取的数据行数
+    private long processedRows;
+
+    private long importedRows;
+
+    private long duplicateRows;
+
+    private long failedRows;
+
+    private String message;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime startedAt;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime finishedAt;
+
+    // 超过上限的错误只计数，不再记录明细
+    private boolean errorsTruncated;
+
+    private List<RowError> errors = new ArrayList<>();
+
+    /**
+     * 单行导入失败原因
+     */
+    @Data
+    public static class RowError {
+
+        private long line;
+
+        private String phone;
+
+        private String message;
+
+        public RowError() {
+        }
+
+        public RowError(long line, String phone, String message) {
+            this.line = line;
+            this.phone = phone;
+            this.message = message;
+        }
+    }
+
+    /**
+     * 复制当前进度，供并发查询时序列化
+     */
+    public synchronized CustomerImportJob snapshot() {
+        CustomerImportJob copy = new CustomerImportJob();
+        copy.jobId = jobId;
+        copy.tenantId = tenantId;
+        copy.format = format;
+        copy.status = status;
+        copy.processedRows = processedRows;
+        copy.importedRows = importedRows;
+        copy.duplicateRows = duplicateRows;
+        copy.failedRows = failedRows;
+        copy.message = message;
+        copy.startedAt = startedAt;
+        copy.finishedAt = finishedAt;
+        copy.errorsTruncated = errorsTruncated;
+        copy.errors = new ArrayList<>(errors);
+        return copy;
+    }
+}
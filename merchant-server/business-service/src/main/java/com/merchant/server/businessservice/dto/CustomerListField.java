@@ -0,0 +1,83 @@
+package com.merchant.server.businessservice.dto;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 客户列表（表格视图）可选字段白名单，用于 ?fields= 稀疏字段集
+ * column 会直接拼入 SELECT 列表，只能来自本枚举
+ */
+public enum CustomerListField {
+
+    FIRST_NAME("firstName", "first_name"),
+    LAST_NAME("lastName", "last_name"),
+    PHONE("phone", "phone"),
+    MEMBERSHIP_LEVEL("membershipLevel", "membership_level"),
+    TOTAL_SPENT("totalSpent", "total_spent"),
+    LAST_VISIT("lastVisit", "last_visit_date");
+
+    private final String property;
+    private final String column;
+
+    CustomerListField(String property, String column) {
+        this.property = property;
+        this.column = column;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * 解析逗号分隔的字段名；为空时返回全部表格字段，fullName 等价于 firstName + lastName
+     */
+    public static Set<CustomerListField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return EnumSet.allOf(CustomerListField.class);
+        }
+        Set<CustomerListField> result = EnumSet.noneOf(CustomerListField.class);
+        for (String name : fields.split(",")) {
+            String property = name.trim();
+            if (property.isEmpty() || "id".equals(property)) {
+                continue;
+            }
+            if ("fullName".equals(property)) {
+                result.add(FIRST_NAME);
+                result.add(LAST_NAME);
+                continue;
+            }
+            CustomerListField field = null;
+            for (CustomerListField candidate : values()) {
+                if (candidate.property.equals(property)) {
+                    field = candidate;
+                }
+            }
+            if (field == null) {
+                throw new RuntimeException("Unsupported list field: " + property);
+            }
+            result.add(field);
+        }
+        return result;
+    }
+
+    /**
+     * 需要查询的列：id、所选字段以及排序列（生成游标用）
+     */
+    public static List<String> columns(Set<CustomerListField> fields, String sortColumn) {
+        List<String> columns = new ArrayList<>();
+        columns.add("id");
+        for (CustomerListField field : fields) {
+            columns.add(field.column);
+        }
+        if (!columns.contains(sortColumn)) {
+            columns.add(sortColumn);
+        }
+        return columns;
+    }
+}
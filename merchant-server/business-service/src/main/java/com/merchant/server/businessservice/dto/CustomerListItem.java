@@ -0,0 +1,42 @@
+package com.merchant.server.businessservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.merchant.server.businessservice.entity.Customer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * 客户表格视图的精简行，只包含表格展示的列
+ * 未请求（或值为空）的字段不输出
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CustomerListItem(
+        Long id,
+        String firstName,
+        String lastName,
+        String fullName,
+        String phone,
+        Customer.MembershipLevel membershipLevel,
+        BigDecimal totalSpent,
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime lastVisit) {
+
+    /**
+     * 由投影查询得到的客户构造；实体未查询的列带有默认值，因此按所选字段取值
+     */
+    public static CustomerListItem from(Customer customer, Set<CustomerListField> fields) {
+        boolean firstName = fields.contains(CustomerListField.FIRST_NAME);
+        boolean lastName = fields.contains(CustomerListField.LAST_NAME);
+        return new CustomerListItem(
+            customer.getId(),
+            firstName ? customer.getFirstName() : null,
+            lastName ? customer.getLastName() : null,
+            firstName && lastName ? customer.getFullName() : null,
+            fields.contains(CustomerListField.PHONE) ? customer.getPhone() : null,
+            fields.contains(CustomerListField.MEMBERSHIP_LEVEL) ? customer.getMembershipLevel() : null,
+            fields.contains(CustomerListField.TOTAL_SPENT) ? customer.getTotalSpent() : null,
+            fields.contains(CustomerListField.LAST_VISIT) ? customer.getLastVisitDate() : null);
+    }
+}
@@ -0,0 +1,64 @@
+package com.merchant.server.businessservice.dto;
+
+import com.merchant.server.businessservice.entity.Customer;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 客户列表分页查询条件
+ * 有游标时按 (排序列, id) 做 keyset 翻页，否则退回 LIMIT/OFFSET
+ */
+@Data
+public class CustomerPageQuery {
+
+    private Long tenantId;
+
+    private String keyword;
+
+    // 由搜索索引给出的关键字候选客户ID，SQL 仍用 LIKE 过滤；为 null 时不限定候选范围
+    private List<Long> keywordIds;
+
+    private Customer.CustomerStatus status;
+
+    private Customer.MembershipLevel level;
+
+    private String sortBy = CustomerSortField.UPDATED_AT.getProperty();
+
+    private String sortDir = "DESC";
+
+    // 游标位置（上一页最后一行）
+    private Long cursorId;
+
+    private Object cursorValue;
+
+    private boolean cursorNull;
+
+    private int offset;
+
+    private int limit;
+
+    // 估算总数时最多数到的行数
+    private int countCap;
+
+    // 表格视图请求的字段；为 null 时查询完整客户信息
+    private Set<CustomerListField> listFields;
+
+    // 表格视图投影查询的列（由 listFields 和排序列得出，均来自白名单）
+    private List<String> columns;
+
+    /**
+     * 应用游标；游标必须与当前排序方式一致
+     */
+    public void applyCursor(CustomerCursor cursor) {
+        CustomerSortField field = CustomerSortField.fromProperty(sortBy);
+        if (cursor.getSortField() != field || !cursor.getSortDir().equals(sortDir)) {
+            throw new RuntimeException("Cursor does not match the requested sort order");
+        }
+        this.cursorId = cursor.getId();
+        this.cursorValue = field.parse(cursor.getValue());
+        this.cursorNull = cursor.getValue() == null;
+        this.offset = 0;
+    }
+}
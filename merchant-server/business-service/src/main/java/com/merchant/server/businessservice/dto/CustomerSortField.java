@@ -0,0 +1,112 @@
+package com.merchant.server.businessservice.dto;
+
+import com.merchant.server.businessservice.entity.Customer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+/**
+ * 客户列表允许的排序字段（白名单）
+ * 每个字段在 04_customer_tables.sql 中都有对应的 (tenant_id, 排序列, id) 复合索引
+ *
+ * 会员等级、积分、总消费和状态列可为 NULL，但实体对这些属性有默认值，查询结果中的 NULL 会读成默认值。
+ * 这些列在 SQL 中按 COALESCE(列, 实体默认值) 排序和 seek，使游标中记录的值与数据库的排序一致；
+ * 枚举列按定义位置（列 + 0，从 1 开始）排序，与 Java 枚举的声明顺序一致。
+ */
+public enum CustomerSortField {
+
+    FIRST_NAME("firstName", "first_name", Kind.STRING, Customer::getFirstName),
+    LAST_NAME("lastName", "last_name", Kind.STRING, Customer::getLastName),
+    PHONE("phone", "phone", Kind.STRING, Customer::getPhone),
+    EMAIL("email", "email", Kind.STRING, Customer::getEmail),
+    MEMBERSHIP_LEVEL("membershipLevel", "membership_level", Kind.MEMBERSHIP_LEVEL, Customer::getMembershipLevel),
+    POINTS("points", "points", Kind.INTEGER, Customer::getPoints),
+    TOTAL_SPENT("totalSpent", "total_spent", Kind.DECIMAL, Customer::getTotalSpent),
+    STATUS("status", "status", Kind.STATUS, Customer::getStatus),
+    LAST_VISIT_DATE("lastVisitDate", "last_visit_date", Kind.DATETIME, Customer::getLastVisitDate),
+    CREATED_AT("createdAt", "created_at", Kind.DATETIME, Customer::getCreatedAt),
+    UPDATED_AT("updatedAt", "updated_at", Kind.DATETIME, Customer::getUpdatedAt);
+
+    enum Kind {
+        STRING, INTEGER, DECIMAL, DATETIME, MEMBERSHIP_LEVEL, STATUS
+    }
+
+    private final String property;
+    private final String column;
+    private final Kind kind;
+    private final Function<Customer, Object> extractor;
+
+    CustomerSortField(String property, String column, Kind kind, Function<Customer, Object> extractor) {
+        this.property = property;
+        this.column = column;
+        this.kind = kind;
+        this.extractor = extractor;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * 根据请求参数解析排序字段，未知字段回退到 updatedAt（与 Order_By_Clause 一致）
+     */
+    public static CustomerSortField fromProperty(String property) {
+        for (CustomerSortField field : values()) {
+            if (field.property.equals(property)) {
+                return field;
+            }
+        }
+        return UPDATED_AT;
+    }
+
+    /**
+     * 取出客户在该排序列上的值，用于生成游标
+     */
+    public Object valueOf(Customer customer) {
+        return extractor.apply(customer);
+    }
+
+    /**
+     * 将排序列的值序列化为游标中的字符串
+     */
+    String format(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Enum<?> e) {
+            return e.name();
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        return value.toString();
+    }
+
+    /**
+     * 将游标中的字符串还原为可直接绑定到 SQL 的值；枚举还原为定义位置
+     */
+    Object parse(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        switch (kind) {
+            case INTEGER:
+                return Integer.valueOf(raw);
+            case DECIMAL:
+                return new BigDecimal(raw);
+            case DATETIME:
+                return LocalDateTime.parse(raw);
+            case MEMBERSHIP_LEVEL:
+                return Customer.MembershipLevel.valueOf(raw).ordinal() + 1;
+            case STATUS:
+                return Customer.CustomerStatus.valueOf(raw).ordinal() + 1;
+            default:
+                return raw;
+        }
+    }
+}
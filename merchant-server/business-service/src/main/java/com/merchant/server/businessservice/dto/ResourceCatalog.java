@@ -0,0 +1,21 @@
+package com.merchant.server.businessservice.dto;
+
+import com.merchant.server.businessservice.entity.Resource;
+
+import java.util.List;
+
+/**
+ * 租户的资源目录：未删除的资源及其每周可用时段，etag 由内容计算，内容不变时不变
+ * 缓存中的实例在多个请求间共享，调用方不应修改
+ */
+public record ResourceCatalog(Long tenantId, List<Resource> resources, String etag) {
+
+    public Resource find(Long resourceId) {
+        for (Resource resource : resources) {
+            if (resource.getId().equals(resourceId)) {
+                return resource;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,23 @@
+package com.merchant.server.businessservice.dto;
+
+import com.merchant.server.businessservice.entity.Resource;
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 单个资源一周内按时间段统计的已占用分钟数
+ */
+@Data
+public class ResourceOccupancy {
+
+    private Long resourceId;
+
+    private String resourceName;
+
+    private Resource.ResourceType resourceType;
+
+    // 日期（yyyy-MM-dd）-> 每个时间段内被预约占用的分钟数，第 i 个元素对应 [i*bucketMinutes, (i+1)*bucketMinutes)
+    private Map<String, int[]> occupancy = new LinkedHashMap<>();
+}
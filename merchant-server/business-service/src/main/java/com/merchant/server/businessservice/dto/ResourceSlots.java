@@ -0,0 +1,24 @@
+package com.merchant.server.businessservice.dto;
+
+import com.merchant.server.businessservice.entity.Resource;
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单个资源的可预约开始时间
+ */
+@Data
+public class ResourceSlots {
+
+    private Long resourceId;
+
+    private String resourceName;
+
+    private Resource.ResourceType resourceType;
+
+    // 日期（yyyy-MM-dd）-> 可预约的开始时间（HH:mm）
+    private Map<String, List<String>> slots = new LinkedHashMap<>();
+}
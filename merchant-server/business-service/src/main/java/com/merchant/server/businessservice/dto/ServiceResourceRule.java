@@ -0,0 +1,24 @@
+package com.merchant.server.businessservice.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 服务对资源的要求：需要的资源类型，以及按 staff_services 配置了技能的员工资源
+ */
+@Data
+public class ServiceResourceRule {
+
+    private Long serviceId;
+
+    // STAFF / ROOM / BOTH，为空时没有资源可以提供该服务
+    private String resourceType;
+
+    // 是否在 staff_services 中配置了可提供该服务的员工；未配置时所有员工资源都可提供
+    private boolean skillRestricted;
+
+    // 配置了该服务技能的员工对应的资源ID
+    private List<Long> skilledResourceIds = new ArrayList<>();
+}
@@ -0,0 +1,52 @@
+package com.merchant.server.businessservice.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * 预约提醒发送记录，(appointmentId, reminderType) 唯一
+ */
+@Data
+public class AppointmentReminder {
+    
+    private Long id;
+    
+    private Long tenantId;
+    
+    private Long appointmentId;
+    
+    private ReminderType reminderType;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime sentAt;
+    
+    /**
+     * 提醒类型，按提前时间从长到短排列
+     * 每种提醒覆盖 (下一种的提前时间, 本身的提前时间] 内开始的预约，同一预约不会同时收到两种提醒
+     */
+    public enum ReminderType {
+        DAY_BEFORE(Duration.ofHours(24)),
+        HOUR_BEFORE(Duration.ofHours(1));
+        
+        private final Duration leadTime;
+        
+        ReminderType(Duration leadTime) {
+            this.leadTime = leadTime;
+        }
+        
+        public Duration getLeadTime() {
+            return leadTime;
+        }
+        
+        /**
+         * 提醒窗口的近端：下一种提醒的提前时间，最后一种为 0
+         */
+        public Duration getWindowStart() {
+            ReminderType[] types = values();
+            return ordinal() + 1 < types.length ? types[ordinal() + 1].leadTime : Duration.ZERO;
+        }
+    }
+}
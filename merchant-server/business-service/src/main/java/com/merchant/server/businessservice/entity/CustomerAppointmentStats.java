@@ -0,0 +1,26 @@
+package com.merchant.server.businessservice.entity;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 客户在租户下的预约统计（customer_appointment_stats 汇总表的一行）
+ */
+@Data
+public class CustomerAppointmentStats {
+    
+    private Long tenantId;
+    
+    private Long customerId;
+    
+    private Long totalAppointments;
+    
+    private Long completedAppointments;
+    
+    // 已完成预约的金额合计
+    private BigDecimal totalSpent;
+    
+    // 有评分预约的平均评分，没有评分时为 0
+    private Double avgRating;
+}
@@ -0,0 +1,18 @@
+package com.merchant.server.businessservice.entity;
+
+import lombok.Data;
+
+/**
+ * 客户预约统计（客户详情使用）
+ */
+@Data
+public class CustomerAppointmentSummary {
+    
+    private Long customerId;
+    
+    private Long totalAppointments;
+    
+    private Long completedAppointments;
+    
+    private Double averageRating;
+}
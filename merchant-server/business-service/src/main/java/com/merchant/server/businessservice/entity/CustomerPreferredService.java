@@ -0,0 +1,19 @@
+package com.merchant.server.businessservice.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class CustomerPreferredService {
+    
+    private Long id;
+    
+    private Long customerId;
+    
+    private Long serviceId;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createdAt;
+}
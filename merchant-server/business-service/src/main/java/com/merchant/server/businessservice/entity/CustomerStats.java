@@ -0,0 +1,22 @@
+package com.merchant.server.businessservice.entity;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 租户客户统计聚合
+ */
+@Data
+public class CustomerStats {
+    
+    private Long tenantId;
+    
+    private Long totalCustomers;
+    
+    private Long activeCustomers;
+    
+    private Long vipCustomers;
+    
+    private BigDecimal totalSpent;
+}
@@ -0,0 +1,60 @@
+package com.merchant.server.businessservice.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 预约通知发件箱记录：与预约变更在同一事务内写入，由后台转发到通知服务
+ */
+@Data
+public class NotificationOutbox {
+    
+    private Long id;
+    
+    private Long tenantId;
+    
+    private Long appointmentId;
+    
+    private EventType eventType;
+    
+    private OutboxStatus status = OutboxStatus.PENDING;
+    
+    // 已尝试发送的次数
+    private Integer attempts = 0;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime nextAttemptAt;
+    
+    private String lastError;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createdAt;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime sentAt;
+    
+    /**
+     * 通知类型及其对应的预约状态（通知内容中的状态取事件发生时的状态）
+     */
+    public enum EventType {
+        CONFIRMATION(Appointment.AppointmentStatus.CONFIRMED),
+        CANCELLATION(Appointment.AppointmentStatus.CANCELLED),
+        COMPLETION(Appointment.AppointmentStatus.COMPLETED);
+        
+        private final Appointment.AppointmentStatus appointmentStatus;
+        
+        EventType(Appointment.AppointmentStatus appointmentStatus) {
+            this.appointmentStatus = appointmentStatus;
+        }
+        
+        public Appointment.AppointmentStatus getAppointmentStatus() {
+            return appointmentStatus;
+        }
+    }
+    
+    public enum OutboxStatus {
+        PENDING, SENT, FAILED
+    }
+}
@@ -43,6 +43,8 @@ public class Resource {
     @JsonFormat(pattern = "yyyy-MM-dd")
     private java.time.LocalDate startDate; // 入职日期（员工专用）
     
+    private Long staffId; // 对应的员工ID（由员工迁移的资源，只读）
+    
     private String avatar; // 员工头像URL（员工专用）
     
     private String icon; // 房间图标URL或图标名称（房间专用）
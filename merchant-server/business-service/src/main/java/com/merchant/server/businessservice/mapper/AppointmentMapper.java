@@ -1,10 +1,14 @@
 package com.merchant.server.businessservice.mapper;
 
+import com.merchant.server.businessservice.dto.AppointmentPageQuery;
 import com.merchant.server.businessservice.entity.Appointment;
 import com.merchant.server.businessservice.entity.AppointmentService;
+import com.merchant.server.businessservice.entity.CustomerAppointmentStats;
+import com.merchant.server.businessservice.entity.CustomerAppointmentSummary;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @Mapper
@@ -15,16 +19,36 @@ public interface AppointmentMapper {
      */
     Appointment findById(Long id);
     
+    /**
+     * 根据ID查询预约并加行锁，需在事务内调用
+     */
+    Appointment findByIdForUpdate(Long id);
+    
+    /**
+     * 根据ID批量查询预约
+     */
+    List<Appointment> findByIds(@Param("ids") List<Long> ids);
+    
     /**
      * 根据租户ID查询所有预约
      */
     List<Appointment> findByTenantId(@Param("tenantId") Long tenantId);
     
+    /**
+     * 按日期窗口 keyset 分页查询预约，走 idx_tenant_date_time_id
+     */
+    List<Appointment> selectPage(AppointmentPageQuery query);
+    
     /**
      * 根据预约ID查询预约服务
      */
     List<AppointmentService> findAppointmentServicesByAppointmentId(@Param("appointmentId") Long appointmentId);
     
+    /**
+     * 批量查询一组预约的服务
+     */
+    List<AppointmentService> findAppointmentServicesByAppointmentIds(@Param("appointmentIds") List<Long> appointmentIds);
+    
     /**
      * 根据客户ID和租户ID查询预约
      */
@@ -77,6 +101,34 @@ public interface AppointmentMapper {
      */
     Double getCustomerAverageRating(Long customerId);
     
+    /**
+     * 一次聚合查询客户的预约总数、已完成数和平均评分
+     */
+    CustomerAppointmentSummary selectCustomerAppointmentSummary(@Param("customerId") Long customerId);
+    
+    /**
+     * 按主键读取客户预约统计汇总行，未生成时返回 null
+     */
+    CustomerAppointmentStats selectCustomerAppointmentStats(@Param("customerId") Long customerId,
+                                                            @Param("tenantId") Long tenantId);
+    
+    /**
+     * 按增量累加客户预约统计汇总行，行不存在时以增量作为初始值插入
+     */
+    int addCustomerAppointmentStats(@Param("tenantId") Long tenantId,
+                                    @Param("customerId") Long customerId,
+                                    @Param("total") long total,
+                                    @Param("completed") long completed,
+                                    @Param("spent") BigDecimal spent,
+                                    @Param("ratingSum") long ratingSum,
+                                    @Param("rated") long rated);
+    
+    /**
+     * 直接从预约表聚合客户预约统计，不写汇总表
+     */
+    CustomerAppointmentStats aggregateCustomerAppointmentStats(@Param("customerId") Long customerId,
+                                                               @Param("tenantId") Long tenantId);
+    
     /**
      * 插入预约
      */
@@ -93,9 +145,35 @@ public interface AppointmentMapper {
     int deleteById(Long id);
     
     /**
-     * 查询所有CONFIRMED状态的预约
+     * 按ID顺序查询一批预约时间早于截止时间仍为CONFIRMED的预约（只含租户和占用时段相关的列）
      */
-    List<Appointment> findConfirmedAppointments();
+    List<Appointment> selectOverdueConfirmed(@Param("cutoffDate") java.time.LocalDate cutoffDate,
+                                             @Param("cutoffTime") java.time.LocalTime cutoffTime,
+                                             @Param("afterId") long afterId,
+                                             @Param("limit") int limit);
+    
+    /**
+     * 查询租户在日期范围内占用资源的预约（只含资源和时段相关的列）
+     */
+    List<Appointment> selectOccupancyByTenant(@Param("tenantId") Long tenantId,
+                                              @Param("startDate") java.time.LocalDate startDate,
+                                              @Param("endDate") java.time.LocalDate endDate);
+    
+    /**
+     * 按ID顺序查询一批开始时间在 (from, to] 内、尚未发送指定提醒的CONFIRMED预约
+     */
+    List<Appointment> selectReminderCandidates(@Param("reminderType") String reminderType,
+                                               @Param("fromDate") java.time.LocalDate fromDate,
+                                               @Param("fromTime") java.time.LocalTime fromTime,
+                                               @Param("toDate") java.time.LocalDate toDate,
+                                               @Param("toTime") java.time.LocalTime toTime,
+                                               @Param("afterId") long afterId,
+                                               @Param("limit") int limit);
+    
+    /**
+     * 将仍为CONFIRMED的指定预约标记为NO_SHOW，并在备注末尾追加 note
+     */
+    int markNoShow(@Param("ids") List<Long> ids, @Param("note") String note);
     
     /**
      * 根据日期范围查询预约
@@ -103,6 +181,42 @@ public interface AppointmentMapper {
     List<Appointment> findAppointmentsByDateRange(@Param("startDate") java.time.LocalDate startDate, 
                                                   @Param("endDate") java.time.LocalDate endDate);
     
+    /**
+     * 查询日期范围内占用资源的预约（只含计算占用时段所需的列）
+     */
+    List<Appointment> selectBookedSlots(@Param("startDate") java.time.LocalDate startDate,
+                                        @Param("endDate") java.time.LocalDate endDate);
+    
+    /**
+     * 查询一组资源在日期范围内的占用预约
+     */
+    List<Appointment> selectBookedSlotsByResourceIds(@Param("resourceIds") List<Long> resourceIds,
+                                                     @Param("startDate") java.time.LocalDate startDate,
+                                                     @Param("endDate") java.time.LocalDate endDate);
+    
+    /**
+     * 写入 (资源, 日期) 守卫行并持有其行锁直到事务结束，用于串行化同一资源同一天的预约写入
+     */
+    int lockResourceDay(@Param("resourceId") Long resourceId, @Param("date") java.time.LocalDate date);
+    
+    /**
+     * 加锁读查询与 [startTime, endTime) 重叠的占用预约，excludeId 为修改中的预约自身
+     */
+    List<Appointment> selectOverlappingBookings(@Param("resourceId") Long resourceId,
+                                                @Param("date") java.time.LocalDate date,
+                                                @Param("startTime") java.time.LocalTime startTime,
+                                                @Param("endTime") java.time.LocalTime endTime,
+                                                @Param("excludeId") Long excludeId);
+    
+    /**
+     * 加锁读统计与 [startTime, endTime) 重叠的占用预约数，excludeId 为修改中的预约自身
+     */
+    int countOverlappingBookings(@Param("resourceId") Long resourceId,
+                                 @Param("date") java.time.LocalDate date,
+                                 @Param("startTime") java.time.LocalTime startTime,
+                                 @Param("endTime") java.time.LocalTime endTime,
+                                 @Param("excludeId") Long excludeId);
+    
     /**
      * 根据时间范围查询预约
      */
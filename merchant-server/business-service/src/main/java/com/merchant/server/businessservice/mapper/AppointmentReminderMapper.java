@@ -0,0 +1,23 @@
+package com.merchant.server.businessservice.mapper;
+
+import com.merchant.server.businessservice.entity.Appointment;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+@Mapper
+public interface AppointmentReminderMapper {
+    
+    /**
+     * 为一批预约登记提醒记录，已登记的跳过；返回新登记的条数
+     */
+    int insertIgnoreBatch(@Param("reminderType") String reminderType,
+                          @Param("appointments") List<Appointment> appointments);
+    
+    /**
+     * 删除一批预约的提醒记录（发送失败时撤销登记，下次调度重试）
+     */
+    int deleteByAppointmentIds(@Param("reminderType") String reminderType,
+                               @Param("appointmentIds") List<Long> appointmentIds);
+}
@@ -1,9 +1,14 @@
 package com.merchant.server.businessservice.mapper;
 
+import com.merchant.server.businessservice.dto.CustomerPageQuery;
 import com.merchant.server.businessservice.entity.Customer;
+import com.merchant.server.businessservice.entity.CustomerPreferredService;
+import com.merchant.server.businessservice.entity.CustomerStats;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Mapper
@@ -14,6 +19,11 @@ public interface CustomerMapper {
      */
     Customer selectById(Long id);
     
+    /**
+     * 根据ID批量查询客户（不含偏好服务）
+     */
+    List<Customer> selectByIds(@Param("ids") List<Long> ids);
+    
     /**
      * 根据租户ID分页查询客户
      */
@@ -162,6 +172,11 @@ public interface CustomerMapper {
      */
     long countVipCustomers(Long tenantId);
     
+    /**
+     * 租户客户统计聚合（总数、活跃数、VIP数、消费总额）
+     */
+    CustomerStats selectStatsByTenantId(@Param("tenantId") Long tenantId);
+    
     /**
      * 获取客户消费排行
      */
@@ -187,6 +202,23 @@ public interface CustomerMapper {
      */
     boolean existsByTenantIdAndPhone(@Param("tenantId") Long tenantId, @Param("phone") String phone);
     
+    /**
+     * 查询租户下所有客户电话（走 uk_tenant_phone 覆盖索引，导入查重用）
+     */
+    List<String> selectPhonesByTenantId(@Param("tenantId") Long tenantId);
+    
+    /**
+     * 以流式游标按创建时间读取租户客户（导出用，需在事务内遍历）
+     */
+    Cursor<Customer> selectExportCursor(@Param("tenantId") Long tenantId,
+                                        @Param("status") Customer.CustomerStatus status,
+                                        @Param("level") Customer.MembershipLevel level);
+    
+    /**
+     * 多行插入客户，回填自增ID
+     */
+    int insertBatch(@Param("customers") List<Customer> customers);
+    
     /**
      * 检查邮箱是否存在
      */
@@ -199,16 +231,63 @@ public interface CustomerMapper {
                                   @Param("sortBy") String sortBy,
                                   @Param("sortDir") String sortDir);
     
+    /**
+     * 分页查询客户（LIMIT/OFFSET 或 keyset 游标）
+     */
+    List<Customer> selectPage(CustomerPageQuery query);
+    
+    /**
+     * 分页查询客户的表格视图投影（只查询 query.columns 中的列）
+     */
+    List<Customer> selectListPage(CustomerPageQuery query);
+    
+    /**
+     * 分页查询的精确总数
+     */
+    long countPage(CustomerPageQuery query);
+    
+    /**
+     * 分页查询的估算总数（最多数到 countCap）
+     */
+    long countPageBounded(CustomerPageQuery query);
+    
+    /**
+     * 加载租户的搜索索引文档（只包含ID、姓名、电话、邮箱）
+     */
+    List<Customer> selectSearchDocuments(@Param("tenantId") Long tenantId);
+    
+    /**
+     * 查询租户在 since 之后修改过的客户ID，最多 limit 个
+     */
+    List<Long> selectIdsUpdatedSince(@Param("tenantId") Long tenantId,
+                                     @Param("since") LocalDateTime since,
+                                     @Param("limit") int limit);
+    
     /**
      * 查询客户偏好服务ID列表
      */
     List<Long> selectPreferredServiceIds(Long customerId);
     
+    /**
+     * 批量查询一组客户的偏好服务
+     */
+    List<CustomerPreferredService> selectPreferredServicesByCustomerIds(@Param("customerIds") List<Long> customerIds);
+    
     /**
      * 插入客户偏好服务
      */
     int insertPreferredServices(@Param("customerId") Long customerId, @Param("serviceIds") List<Long> serviceIds);
     
+    /**
+     * 多行插入多个客户的偏好服务
+     */
+    int insertPreferredServiceLinks(@Param("links") List<CustomerPreferredService> links);
+    
+    /**
+     * 按 (customer_id, service_id) 删除多个客户的指定偏好服务
+     */
+    int deletePreferredServiceLinks(@Param("links") List<CustomerPreferredService> links);
+    
     /**
      * 删除客户偏好服务
      */
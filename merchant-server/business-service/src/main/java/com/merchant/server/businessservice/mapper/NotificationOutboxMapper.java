@@ -0,0 +1,39 @@
+package com.merchant.server.businessservice.mapper;
+
+import com.merchant.server.businessservice.entity.NotificationOutbox;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+@Mapper
+public interface NotificationOutboxMapper {
+    
+    /**
+     * 写入一条待发送记录
+     */
+    int insert(NotificationOutbox outbox);
+    
+    /**
+     * 按到期顺序查询一批已到重试时间的待发送记录
+     */
+    List<NotificationOutbox> selectDue(@Param("limit") int limit);
+    
+    /**
+     * 批量标记为已发送
+     */
+    int markSent(@Param("ids") List<Long> ids);
+    
+    /**
+     * 记录一次发送失败：delaySeconds 秒后重试，status 为 FAILED 时不再重试
+     */
+    int markFailed(@Param("id") Long id,
+                   @Param("status") String status,
+                   @Param("delaySeconds") long delaySeconds,
+                   @Param("lastError") String lastError);
+    
+    /**
+     * 删除 retentionDays 天前已发送的记录，每次最多 limit 条
+     */
+    int deleteSentBefore(@Param("retentionDays") int retentionDays, @Param("limit") int limit);
+}
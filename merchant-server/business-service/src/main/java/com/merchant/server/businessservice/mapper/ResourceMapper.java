@@ -1,5 +1,6 @@
 package com.merchant.server.businessservice.mapper;
 
+import com.merchant.server.businessservice.dto.ServiceResourceRule;
 import com.merchant.server.businessservice.entity.Resource;
 import com.merchant.server.businessservice.entity.ResourceAvailability;
 import org.apache.ibatis.annotations.Mapper;
@@ -19,8 +20,12 @@ public interface ResourceMapper {
     
     Resource findById(@Param("id") Long id);
     
+    List<Resource> findByIds(@Param("ids") List<Long> ids);
+    
     Resource findActiveById(@Param("id") Long id);
     
+    List<ServiceResourceRule> selectServiceResourceRules(@Param("tenantId") Long tenantId);
+    
     void insert(Resource resource);
     
     void update(Resource resource);
@@ -39,8 +44,15 @@ public interface ResourceMapper {
     // 资源可用性操作
     List<ResourceAvailability> findAvailabilitiesByResourceId(@Param("resourceId") Long resourceId);
     
+    List<ResourceAvailability> findAvailabilitiesByResourceIds(@Param("resourceIds") List<Long> resourceIds);
+    
     void insertAvailability(ResourceAvailability availability);
     
+    void upsertAvailabilities(@Param("availabilities") List<ResourceAvailability> availabilities);
+    
+    int deleteAvailabilitiesNotIn(@Param("resourceIds") List<Long> resourceIds,
+                                  @Param("keep") List<ResourceAvailability> keep);
+    
     void updateAvailability(ResourceAvailability availability);
     
     void deleteAvailability(@Param("id") Long id);
@@ -0,0 +1,23 @@
+package com.merchant.server.businessservice.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+@Mapper
+public interface SchedulerLeaseMapper {
+    
+    /**
+     * 租约不存在、已过期或本来就属于 owner 时，将其交给 owner 并续期 ttlSeconds 秒
+     */
+    int tryAcquire(@Param("name") String name, @Param("owner") String owner, @Param("ttlSeconds") long ttlSeconds);
+    
+    /**
+     * 查询租约当前持有者
+     */
+    String selectOwner(@Param("name") String name);
+    
+    /**
+     * 释放 owner 持有的租约
+     */
+    int release(@Param("name") String name, @Param("owner") String owner);
+}
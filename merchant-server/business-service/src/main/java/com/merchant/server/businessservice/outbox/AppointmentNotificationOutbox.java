@@ -0,0 +1,190 @@
+package com.merchant.server.businessservice.outbox;
+
+import com.merchant.server.businessservice.client.NotificationClient;
+import com.merchant.server.businessservice.dto.AppointmentNotificationDTO;
+import com.merchant.server.businessservice.entity.Appointment;
+import com.merchant.server.businessservice.entity.NotificationOutbox;
+import com.merchant.server.businessservice.mapper.AppointmentMapper;
+import com.merchant.server.businessservice.mapper.NotificationOutboxMapper;
+import com.merchant.server.businessservice.schedule.SchedulerLease;
+import com.merchant.server.businessservice.service.AppointmentNotificationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 预约通知发件箱
+ *
+ * 预约写入时只在同一事务内插入一条发件箱记录，请求不再等待通知服务；事务回滚时记录一并回滚。
+ * 后台按批读取到期记录，批量查询预约、客户和资源后逐条转发到通知服务（通知服务没有这几类通知的批量接口）。
+ * 发送失败按指数退避重试，超过最大次数标记为 FAILED；通知服务不可用时本批剩余记录留待下次，避免连续超时。
+ * 多实例部署时只有持有租约的实例转发，同一记录至少发送一次。
+ */
+@Component
+@Slf4j
+public class AppointmentNotificationOutbox {
+
+    private static final String RELAY_LEASE = "appointment-notification-outbox";
+
+    // 清理已发送记录的间隔
+    private static final long PURGE_INTERVAL_MILLIS = 3600_000L;
+
+    private static final int PURGE_LIMIT = 1000;
+
+    private final NotificationOutboxMapper outboxMapper;
+    private final AppointmentMapper appointmentMapper;
+    private final AppointmentNotificationService notificationService;
+    private final NotificationClient notificationClient;
+    private final SchedulerLease schedulerLease;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryDelayMillis;
+    private final long maxRetryDelayMillis;
+    private final int retentionDays;
+    private final Duration leaseTtl;
+
+    private volatile long lastPurgeAt;
+
+    public AppointmentNotificationOutbox(NotificationOutboxMapper outboxMapper,
+                                         AppointmentMapper appointmentMapper,
+                                         AppointmentNotificationService notificationService,
+                                         NotificationClient notificationClient,
+                                         SchedulerLease schedulerLease,
+                                         @Value("${appointment.outbox.batch-size:100}") int batchSize,
+                                         @Value("${appointment.outbox.max-attempts:8}") int maxAttempts,
+                                         @Value("${appointment.outbox.retry-delay:5000}") long retryDelayMillis,
+                                         @Value("${appointment.outbox.max-retry-delay:600000}") long maxRetryDelayMillis,
+                                         @Value("${appointment.outbox.retention-days:7}") int retentionDays,
+                                         @Value("${appointment.outbox.lease-ttl:60000}") long leaseTtlMillis) {
+        this.outboxMapper = outboxMapper;
+        this.appointmentMapper = appointmentMapper;
+        this.notificationService = notificationService;
+        this.notificationClient = notificationClient;
+        this.schedulerLease = schedulerLease;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryDelayMillis = retryDelayMillis;
+        this.maxRetryDelayMillis = maxRetryDelayMillis;
+        this.retentionDays = retentionDays;
+        this.leaseTtl = Duration.ofMillis(leaseTtlMillis);
+    }
+
+    /**
+     * 登记一条预约通知，需在写入预约的事务内调用
+     */
+    public void enqueue(Appointment appointment, NotificationOutbox.EventType eventType) {
+        NotificationOutbox outbox = new NotificationOutbox();
+        outbox.setTenantId(appointment.getTenantId());
+        outbox.setAppointmentId(appointment.getId());
+        outbox.setEventType(eventType);
+        outboxMapper.insert(outbox);
+    }
+
+    /**
+     * 转发到期的发件箱记录
+     */
+    @Scheduled(fixedDelayString = "${appointment.outbox.interval:1000}")
+    public void relay() {
+        if (!schedulerLease.tryAcquire(RELAY_LEASE, leaseTtl)) {
+            return;
+        }
+        try {
+            while (true) {
+                List<NotificationOutbox> due = outboxMapper.selectDue(batchSize);
+                if (due.isEmpty() || !deliver(due) || due.size() < batchSize
+                        || !schedulerLease.tryAcquire(RELAY_LEASE, leaseTtl)) {
+                    break;
+                }
+            }
+            purgeSent();
+        } catch (Exception e) {
+            log.error("Failed to relay appointment notifications", e);
+        }
+    }
+
+    /**
+     * 发送一批记录；通知服务不可用时返回 false，本批剩余记录不计入重试次数
+     */
+    private boolean deliver(List<NotificationOutbox> due) {
+        List<Long> appointmentIds = due.stream()
+            .map(NotificationOutbox::getAppointmentId)
+            .distinct()
+            .collect(Collectors.toList());
+        List<Appointment> appointments = appointmentMapper.findByIds(appointmentIds);
+        Map<Long, AppointmentNotificationDTO> notifications = notificationService.buildNotifications(appointments);
+
+        List<Long> delivered = new ArrayList<>(due.size());
+        boolean available = true;
+        for (NotificationOutbox outbox : due) {
+            AppointmentNotificationDTO notification = notifications.get(outbox.getAppointmentId());
+            if (notification == null) {
+                // 预约已删除或客户不存在，重试也无法发送
+                outboxMapper.markFailed(outbox.getId(), NotificationOutbox.OutboxStatus.FAILED.name(), 0,
+                    "appointment or customer not found");
+                continue;
+            }
+            notification.setStatus(outbox.getEventType().getAppointmentStatus().name());
+            if (send(outbox.getEventType(), notification)) {
+                delivered.add(outbox.getId());
+            } else {
+                scheduleRetry(outbox);
+                available = false;
+                break;
+            }
+        }
+        if (!delivered.isEmpty()) {
+            outboxMapper.markSent(delivered);
+        }
+        log.debug("Relayed {} of {} appointment notifications", delivered.size(), due.size());
+        return available;
+    }
+
+    private boolean send(NotificationOutbox.EventType eventType, AppointmentNotificationDTO notification) {
+        switch (eventType) {
+            case CONFIRMATION:
+                return notificationClient.sendAppointmentConfirmation(notification);
+            case CANCELLATION:
+                return notificationClient.sendAppointmentCancellation(notification);
+            case COMPLETION:
+                return notificationClient.sendAppointmentCompletion(notification);
+            default:
+                throw new IllegalStateException("Unknown notification event: " + eventType);
+        }
+    }
+
+    /**
+     * 第 n 次失败后等待 retryDelay * 2^(n-1)，不超过 maxRetryDelay
+     */
+    private void scheduleRetry(NotificationOutbox outbox) {
+        int attempts = outbox.getAttempts() + 1;
+        if (attempts >= maxAttempts) {
+            outboxMapper.markFailed(outbox.getId(), NotificationOutbox.OutboxStatus.FAILED.name(), 0,
+                "notification service unavailable after " + attempts + " attempts");
+            log.warn("Giving up appointment notification {} ({} for appointment {}) after {} attempts",
+                outbox.getId(), outbox.getEventType(), outbox.getAppointmentId(), attempts);
+            return;
+        }
+        long delayMillis = Math.min(retryDelayMillis << Math.min(attempts - 1, 30), maxRetryDelayMillis);
+        outboxMapper.markFailed(outbox.getId(), NotificationOutbox.OutboxStatus.PENDING.name(),
+            Math.max(delayMillis / 1000, 1), "notification service unavailable");
+    }
+
+    private void purgeSent() {
+        long now = System.currentTimeMillis();
+        if (now - lastPurgeAt < PURGE_INTERVAL_MILLIS) {
+            return;
+        }
+        lastPurgeAt = now;
+        int purged = outboxMapper.deleteSentBefore(retentionDays, PURGE_LIMIT);
+        if (purged > 0) {
+            log.info("Purged {} sent appointment notifications older than {} days", purged, retentionDays);
+        }
+    }
+}
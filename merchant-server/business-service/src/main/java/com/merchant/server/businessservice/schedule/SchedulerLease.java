@@ -0,0 +1,56 @@
+package com.merchant.server.businessservice.schedule;
+
+import com.merchant.server.businessservice.mapper.SchedulerLeaseMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * 定时任务租约
+ *
+ * 多实例部署时同名任务只由持有租约的实例执行。租约记录在 scheduler_lease 表中，
+ * 过期后其他实例才能接手；长任务应在处理过程中再次调用 {@link #tryAcquire} 续期。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SchedulerLease {
+
+    // 本实例标识：pid@host 加随机后缀，同一主机上的多个实例互不相同
+    private static final String OWNER = ManagementFactory.getRuntimeMXBean().getName()
+        + ":" + UUID.randomUUID().toString().substring(0, 8);
+
+    private final SchedulerLeaseMapper leaseMapper;
+
+    /**
+     * 抢占或续期租约，成功时返回 true
+     */
+    public boolean tryAcquire(String name, Duration ttl) {
+        try {
+            leaseMapper.tryAcquire(name, OWNER, Math.max(ttl.getSeconds(), 1));
+            return OWNER.equals(leaseMapper.selectOwner(name));
+        } catch (RuntimeException e) {
+            log.error("Failed to acquire scheduler lease: {}", name, e);
+            return false;
+        }
+    }
+
+    /**
+     * 提前释放租约，其他实例的下一次调度即可接手
+     */
+    public void release(String name) {
+        try {
+            leaseMapper.release(name, OWNER);
+        } catch (RuntimeException e) {
+            log.warn("Failed to release scheduler lease: {}", name, e);
+        }
+    }
+
+    public String getOwner() {
+        return OWNER;
+    }
+}
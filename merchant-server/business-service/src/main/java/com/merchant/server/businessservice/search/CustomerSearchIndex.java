@@ -0,0 +1,548 @@
+package com.merchant.server.businessservice.search;
+
+import com.merchant.server.businessservice.entity.Customer;
+import com.merchant.server.businessservice.mapper.CustomerMapper;
+import com.merchant.server.businessservice.util.TransactionUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 客户关键字搜索索引（按租户在内存中维护）
+ *
+ * 对姓名、电话、邮箱建立三元组(trigram)倒排索引，支持任意子串查询；
+ * 1-2 个字符的短关键字按词首前缀匹配。索引在租户第一次搜索时懒加载，
+ * 之后由客户的增删改在事务提交后增量维护。
+ * 构建期间提交的变更先缓冲，构建完成后在新索引上重放再替换旧索引；
+ * 定时重建有搜索的租户以同步其他实例上的修改，一个周期内没有搜索的租户直接释放。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CustomerSearchIndex {
+
+    private static final String PREFIX_MARKER = "^";
+
+    private static final int RANKING_SCAN_BUDGET = 5000;
+
+    private static final int INTERSECT_RATIO = 16;
+
+    private final CustomerMapper customerMapper;
+
+    private final Map<Long, TenantIndex> indexes = new ConcurrentHashMap<>();
+
+    // 同一租户同时只构建一次
+    private final Map<Long, Object> buildLocks = new ConcurrentHashMap<>();
+
+    private final Object writeLock = new Object();
+
+    // 构建中的租户及其构建期间提交的变更，构建完成后在新索引上重放（受 writeLock 保护）
+    private final Map<Long, List<Change>> replay = new HashMap<>();
+
+    /**
+     * 搜索客户，按相关度返回客户ID
+     * 相关度：字段完全匹配 > 词首前缀匹配 > 子串匹配，同分时最近录入或修改的客户在前
+     */
+    public List<Long> search(Long tenantId, String keyword, int limit) {
+        String query = normalize(keyword);
+        if (query.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        return indexFor(tenantId).search(query, limit, true);
+    }
+
+    /**
+     * 返回最多 max 个匹配的客户ID（不排序）及索引构建时间，供列表查询缩小 LIKE 过滤的候选范围
+     */
+    public Match match(Long tenantId, String keyword, int max) {
+        TenantIndex index = indexFor(tenantId);
+        String query = normalize(keyword);
+        if (query.isEmpty() || max <= 0) {
+            return new Match(new ArrayList<>(), index.builtAt);
+        }
+        return new Match(index.search(query, max, false), index.builtAt);
+    }
+
+    /**
+     * 重建租户索引
+     */
+    public Map<String, Object> reindex(Long tenantId) {
+        long start = System.nanoTime();
+        TenantIndex index = rebuild(tenantId);
+        Map<String, Object> stats = index.stats();
+        stats.put("buildMillis", (System.nanoTime() - start) / 1_000_000);
+        return stats;
+    }
+
+    /**
+     * 各租户索引的内存占用统计
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        long totalBytes = 0;
+        Map<Long, Object> tenants = new LinkedHashMap<>();
+        for (Map.Entry<Long, TenantIndex> entry : indexes.entrySet()) {
+            Map<String, Object> tenantStats = entry.getValue().stats();
+            totalBytes += (Long) tenantStats.get("estimatedBytes");
+            tenants.put(entry.getKey(), tenantStats);
+        }
+        result.put("tenantCount", indexes.size());
+        result.put("estimatedBytes", totalBytes);
+        result.put("tenants", tenants);
+        return result;
+    }
+
+    /**
+     * 客户新增或修改后更新索引（事务提交后生效）
+     */
+    public void onCustomerSaved(Customer customer) {
+        Long tenantId = customer.getTenantId();
+        Change change = new Change(customer.getId(), Doc.of(customer));
+        TransactionUtil.afterCommit(() -> apply(tenantId, change));
+    }
+
+    /**
+     * 客户删除后更新索引（事务提交后生效）
+     */
+    public void onCustomerDeleted(Long tenantId, Long customerId) {
+        Change change = new Change(customerId, null);
+        TransactionUtil.afterCommit(() -> apply(tenantId, change));
+    }
+
+    /**
+     * 定时重建：上个周期有搜索的租户重新加载，同步其他实例上的修改；没有搜索的租户释放索引
+     */
+    @Scheduled(fixedDelayString = "${customer.search.rebuild-interval:600000}",
+               initialDelayString = "${customer.search.rebuild-interval:600000}")
+    public void refresh() {
+        for (Map.Entry<Long, TenantIndex> entry : indexes.entrySet()) {
+            Long tenantId = entry.getKey();
+            if (!entry.getValue().used) {
+                indexes.remove(tenantId, entry.getValue());
+                continue;
+            }
+            try {
+                rebuild(tenantId);
+            } catch (Exception e) {
+                log.error("Failed to rebuild customer search index for tenant: {}", tenantId, e);
+            }
+        }
+    }
+
+    private TenantIndex indexFor(Long tenantId) {
+        TenantIndex index = indexes.get(tenantId);
+        if (index == null) {
+            synchronized (buildLocks.computeIfAbsent(tenantId, k -> new Object())) {
+                index = indexes.get(tenantId);
+                if (index == null) {
+                    index = build(tenantId);
+                }
+            }
+        }
+        index.used = true;
+        return index;
+    }
+
+    private TenantIndex rebuild(Long tenantId) {
+        synchronized (buildLocks.computeIfAbsent(tenantId, k -> new Object())) {
+            return build(tenantId);
+        }
+    }
+
+    private void apply(Long tenantId, Change change) {
+        synchronized (writeLock) {
+            TenantIndex index = indexes.get(tenantId);
+            if (index != null) {
+                change.applyTo(index);
+            }
+            List<Change> pending = replay.get(tenantId);
+            if (pending != null) {
+                pending.add(change);
+            }
+        }
+    }
+
+    /**
+     * 从数据库构建租户索引，重放构建期间提交的变更后替换当前索引；调用方需持有该租户的构建锁
+     */
+    private TenantIndex build(Long tenantId) {
+        long start = System.nanoTime();
+        synchronized (writeLock) {
+            replay.put(tenantId, new ArrayList<>());
+        }
+        TenantIndex index = new TenantIndex(LocalDateTime.now());
+        try {
+            for (Customer customer : customerMapper.selectSearchDocuments(tenantId)) {
+                index.upsert(Doc.of(customer));
+            }
+        } catch (RuntimeException e) {
+            synchronized (writeLock) {
+                replay.remove(tenantId);
+            }
+            throw e;
+        }
+        index.trim();
+        synchronized (writeLock) {
+            for (Change change : replay.remove(tenantId)) {
+                change.applyTo(index);
+            }
+            indexes.put(tenantId, index);
+        }
+        log.info("Built customer search index for tenant {}: {} customers in {} ms",
+            tenantId, index.liveCount(), (System.nanoTime() - start) / 1_000_000);
+        return index;
+    }
+
+    /**
+     * 关键字匹配结果；索引只反映 indexedAt 时的数据库快照和本实例之后提交的变更
+     */
+    public record Match(List<Long> ids, LocalDateTime indexedAt) {
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 已提交的客户变更，doc 为 null 表示删除；可重复应用
+     */
+    private static final class Change {
+        final Long customerId;
+        final Doc doc;
+
+        Change(Long customerId, Doc doc) {
+            this.customerId = customerId;
+            this.doc = doc;
+        }
+
+        void applyTo(TenantIndex index) {
+            if (doc != null) {
+                index.upsert(doc);
+            } else {
+                index.remove(customerId);
+            }
+        }
+    }
+
+    /**
+     * 索引中的一个客户文档（字段已归一化为小写）
+     */
+    private static final class Doc {
+        final long customerId;
+        final String name;
+        final String phone;
+        final String email;
+
+        Doc(long customerId, String name, String phone, String email) {
+            this.customerId = customerId;
+            this.name = name;
+            this.phone = phone;
+            this.email = email;
+        }
+
+        static Doc of(Customer customer) {
+            String name = normalize(customer.getFirstName()) + " " + normalize(customer.getLastName());
+            return new Doc(customer.getId(), name.trim(), normalize(customer.getPhone()), normalize(customer.getEmail()));
+        }
+
+        String[] fields() {
+            return new String[] {name, phone, email};
+        }
+
+        Set<String> grams() {
+            Set<String> grams = new LinkedHashSet<>();
+            for (String field : fields()) {
+                for (int i = 0; i + 3 <= field.length(); i++) {
+                    grams.add(field.substring(i, i + 3));
+                }
+                for (String token : field.split("[^\\p{L}\\p{N}]+")) {
+                    if (!token.isEmpty()) {
+                        grams.add(PREFIX_MARKER + token.substring(0, 1));
+                        if (token.length() > 1) {
+                            grams.add(PREFIX_MARKER + token.substring(0, 2));
+                        }
+                    }
+                }
+            }
+            return grams;
+        }
+
+        /**
+         * 0 表示不匹配；3 完全匹配，2 词首前缀匹配，1 子串匹配
+         */
+        int score(String query) {
+            int best = 0;
+            for (String field : fields()) {
+                if (field.equals(query)) {
+                    return 3;
+                }
+                int at = field.indexOf(query);
+                while (at >= 0) {
+                    boolean tokenStart = at == 0 || !Character.isLetterOrDigit(field.charAt(at - 1));
+                    if (tokenStart) {
+                        best = 2;
+                        break;
+                    }
+                    if (query.length() >= 3) {
+                        best = Math.max(best, 1);
+                    }
+                    at = field.indexOf(query, at + 1);
+                }
+            }
+            return best;
+        }
+
+        long estimatedBytes() {
+            return 48 + 2L * (name.length() + phone.length() + email.length()) + 3 * 40;
+        }
+    }
+
+    /**
+     * 只追加的有序 int 列表，用作倒排表
+     */
+    private static final class IntList {
+        int[] data = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, Math.max(4, size * 2));
+            }
+            data[size++] = value;
+        }
+    }
+
+    /**
+     * 单个租户的倒排索引
+     * 文档编号递增分配，因此倒排表天然有序；修改客户时旧文档置为墓碑，墓碑过多时压缩
+     */
+    private static final class TenantIndex {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final List<Doc> docs = new ArrayList<>();
+        private final Map<Long, Integer> docByCustomer = new HashMap<>();
+        private final Map<String, IntList> postings = new HashMap<>();
+        private int deleted;
+        // 构建后是否有过搜索，定时重建据此决定重建还是释放
+        volatile boolean used;
+        // 开始读取数据库快照的时间
+        final LocalDateTime builtAt;
+
+        TenantIndex(LocalDateTime builtAt) {
+            this.builtAt = builtAt;
+        }
+
+        void upsert(Doc doc) {
+            lock.writeLock().lock();
+            try {
+                removeLocked(doc.customerId);
+                int docId = docs.size();
+                docs.add(doc);
+                docByCustomer.put(doc.customerId, docId);
+                for (String gram : doc.grams()) {
+                    postings.computeIfAbsent(gram, k -> new IntList()).add(docId);
+                }
+                compactIfNeeded();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(Long customerId) {
+            lock.writeLock().lock();
+            try {
+                removeLocked(customerId);
+                compactIfNeeded();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void removeLocked(Long customerId) {
+            Integer previous = docByCustomer.remove(customerId);
+            if (previous != null) {
+                docs.set(previous, null);
+                deleted++;
+            }
+        }
+
+        private void compactIfNeeded() {
+            if (deleted < 1024 || deleted * 4 < docs.size()) {
+                return;
+            }
+            List<Doc> live = new ArrayList<>(docByCustomer.size());
+            for (Doc doc : docs) {
+                if (doc != null) {
+                    live.add(doc);
+                }
+            }
+            docs.clear();
+            docByCustomer.clear();
+            postings.clear();
+            deleted = 0;
+            for (Doc doc : live) {
+                int docId = docs.size();
+                docs.add(doc);
+                docByCustomer.put(doc.customerId, docId);
+                for (String gram : doc.grams()) {
+                    postings.computeIfAbsent(gram, k -> new IntList()).add(docId);
+                }
+            }
+        }
+
+        List<Long> search(String query, int limit, boolean ranked) {
+            lock.readLock().lock();
+            try {
+                List<IntList> lists = new ArrayList<>();
+                if (query.length() < 3) {
+                    IntList list = postings.get(PREFIX_MARKER + query);
+                    if (list == null) {
+                        return new ArrayList<>();
+                    }
+                    lists.add(list);
+                } else {
+                    for (int i = 0; i + 3 <= query.length(); i++) {
+                        IntList list = postings.get(query.substring(i, i + 3));
+                        if (list == null) {
+                            return new ArrayList<>();
+                        }
+                        lists.add(list);
+                    }
+                    lists.sort((a, b) -> Integer.compare(a.size, b.size));
+                }
+
+                // 只与长度相近的倒排表求交集；过长的倒排表合并代价高于直接校验候选
+                int[] candidates = lists.get(0).data;
+                int count = lists.get(0).size;
+                boolean copied = false;
+                for (int i = 1; i < lists.size() && count > 0; i++) {
+                    if (lists.get(i).size > count * INTERSECT_RATIO) {
+                        break;
+                    }
+                    if (!copied) {
+                        candidates = Arrays.copyOf(candidates, count);
+                        copied = true;
+                    }
+                    count = intersect(candidates, count, lists.get(i));
+                }
+
+                // 从最新的文档倒序校验候选；完全/词首匹配凑满 limit 条后即停止，
+                // 只有子串匹配的宽泛关键字最多校验 RANKING_SCAN_BUDGET 个候选
+                List<Long> exact = new ArrayList<>();
+                List<Long> prefix = new ArrayList<>();
+                List<Long> substring = new ArrayList<>();
+                for (int i = count - 1; i >= 0; i--) {
+                    Doc doc = docs.get(candidates[i]);
+                    if (doc == null) {
+                        continue;
+                    }
+                    int score = doc.score(query);
+                    if (score == 3) {
+                        exact.add(doc.customerId);
+                    } else if (score == 2) {
+                        prefix.add(doc.customerId);
+                    } else if (score == 1) {
+                        substring.add(doc.customerId);
+                    }
+                    int found = ranked ? exact.size() + prefix.size() : exact.size() + prefix.size() + substring.size();
+                    if (found >= limit || (substring.size() >= limit && count - i >= RANKING_SCAN_BUDGET)) {
+                        break;
+                    }
+                }
+
+                List<Long> result = new ArrayList<>(limit);
+                for (List<Long> tier : List.of(exact, prefix, substring)) {
+                    for (Long customerId : tier) {
+                        if (result.size() >= limit) {
+                            return result;
+                        }
+                        result.add(customerId);
+                    }
+                }
+                return result;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * 有序数组求交集，结果写回 candidates，返回交集大小
+         */
+        private static int intersect(int[] candidates, int count, IntList other) {
+            int i = 0;
+            int j = 0;
+            int out = 0;
+            while (i < count && j < other.size) {
+                int a = candidates[i];
+                int b = other.data[j];
+                if (a == b) {
+                    candidates[out++] = a;
+                    i++;
+                    j++;
+                } else if (a < b) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            return out;
+        }
+
+        /**
+         * 批量构建完成后收缩倒排表的预留容量
+         */
+        void trim() {
+            lock.writeLock().lock();
+            try {
+                for (IntList list : postings.values()) {
+                    list.data = Arrays.copyOf(list.data, list.size);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        int liveCount() {
+            return docByCustomer.size();
+        }
+
+        Map<String, Object> stats() {
+            lock.readLock().lock();
+            try {
+                long postingEntries = 0;
+                long bytes = 0;
+                for (Map.Entry<String, IntList> entry : postings.entrySet()) {
+                    postingEntries += entry.getValue().size;
+                    bytes += 4L * entry.getValue().data.length + 16 + 48 + 2L * entry.getKey().length();
+                }
+                for (Doc doc : docs) {
+                    bytes += doc != null ? doc.estimatedBytes() : 8;
+                }
+                bytes += 48L * docByCustomer.size();
+
+                Map<String, Object> stats = new LinkedHashMap<>();
+                stats.put("customers", docByCustomer.size());
+                stats.put("tombstones", deleted);
+                stats.put("grams", postings.size());
+                stats.put("postingEntries", postingEntries);
+                stats.put("estimatedBytes", bytes);
+                return stats;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
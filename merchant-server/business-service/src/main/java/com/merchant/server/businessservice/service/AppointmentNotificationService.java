@@ -1,7 +1,11 @@
 package com.merchant.server.businessservice.service;
 
+import com.merchant.server.businessservice.dto.AppointmentNotificationDTO;
 import com.merchant.server.businessservice.entity.Appointment;
 
+import java.util.List;
+import java.util.Map;
+
 public interface AppointmentNotificationService {
     
     /**
@@ -23,4 +27,20 @@ public interface AppointmentNotificationService {
      * 发送预约提醒通知
      */
     void sendReminderNotification(Appointment appointment);
+    
+    /**
+     * 批量发送预约提醒：客户、资源和服务项目按批查询，一次请求交给通知服务
+     * 找不到客户的预约跳过；返回通知服务是否已接收
+     */
+    boolean sendReminderNotifications(List<Appointment> appointments);
+    
+    /**
+     * 批量构建通知内容，按预约ID返回；客户、资源和服务项目按批查询，找不到客户的预约不在结果中
+     */
+    Map<Long, AppointmentNotificationDTO> buildNotifications(List<Appointment> appointments);
+    
+    /**
+     * 调用通知服务各接口的次数、失败次数和耗时
+     */
+    Map<String, Object> getDeliveryStats();
 }
\ No newline at end of file
@@ -7,13 +7,14 @@ public interface AppointmentScheduleService {
     
     /**
      * 自动标记过期的预约为NO_SHOW
-     * 规则：预约时间过后24小时仍为CONFIRMED状态的预约自动标记为NO_SHOW
+     * 规则：预约时间过后24小时（appointment.no-show.grace-hours）仍为CONFIRMED状态的预约自动标记为NO_SHOW
+     * 多实例部署时通过数据库租约保证只有一个实例执行
      */
     void markOverdueAppointmentsAsNoShow();
     
     /**
      * 发送预约提醒
-     * 规则：预约前24小时和1小时发送提醒
+     * 规则：预约前24小时和1小时发送提醒，同一预约的同一种提醒只发送一次
      */
     void sendAppointmentReminders();
 }
\ No newline at end of file
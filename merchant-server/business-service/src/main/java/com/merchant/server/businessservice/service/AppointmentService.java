@@ -1,9 +1,10 @@
 package com.merchant.server.businessservice.service;
 
+import com.merchant.server.businessservice.dto.AppointmentPageQuery;
 import com.merchant.server.businessservice.entity.Appointment;
+import com.merchant.server.businessservice.entity.CustomerAppointmentStats;
 
 import java.util.List;
-import java.util.Map;
 
 public interface AppointmentService {
 
@@ -12,15 +13,20 @@ public interface AppointmentService {
      */
     List<Appointment> getAllAppointmentsByTenantId(Long tenantId);
 
+    /**
+     * 按日期窗口分页查询预约（keyset 翻页），服务详情按页批量加载
+     */
+    AppointmentPageResult getAppointmentPage(AppointmentPageQuery query, String cursor);
+
     /**
      * 根据客户ID获取预约记录
      */
     List<Appointment> getAppointmentsByCustomerId(Long customerId, Long tenantId);
 
     /**
-     * 获取预约统计信息
+     * 获取客户预约统计信息（按主键读取汇总表）
      */
-    Map<String, Object> getAppointmentStats(Long customerId, Long tenantId);
+    CustomerAppointmentStats getAppointmentStats(Long customerId, Long tenantId);
 
     /**
      * 创建预约
@@ -46,4 +52,29 @@ public interface AppointmentService {
      * 根据ID获取预约
      */
     Appointment getAppointmentById(Long id);
-}
\ No newline at end of file
+
+    /**
+     * 游标分页结果
+     */
+    class AppointmentPageResult {
+        private List<Appointment> appointments;
+        private String nextCursor;
+        private boolean hasNext;
+
+        public AppointmentPageResult() {}
+
+        public AppointmentPageResult(List<Appointment> appointments, String nextCursor, boolean hasNext) {
+            this.appointments = appointments;
+            this.nextCursor = nextCursor;
+            this.hasNext = hasNext;
+        }
+
+        // Getters and Setters
+        public List<Appointment> getAppointments() { return appointments; }
+        public void setAppointments(List<Appointment> appointments) { this.appointments = appointments; }
+        public String getNextCursor() { return nextCursor; }
+        public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+        public boolean isHasNext() { return hasNext; }
+        public void setHasNext(boolean hasNext) { this.hasNext = hasNext; }
+    }
+}
@@ -0,0 +1,16 @@
+package com.merchant.server.businessservice.service;
+
+import com.merchant.server.businessservice.dto.CustomerFileFormat;
+import com.merchant.server.businessservice.entity.Customer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface CustomerExportService {
+
+    /**
+     * 流式导出租户客户，边读游标边写出，返回导出的客户数
+     */
+    long exportCustomers(Long tenantId, Customer.CustomerStatus status, Customer.MembershipLevel level,
+                         CustomerFileFormat format, OutputStream output) throws IOException;
+}
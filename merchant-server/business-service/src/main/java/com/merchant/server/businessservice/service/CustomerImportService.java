@@ -0,0 +1,26 @@
+package com.merchant.server.businessservice.service;
+
+import com.merchant.server.businessservice.dto.CustomerFileFormat;
+import com.merchant.server.businessservice.dto.CustomerImportJob;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+public interface CustomerImportService {
+
+    /**
+     * 接收导入文件并在后台导入，立即返回进行中的任务；进度通过 {@link #getJob} 查询
+     */
+    CustomerImportJob submitImport(Long tenantId, CustomerFileFormat format, InputStream input) throws IOException;
+
+    /**
+     * 查询导入任务进度
+     */
+    CustomerImportJob getJob(String jobId);
+
+    /**
+     * 查询租户最近的导入任务
+     */
+    List<CustomerImportJob> getJobs(Long tenantId);
+}
@@ -1,6 +1,7 @@
 package com.merchant.server.businessservice.service;
 
 import com.merchant.server.businessservice.dto.CustomerDTO;
+import com.merchant.server.businessservice.dto.CustomerPageQuery;
 import com.merchant.server.businessservice.entity.Customer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -14,6 +15,11 @@ public interface CustomerService {
      */
     Page<Customer> getCustomers(Long tenantId, String keyword, Customer.CustomerStatus status, Customer.MembershipLevel level, Pageable pageable);
     
+    /**
+     * 数据库分页查询客户，传入游标时按 keyset 翻页
+     */
+    CustomerPageResult getCustomerPage(CustomerPageQuery query, String cursor, CountMode countMode);
+    
     /**
      * 根据ID获取客户详情
      */
@@ -86,6 +92,46 @@ public interface CustomerService {
         public void setHasPrevious(boolean hasPrevious) { this.hasPrevious = hasPrevious; }
     }
 
+    /**
+     * 总数统计方式
+     */
+    enum CountMode {
+        EXACT, ESTIMATED, NONE
+    }
+    
+    /**
+     * 游标分页结果
+     */
+    class CustomerPageResult {
+        private List<Customer> customers;
+        private String nextCursor;
+        private boolean hasNext;
+        private Long totalItems;
+        private boolean totalExact;
+        
+        public CustomerPageResult() {}
+        
+        public CustomerPageResult(List<Customer> customers, String nextCursor, boolean hasNext, Long totalItems, boolean totalExact) {
+            this.customers = customers;
+            this.nextCursor = nextCursor;
+            this.hasNext = hasNext;
+            this.totalItems = totalItems;
+            this.totalExact = totalExact;
+        }
+        
+        // Getters and Setters
+        public List<Customer> getCustomers() { return customers; }
+        public void setCustomers(List<Customer> customers) { this.customers = customers; }
+        public String getNextCursor() { return nextCursor; }
+        public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+        public boolean isHasNext() { return hasNext; }
+        public void setHasNext(boolean hasNext) { this.hasNext = hasNext; }
+        public Long getTotalItems() { return totalItems; }
+        public void setTotalItems(Long totalItems) { this.totalItems = totalItems; }
+        public boolean isTotalExact() { return totalExact; }
+        public void setTotalExact(boolean totalExact) { this.totalExact = totalExact; }
+    }
+
     /**
      * 客户统计DTO
      */
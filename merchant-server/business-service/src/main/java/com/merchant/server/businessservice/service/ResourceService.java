@@ -1,11 +1,16 @@
 package com.merchant.server.businessservice.service;
 
+import com.merchant.server.businessservice.dto.ResourceCatalog;
+import com.merchant.server.businessservice.dto.ResourceOccupancy;
+import com.merchant.server.businessservice.dto.ResourceSlots;
 import com.merchant.server.businessservice.entity.Resource;
 import com.merchant.server.businessservice.entity.ResourceAvailability;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Map;
 
 public interface ResourceService {
     
@@ -14,6 +19,11 @@ public interface ResourceService {
      */
     List<Resource> getAllResourcesByTenantId(Long tenantId);
     
+    /**
+     * 获取租户资源目录（资源及可用时段，带内容 ETag），由缓存提供，调用方不应修改
+     */
+    ResourceCatalog getResourceCatalog(Long tenantId);
+    
     /**
      * 根据类型获取资源
      */
@@ -24,11 +34,36 @@ public interface ResourceService {
      */
     List<Resource> getAvailableResourcesByService(Long serviceId, Long tenantId);
     
+    /**
+     * 服务的资源类型或员工技能（staff_services）变更后调用，重新加载租户的服务资源规则
+     */
+    void refreshServiceEligibility(Long tenantId);
+    
     /**
      * 检查资源可用性
      */
     boolean checkResourceAvailability(Long resourceId, LocalDate date, LocalTime startTime, LocalTime endTime);
     
+    /**
+     * 资源占用索引和预约守卫的运行统计
+     */
+    Map<String, Object> getAvailabilityIndexStats();
+    
+    /**
+     * 查询能提供指定服务的所有资源从 date 起 days 天内可预约 duration 分钟的开始时间
+     */
+    List<ResourceSlots> findFreeSlots(Long tenantId, Long serviceId, LocalDate date, int days, int duration);
+    
+    /**
+     * 查询租户在 at 时刻处于可用时段内的在用资源（按每周可用时段判断，未配置可用时段的资源视为全天可用，不考虑已有预约）
+     */
+    List<Resource> getWorkingResources(Long tenantId, LocalDateTime at);
+    
+    /**
+     * 查询租户所有资源在 date 所在周（周一至周日）每天按 bucketMinutes 分段的已占用分钟数
+     */
+    List<ResourceOccupancy> getWeeklyOccupancy(Long tenantId, LocalDate date, int bucketMinutes);
+    
     /**
      * 创建资源
      */
@@ -54,6 +89,11 @@ public interface ResourceService {
      */
     void setResourceAvailability(Long resourceId, List<ResourceAvailability> availabilities);
     
+    /**
+     * 在一个事务内批量设置多个资源的可用时段，每个资源的时段整体替换为给定列表
+     */
+    void setResourceAvailabilities(Map<Long, List<ResourceAvailability>> availabilitiesByResource);
+    
     /**
      * 获取资源可用性
      */
@@ -8,11 +8,21 @@ import com.merchant.server.businessservice.entity.Resource;
 import com.merchant.server.businessservice.mapper.CustomerMapper;
 import com.merchant.server.businessservice.mapper.ResourceMapper;
 import com.merchant.server.businessservice.service.AppointmentNotificationService;
+import com.merchant.server.businessservice.service.support.AppointmentServiceLines;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -21,6 +31,7 @@ public class AppointmentNotificationServiceImpl implements AppointmentNotificati
     private final NotificationClient notificationClient;
     private final CustomerMapper customerMapper;
     private final ResourceMapper resourceMapper;
+    private final AppointmentServiceLines appointmentServiceLines;
     
     @Value("${business.name:美容院}")
     private String businessName;
@@ -71,6 +82,49 @@ public class AppointmentNotificationServiceImpl implements AppointmentNotificati
         }
     }
 
+    @Override
+    public boolean sendReminderNotifications(List<Appointment> appointments) {
+        if (appointments.isEmpty()) {
+            return true;
+        }
+        List<AppointmentNotificationDTO> notifications = new ArrayList<>(buildNotifications(appointments).values());
+        log.info("Prepared {} reminder notifications for {} appointments", notifications.size(), appointments.size());
+        return notifications.isEmpty() || notificationClient.sendAppointmentReminders(notifications);
+    }
+
+    @Override
+    public Map<Long, AppointmentNotificationDTO> buildNotifications(List<Appointment> appointments) {
+        Map<Long, AppointmentNotificationDTO> notifications = new LinkedHashMap<>();
+        if (appointments.isEmpty()) {
+            return notifications;
+        }
+        Map<Long, Customer> customers = loadByIds(appointments, Appointment::getCustomerId,
+            customerMapper::selectByIds, Customer::getId);
+        Map<Long, Resource> resources = loadByIds(appointments, Appointment::getResourceId,
+            resourceMapper::findByIds, Resource::getId);
+        appointmentServiceLines.load(appointments);
+        
+        for (Appointment appointment : appointments) {
+            Customer customer = customers.get(appointment.getCustomerId());
+            if (customer == null) {
+                log.warn("Customer not found for appointment: {}", appointment.getId());
+                continue;
+            }
+            try {
+                notifications.put(appointment.getId(),
+                    buildNotificationDTO(appointment, customer, resources.get(appointment.getResourceId())));
+            } catch (Exception e) {
+                log.error("Error building notification DTO for appointment: {}", appointment.getId(), e);
+            }
+        }
+        return notifications;
+    }
+
+    @Override
+    public Map<String, Object> getDeliveryStats() {
+        return notificationClient.stats();
+    }
+
     private AppointmentNotificationDTO buildNotificationDTO(Appointment appointment) {
         try {
             // 获取客户信息
@@ -86,41 +140,67 @@ public class AppointmentNotificationServiceImpl implements AppointmentNotificati
                 resource = resourceMapper.findById(appointment.getResourceId());
             }
 
-            // 构建通知DTO
-            AppointmentNotificationDTO notification = new AppointmentNotificationDTO();
-            notification.setAppointmentId(appointment.getId());
-            notification.setTenantId(appointment.getTenantId());
-            notification.setCustomerId(customer.getId());
-            notification.setCustomerName(customer.getFullName());
-            notification.setCustomerPhone(customer.getPhone());
-            notification.setCustomerEmail(customer.getEmail());
-            notification.setCommunicationPreference(customer.getCommunicationPreference().name());
-            
-            notification.setAppointmentDate(appointment.getAppointmentDate());
-            notification.setAppointmentTime(appointment.getAppointmentTime());
-            notification.setDuration(appointment.getDuration());
-            notification.setTotalAmount(appointment.getTotalAmount());
-            notification.setStatus(appointment.getStatus().name());
-            notification.setNotes(appointment.getNotes());
-            
-            if (resource != null) {
-                notification.setResourceId(resource.getId());
-                notification.setResourceType(resource.getType().name());
-                notification.setResourceName(resource.getName());
-            }
-            
-            // 获取服务名称（简化处理，实际可能需要查询服务详情）
-            notification.setServiceName("美容服务");
-            
-            notification.setBusinessName(businessName);
-            notification.setBusinessAddress(businessAddress);
-            notification.setBusinessPhone(businessPhone);
-            
-            return notification;
+            return buildNotificationDTO(appointment, customer, resource);
             
         } catch (Exception e) {
             log.error("Error building notification DTO for appointment: {}", appointment.getId(), e);
             return null;
         }
     }
+
+    private AppointmentNotificationDTO buildNotificationDTO(Appointment appointment, Customer customer, Resource resource) {
+        AppointmentNotificationDTO notification = new AppointmentNotificationDTO();
+        notification.setAppointmentId(appointment.getId());
+        notification.setTenantId(appointment.getTenantId());
+        notification.setCustomerId(customer.getId());
+        notification.setCustomerName(customer.getFullName());
+        notification.setCustomerPhone(customer.getPhone());
+        notification.setCustomerEmail(customer.getEmail());
+        notification.setCommunicationPreference(customer.getCommunicationPreference().name());
+        
+        notification.setAppointmentDate(appointment.getAppointmentDate());
+        notification.setAppointmentTime(appointment.getAppointmentTime());
+        notification.setDuration(appointment.getDuration());
+        notification.setTotalAmount(appointment.getTotalAmount());
+        notification.setStatus(appointment.getStatus().name());
+        notification.setNotes(appointment.getNotes());
+        
+        if (resource != null) {
+            notification.setResourceId(resource.getId());
+            notification.setResourceType(resource.getType().name());
+            notification.setResourceName(resource.getName());
+        }
+        
+        // 已加载服务项目时使用项目名称，否则使用通用名称
+        List<com.merchant.server.businessservice.entity.AppointmentService> services = appointment.getAppointmentServices();
+        if (services != null && !services.isEmpty()) {
+            notification.setServiceName(services.stream()
+                .map(com.merchant.server.businessservice.entity.AppointmentService::getServiceName)
+                .collect(Collectors.joining("、")));
+        } else {
+            notification.setServiceName("美容服务");
+        }
+        
+        notification.setBusinessName(businessName);
+        notification.setBusinessAddress(businessAddress);
+        notification.setBusinessPhone(businessPhone);
+        
+        return notification;
+    }
+
+    /**
+     * 收集预约上的关联ID去重后一次 IN 查询，按ID建立映射
+     */
+    private static <T> Map<Long, T> loadByIds(List<Appointment> appointments, Function<Appointment, Long> idOf,
+                                              Function<List<Long>, List<T>> finder, Function<T, Long> keyOf) {
+        List<Long> ids = appointments.stream()
+            .map(idOf)
+            .filter(Objects::nonNull)
+            .distinct()
+            .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return finder.apply(ids).stream().collect(Collectors.toMap(keyOf, Function.identity()));
+    }
 }
\ No newline at end of file
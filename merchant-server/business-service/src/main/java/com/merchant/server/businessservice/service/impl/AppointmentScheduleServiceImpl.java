@@ -1,102 +1,186 @@
 package com.merchant.server.businessservice.service.impl;
 
+import com.merchant.server.businessservice.availability.ResourceBookingIndex;
+import com.merchant.server.businessservice.cache.OccupancyCache;
 import com.merchant.server.businessservice.entity.Appointment;
+import com.merchant.server.businessservice.entity.AppointmentReminder.ReminderType;
 import com.merchant.server.businessservice.mapper.AppointmentMapper;
+import com.merchant.server.businessservice.mapper.AppointmentReminderMapper;
+import com.merchant.server.businessservice.schedule.SchedulerLease;
+import com.merchant.server.businessservice.service.AppointmentNotificationService;
 import com.merchant.server.businessservice.service.AppointmentScheduleService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AppointmentScheduleServiceImpl implements AppointmentScheduleService {
 
+    private static final String NO_SHOW_LEASE = "appointment-no-show";
+
+    private static final String REMINDER_LEASE = "appointment-reminder";
+
     private final AppointmentMapper appointmentMapper;
+    private final AppointmentReminderMapper reminderMapper;
+    private final AppointmentNotificationService notificationService;
+    private final ResourceBookingIndex bookingIndex;
+    private final OccupancyCache occupancyCache;
+    private final SchedulerLease schedulerLease;
+    private final TransactionTemplate transactionTemplate;
+
+    // 预约时间过后多少小时仍为CONFIRMED则标记为NO_SHOW
+    @Value("${appointment.no-show.grace-hours:24}")
+    private int graceHours;
+
+    @Value("${appointment.no-show.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${appointment.no-show.lease-ttl:600000}")
+    private long leaseTtlMillis;
+
+    @Value("${appointment.reminder.batch-size:200}")
+    private int reminderBatchSize;
+
+    @Value("${appointment.reminder.lease-ttl:600000}")
+    private long reminderLeaseTtlMillis;
 
     /**
-     * 每小时执行一次，检查过期的预约
+     * 定时将过期未到的预约标记为NO_SHOW
+     * 按ID分批执行集合更新，每批一个事务；多实例部署时只有持有租约的实例执行
      */
-    @Scheduled(fixedRate = 3600000) // 1小时 = 3,600,000毫秒
+    @Scheduled(fixedDelayString = "${appointment.no-show.interval:3600000}")
     @Override
     public void markOverdueAppointmentsAsNoShow() {
-        log.info("开始检查过期预约...");
-        
+        if (!schedulerLease.tryAcquire(NO_SHOW_LEASE, Duration.ofMillis(leaseTtlMillis))) {
+            log.debug("NO_SHOW 标记任务由其他实例执行，跳过");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(graceHours);
+        String note = "[系统自动标记：预约时间过后" + graceHours + "小时未到]";
+        Map<Long, Integer> markedByTenant = new TreeMap<>();
+        int total = 0;
         try {
-            // 获取所有CONFIRMED状态的预约
-            List<Appointment> confirmedAppointments = appointmentMapper.findConfirmedAppointments();
-            
-            LocalDateTime now = LocalDateTime.now();
-            int updatedCount = 0;
-            
-            for (Appointment appointment : confirmedAppointments) {
-                // 计算预约的完整时间
-                LocalDateTime appointmentDateTime = LocalDateTime.of(
-                    appointment.getAppointmentDate(), 
-                    appointment.getAppointmentTime()
-                );
-                
-                // 如果预约时间过后24小时，标记为NO_SHOW
-                LocalDateTime noShowThreshold = appointmentDateTime.plusHours(24);
-                
-                if (now.isAfter(noShowThreshold)) {
-                    log.info("标记预约为NO_SHOW: 预约ID={}, 客户ID={}, 预约时间={}", 
-                        appointment.getId(), appointment.getCustomerId(), appointmentDateTime);
-                    
-                    appointment.setStatus(Appointment.AppointmentStatus.NO_SHOW);
-                    appointment.setUpdatedAt(now);
-                    appointment.setNotes(appointment.getNotes() + " [系统自动标记：预约时间过后24小时未到]");
-                    
-                    appointmentMapper.update(appointment);
-                    updatedCount++;
+            long afterId = 0;
+            while (true) {
+                List<Appointment> chunk = appointmentMapper.selectOverdueConfirmed(
+                    cutoff.toLocalDate(), cutoff.toLocalTime(), afterId, chunkSize);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                Map<Long, Integer> marked = transactionTemplate.execute(status -> markChunk(chunk, note));
+                marked.forEach((tenantId, count) -> markedByTenant.merge(tenantId, count, Integer::sum));
+                total += marked.values().stream().mapToInt(Integer::intValue).sum();
+                afterId = chunk.get(chunk.size() - 1).getId();
+                // 续期租约；续期失败说明已被其他实例接手
+                if (chunk.size() < chunkSize || !schedulerLease.tryAcquire(NO_SHOW_LEASE, Duration.ofMillis(leaseTtlMillis))) {
+                    break;
                 }
             }
-            
-            if (updatedCount > 0) {
-                log.info("成功标记 {} 个预约为NO_SHOW", updatedCount);
+            if (total > 0) {
+                log.info("成功标记 {} 个预约为NO_SHOW（截止 {}），按租户: {}，耗时 {} ms",
+                    total, cutoff, markedByTenant, System.currentTimeMillis() - start);
             }
-            
         } catch (Exception e) {
-            log.error("检查过期预约时发生错误", e);
+            log.error("检查过期预约时发生错误，已标记 {} 个预约", total, e);
         }
     }
 
     /**
-     * 每小时执行一次，发送预约提醒
+     * 按租户分组更新一批预约，返回各租户实际标记的数量
+     */
+    private Map<Long, Integer> markChunk(List<Appointment> chunk, String note) {
+        Map<Long, List<Appointment>> byTenant = chunk.stream()
+            .collect(Collectors.groupingBy(Appointment::getTenantId));
+        Map<Long, Integer> marked = new HashMap<>();
+        byTenant.forEach((tenantId, appointments) -> {
+            List<Long> ids = appointments.stream().map(Appointment::getId).collect(Collectors.toList());
+            int updated = appointmentMapper.markNoShow(ids, note);
+            marked.put(tenantId, updated);
+            appointments.stream().map(Appointment::getAppointmentDate).distinct()
+                .forEach(date -> occupancyCache.invalidate(tenantId, date));
+            // 有预约在查询后被人工处理时无法确定是哪几条，保留其占用，由占用索引定时重载修正
+            if (updated == appointments.size()) {
+                for (Appointment appointment : appointments) {
+                    bookingIndex.onAppointmentChanged(appointment.getId(), bookingIndex.bookingOf(appointment), null);
+                }
+            }
+        });
+        return marked;
+    }
+
+    /**
+     * 定时发送预约提醒
+     * 每种提醒按ID分批扫描窗口内的预约，先登记提醒记录再批量交给通知服务，发送失败时撤销登记留待下次重试；
+     * 提醒记录保证同一预约的同一种提醒只发送一次，实例在登记后发送前退出时该批提醒不会补发
      */
-    @Scheduled(fixedRate = 3600000) // 1小时 = 3,600,000毫秒
+    @Scheduled(fixedDelayString = "${appointment.reminder.interval:300000}")
     @Override
     public void sendAppointmentReminders() {
-        log.info("开始发送预约提醒...");
-        
+        if (!schedulerLease.tryAcquire(REMINDER_LEASE, Duration.ofMillis(reminderLeaseTtlMillis))) {
+            log.debug("预约提醒任务由其他实例执行，跳过");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        Map<ReminderType, Integer> sentByType = new EnumMap<>(ReminderType.class);
         try {
-            LocalDateTime now = LocalDateTime.now();
-            LocalDateTime tomorrow = now.plusDays(1);
-            LocalDateTime oneHourLater = now.plusHours(1);
-            
-            // 获取明天的预约（24小时提醒）
-            List<Appointment> tomorrowAppointments = appointmentMapper.findAppointmentsByDateRange(
-                tomorrow.toLocalDate(), tomorrow.toLocalDate()
-            );
-            
-            // 获取1小时后的预约（1小时提醒）
-            List<Appointment> upcomingAppointments = appointmentMapper.findAppointmentsByTimeRange(
-                now.toLocalDate(), 
-                now.toLocalTime(), 
-                oneHourLater.toLocalTime()
-            );
-            
-            // TODO: 实现发送短信/邮件提醒的逻辑
-            log.info("需要发送24小时提醒的预约数量: {}", tomorrowAppointments.size());
-            log.info("需要发送1小时提醒的预约数量: {}", upcomingAppointments.size());
-            
+            for (ReminderType type : ReminderType.values()) {
+                if (!dispatchReminders(type, now, sentByType)) {
+                    break;
+                }
+            }
+            if (!sentByType.isEmpty()) {
+                log.info("发送预约提醒 {}，耗时 {} ms", sentByType, System.currentTimeMillis() - start);
+            }
         } catch (Exception e) {
-            log.error("发送预约提醒时发生错误", e);
+            log.error("发送预约提醒时发生错误，已发送 {}", sentByType, e);
+        }
+    }
+
+    /**
+     * 发送一种提醒；通知服务不可用或租约丢失时返回 false，本轮不再继续
+     */
+    private boolean dispatchReminders(ReminderType type, LocalDateTime now, Map<ReminderType, Integer> sentByType) {
+        LocalDateTime from = now.plus(type.getWindowStart());
+        LocalDateTime to = now.plus(type.getLeadTime());
+        long afterId = 0;
+        while (true) {
+            List<Appointment> chunk = appointmentMapper.selectReminderCandidates(type.name(),
+                from.toLocalDate(), from.toLocalTime(), to.toLocalDate(), to.toLocalTime(), afterId, reminderBatchSize);
+            if (chunk.isEmpty()) {
+                return true;
+            }
+            afterId = chunk.get(chunk.size() - 1).getId();
+            reminderMapper.insertIgnoreBatch(type.name(), chunk);
+            if (!notificationService.sendReminderNotifications(chunk)) {
+                List<Long> ids = chunk.stream().map(Appointment::getId).collect(Collectors.toList());
+                reminderMapper.deleteByAppointmentIds(type.name(), ids);
+                log.warn("通知服务未接收 {} 条 {} 提醒，下次调度重试", chunk.size(), type);
+                return false;
+            }
+            sentByType.merge(type, chunk.size(), Integer::sum);
+            if (chunk.size() < reminderBatchSize) {
+                return true;
+            }
+            // 续期租约；续期失败说明已被其他实例接手
+            if (!schedulerLease.tryAcquire(REMINDER_LEASE, Duration.ofMillis(reminderLeaseTtlMillis))) {
+                return false;
+            }
         }
     }
 }
\ No newline at end of file
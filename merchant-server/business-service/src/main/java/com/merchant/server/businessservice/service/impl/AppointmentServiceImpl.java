@@ -1,18 +1,29 @@
 package com.merchant.server.businessservice.service.impl;
 
+import com.merchant.server.businessservice.availability.BookingGuard;
+import com.merchant.server.businessservice.availability.ResourceBookingIndex;
+import com.merchant.server.businessservice.cache.CustomerDetailCache;
+import com.merchant.server.businessservice.cache.OccupancyCache;
+import com.merchant.server.businessservice.dto.AppointmentCursor;
+import com.merchant.server.businessservice.dto.AppointmentPageQuery;
 import com.merchant.server.businessservice.entity.Appointment;
+import com.merchant.server.businessservice.entity.CustomerAppointmentStats;
+import com.merchant.server.businessservice.entity.NotificationOutbox;
 import com.merchant.server.businessservice.mapper.AppointmentMapper;
+import com.merchant.server.businessservice.outbox.AppointmentNotificationOutbox;
 import com.merchant.server.businessservice.service.AppointmentService;
-import com.merchant.server.businessservice.service.AppointmentNotificationService;
+import com.merchant.server.businessservice.service.support.AppointmentServiceLines;
+import com.merchant.server.businessservice.service.support.CustomerAppointmentStatsUpdater;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -20,20 +31,43 @@ import java.util.Map;
 public class AppointmentServiceImpl implements AppointmentService {
 
     private final AppointmentMapper appointmentMapper;
-    private final AppointmentNotificationService notificationService;
+    private final AppointmentServiceLines appointmentServiceLines;
+    private final AppointmentNotificationOutbox notificationOutbox;
+    private final CustomerDetailCache customerDetailCache;
+    private final OccupancyCache occupancyCache;
+    private final ResourceBookingIndex bookingIndex;
+    private final BookingGuard bookingGuard;
+    private final CustomerAppointmentStatsUpdater statsUpdater;
 
     @Override
     public List<Appointment> getAllAppointmentsByTenantId(Long tenantId) {
         log.info("Getting all appointments for tenant: {}", tenantId);
         List<Appointment> appointments = appointmentMapper.findByTenantId(tenantId);
         
-        // 为每个预约获取服务详情
-        for (Appointment appointment : appointments) {
-            List<com.merchant.server.businessservice.entity.AppointmentService> services = appointmentMapper.findAppointmentServicesByAppointmentId(appointment.getId());
-            appointment.setAppointmentServices(services);
+        // 批量获取服务详情
+        return appointmentServiceLines.load(appointments);
+    }
+
+    @Override
+    public AppointmentPageResult getAppointmentPage(AppointmentPageQuery query, String cursor) {
+        query.setSortDir("DESC".equalsIgnoreCase(query.getSortDir()) ? "DESC" : "ASC");
+        if (StringUtils.hasText(cursor)) {
+            query.applyCursor(AppointmentCursor.decode(cursor));
         }
-        
-        return appointments;
+
+        // 多取一行用于判断是否还有下一页
+        int pageSize = query.getLimit();
+        query.setLimit(pageSize + 1);
+        List<Appointment> rows = appointmentMapper.selectPage(query);
+        query.setLimit(pageSize);
+
+        boolean hasNext = rows.size() > pageSize;
+        List<Appointment> appointments = hasNext ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+        appointmentServiceLines.load(appointments);
+        String nextCursor = hasNext
+            ? AppointmentCursor.after(appointments.get(appointments.size() - 1), query.getSortDir()).encode()
+            : null;
+        return new AppointmentPageResult(appointments, nextCursor, hasNext);
     }
 
     @Override
@@ -43,41 +77,19 @@ public class AppointmentServiceImpl implements AppointmentService {
     }
 
     @Override
-    public Map<String, Object> getAppointmentStats(Long customerId, Long tenantId) {
+    public CustomerAppointmentStats getAppointmentStats(Long customerId, Long tenantId) {
         log.info("Getting appointment stats for customer: {} in tenant: {}", customerId, tenantId);
         
-        List<Appointment> appointments = appointmentMapper.findByCustomerIdAndTenantId(customerId, tenantId);
-        
-        Map<String, Object> stats = new HashMap<>();
-        
-        // 总预约数
-        stats.put("totalAppointments", appointments.size());
-        
-        // 已完成预约数
-        long completedCount = appointments.stream()
-                .filter(apt -> apt.getStatus() == Appointment.AppointmentStatus.COMPLETED)
-                .count();
-        stats.put("completedAppointments", completedCount);
-        
-        // 总消费金额
-        BigDecimal totalSpent = appointments.stream()
-                .filter(apt -> apt.getStatus() == Appointment.AppointmentStatus.COMPLETED)
-                .map(apt -> apt.getTotalAmount() != null ? apt.getTotalAmount() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        stats.put("totalSpent", totalSpent);
-        
-        // 平均评分
-        double avgRating = appointments.stream()
-                .filter(apt -> apt.getRating() != null && apt.getRating() > 0)
-                .mapToInt(Appointment::getRating)
-                .average()
-                .orElse(0.0);
-        stats.put("avgRating", avgRating);
-        
+        CustomerAppointmentStats stats = appointmentMapper.selectCustomerAppointmentStats(customerId, tenantId);
+        if (stats == null) {
+            // 汇总行由迁移脚本回填、由预约写入维护；缺失时只读聚合，查询不写库
+            stats = appointmentMapper.aggregateCustomerAppointmentStats(customerId, tenantId);
+        }
         return stats;
     }
 
     @Override
+    @Transactional
     public Appointment createAppointment(Appointment appointment) {
         log.info("Creating appointment for customer: {}", appointment.getCustomerId());
         log.info("Appointment details: {}", appointment);
@@ -94,15 +106,18 @@ public class AppointmentServiceImpl implements AppointmentService {
         }
         
         try {
+            // 锁定资源当天的预约并检查时段冲突
+            ResourceBookingIndex.Booking booking = bookingIndex.bookingOf(appointment);
+            bookingGuard.reserve(null, null, booking);
             appointmentMapper.insert(appointment);
+            statsUpdater.onAppointmentChanged(null, appointment);
+            customerDetailCache.invalidate(appointment.getCustomerId());
+            bookingIndex.onAppointmentChanged(appointment.getId(), null, booking);
+            occupancyCache.invalidate(appointment.getTenantId(), appointment.getAppointmentDate());
             log.info("Appointment created successfully with ID: {}", appointment.getId());
             
-            // 发送预约确认通知
-            try {
-                notificationService.sendConfirmationNotification(appointment);
-            } catch (Exception e) {
-                log.error("Failed to send confirmation notification for appointment: {}", appointment.getId(), e);
-            }
+            // 登记预约确认通知，事务提交后由发件箱转发
+            notificationOutbox.enqueue(appointment, NotificationOutbox.EventType.CONFIRMATION);
             
             return appointment;
         } catch (Exception e) {
@@ -112,42 +127,72 @@ public class AppointmentServiceImpl implements AppointmentService {
     }
 
     @Override
+    @Transactional
     public Appointment updateAppointmentStatus(Long id, String status) {
         log.info("Updating appointment status: {} to {}", id, status);
-        Appointment appointment = appointmentMapper.findById(id);
+        Appointment appointment = appointmentMapper.findByIdForUpdate(id);
         if (appointment != null) {
             Appointment.AppointmentStatus oldStatus = appointment.getStatus();
+            ResourceBookingIndex.Booking bookingBefore = bookingIndex.bookingOf(appointment);
             appointment.setStatus(Appointment.AppointmentStatus.valueOf(status));
             appointment.setUpdatedAt(LocalDateTime.now());
+            // 已取消/爽约的预约恢复时重新占用时段
+            ResourceBookingIndex.Booking bookingAfter = bookingIndex.bookingOf(appointment);
+            bookingGuard.reserve(id, bookingBefore, bookingAfter);
             appointmentMapper.update(appointment);
+            if (oldStatus != appointment.getStatus()) {
+                statsUpdater.onStatusChanged(appointment, oldStatus);
+            }
+            customerDetailCache.invalidate(appointment.getCustomerId());
+            bookingIndex.onAppointmentChanged(id, bookingBefore, bookingAfter);
+            occupancyCache.invalidate(appointment.getTenantId(), appointment.getAppointmentDate());
             
-            // 根据状态变化发送通知
-            try {
-                Appointment.AppointmentStatus newStatus = Appointment.AppointmentStatus.valueOf(status);
-                if (newStatus == Appointment.AppointmentStatus.CANCELLED && oldStatus != Appointment.AppointmentStatus.CANCELLED) {
-                    notificationService.sendCancellationNotification(appointment);
-                } else if (newStatus == Appointment.AppointmentStatus.COMPLETED && oldStatus != Appointment.AppointmentStatus.COMPLETED) {
-                    notificationService.sendCompletionNotification(appointment);
-                }
-            } catch (Exception e) {
-                log.error("Failed to send status change notification for appointment: {}", id, e);
+            // 根据状态变化登记通知，事务提交后由发件箱转发
+            Appointment.AppointmentStatus newStatus = appointment.getStatus();
+            if (newStatus == Appointment.AppointmentStatus.CANCELLED && oldStatus != Appointment.AppointmentStatus.CANCELLED) {
+                notificationOutbox.enqueue(appointment, NotificationOutbox.EventType.CANCELLATION);
+            } else if (newStatus == Appointment.AppointmentStatus.COMPLETED && oldStatus != Appointment.AppointmentStatus.COMPLETED) {
+                notificationOutbox.enqueue(appointment, NotificationOutbox.EventType.COMPLETION);
             }
         }
         return appointment;
     }
 
     @Override
+    @Transactional
     public Appointment updateAppointment(Appointment appointment) {
         log.info("Updating appointment: {}", appointment.getId());
+        Appointment existing = appointmentMapper.findByIdForUpdate(appointment.getId());
         appointment.setUpdatedAt(LocalDateTime.now());
+        // 改约到新的资源或时段时检查冲突
+        ResourceBookingIndex.Booking bookingBefore = bookingIndex.bookingOf(existing);
+        ResourceBookingIndex.Booking bookingAfter = bookingIndex.bookingOf(appointment);
+        bookingGuard.reserve(appointment.getId(), bookingBefore, bookingAfter);
         appointmentMapper.update(appointment);
+        customerDetailCache.invalidate(appointment.getCustomerId());
+        bookingIndex.onAppointmentChanged(appointment.getId(), bookingBefore, bookingAfter);
+        occupancyCache.invalidate(appointment.getTenantId(), appointment.getAppointmentDate());
+        // 客户被更换时，原客户的统计减去、新客户的统计加上这条预约
+        statsUpdater.onAppointmentChanged(existing, appointment);
+        if (existing != null) {
+            customerDetailCache.invalidate(existing.getCustomerId());
+            occupancyCache.invalidate(existing.getTenantId(), existing.getAppointmentDate());
+        }
         return appointment;
     }
 
     @Override
+    @Transactional
     public void deleteAppointment(Long id) {
         log.info("Deleting appointment: {}", id);
+        Appointment existing = appointmentMapper.findByIdForUpdate(id);
         appointmentMapper.deleteById(id);
+        if (existing != null) {
+            statsUpdater.onAppointmentChanged(existing, null);
+            customerDetailCache.invalidate(existing.getCustomerId());
+            bookingIndex.onAppointmentChanged(id, bookingIndex.bookingOf(existing), null);
+            occupancyCache.invalidate(existing.getTenantId(), existing.getAppointmentDate());
+        }
     }
 
     @Override
@@ -155,4 +200,4 @@ public class AppointmentServiceImpl implements AppointmentService {
         log.info("Getting appointment by id: {}", id);
         return appointmentMapper.findById(id);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,447 @@
+package com.merchant.server.businessservice.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.merchant.server.businessservice.cache.CustomerLeaderboard;
+import com.merchant.server.businessservice.cache.CustomerStatsCache;
+import com.merchant.server.businessservice.dto.CustomerDTO;
+import com.merchant.server.businessservice.dto.CustomerFileFormat;
+import com.merchant.server.businessservice.dto.CustomerImportJob;
+import com.merchant.server.businessservice.entity.Customer;
+import com.merchant.server.businessservice.entity.CustomerPreferredService;
+import com.merchant.server.businessservice.mapper.CustomerMapper;
+import com.merchant.server.businessservice.search.CustomerSearchIndex;
+import com.merchant.server.businessservice.service.CustomerImportService;
+import com.merchant.server.businessservice.service.support.CustomerPreferredServices;
+import com.merchant.server.businessservice.util.CsvReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * 客户批量导入
+ *
+ * 请求体先写入临时文件，导入在 customerImportExecutor 上后台执行，调用方通过任务ID查询进度。
+ * 文件按行流式解析，电话查重使用预先从 uk_tenant_phone 加载的内存集合（同时覆盖文件内重复），
+ * 通过查重和校验的行按 chunk-size 攒批，每批一个事务、一条多行 INSERT。
+ * 批量插入遇到并发写入造成的唯一键冲突时，该批回滚并逐行重试，把冲突记为行错误。
+ */
+@Service
+@Slf4j
+public class CustomerImportServiceImpl implements CustomerImportService {
+
+    private final CustomerMapper customerMapper;
+    private final CustomerSearchIndex customerSearchIndex;
+    private final CustomerStatsCache customerStatsCache;
+    private final CustomerLeaderboard customerLeaderboard;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor importExecutor;
+
+    private final int chunkSize;
+    private final int maxErrors;
+    private final int maxJobs;
+
+    // 最近的导入任务（按创建顺序，超过 maxJobs 时淘汰最早的）
+    private final Map<String, CustomerImportJob> jobs = new LinkedHashMap<>();
+
+    public CustomerImportServiceImpl(CustomerMapper customerMapper,
+                                     CustomerSearchIndex customerSearchIndex,
+                                     CustomerStatsCache customerStatsCache,
+                                     CustomerLeaderboard customerLeaderboard,
+                                     ObjectMapper objectMapper,
+                                     Validator validator,
+                                     PlatformTransactionManager transactionManager,
+                                     @Qualifier("customerImportExecutor") ThreadPoolTaskExecutor importExecutor,
+                                     @Value("${customer.import.chunk-size:500}") int chunkSize,
+                                     @Value("${customer.import.max-errors:1000}") int maxErrors,
+                                     @Value("${customer.import.max-jobs:100}") int maxJobs) {
+        this.customerMapper = customerMapper;
+        this.customerSearchIndex = customerSearchIndex;
+        this.customerStatsCache = customerStatsCache;
+        this.customerLeaderboard = customerLeaderboard;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.importExecutor = importExecutor;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+        this.maxJobs = maxJobs;
+    }
+
+    @Override
+    public CustomerImportJob submitImport(Long tenantId, CustomerFileFormat format, InputStream input) throws IOException {
+        // 请求结束后无法再读取请求体，先完整接收到临时文件
+        Path file = Files.createTempFile("customer-import-", ".tmp");
+        try {
+            Files.copy(input, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            deleteQuietly(file);
+            throw e;
+        }
+
+        CustomerImportJob job = new CustomerImportJob();
+        job.setJobId(UUID.randomUUID().toString());
+        job.setTenantId(tenantId);
+        job.setFormat(format.name());
+        job.setStartedAt(LocalDateTime.now());
+        register(job);
+        log.info("Queued customer import {} for tenant {} ({}, {} bytes)", job.getJobId(), tenantId, format, Files.size(file));
+
+        try {
+            importExecutor.execute(() -> {
+                try {
+                    runImport(job, tenantId, format, file);
+                } finally {
+                    deleteQuietly(file);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            deleteQuietly(file);
+            log.warn("Customer import {} rejected: too many imports in progress", job.getJobId());
+            synchronized (job) {
+                job.setStatus(CustomerImportJob.Status.FAILED);
+                job.setMessage("Too many imports in progress, please retry later");
+                job.setFinishedAt(LocalDateTime.now());
+            }
+        }
+        return job.snapshot();
+    }
+
+    private void runImport(CustomerImportJob job, Long tenantId, CustomerFileFormat format, Path file) {
+        log.info("Starting customer import {} for tenant {} ({})", job.getJobId(), tenantId, format);
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8))) {
+            Set<String> phones = new HashSet<>(customerMapper.selectPhonesByTenantId(tenantId));
+            ImportRun run = new ImportRun(job, tenantId, phones);
+            if (format == CustomerFileFormat.CSV) {
+                readCsv(reader, run);
+            } else {
+                readNdjson(reader, run);
+            }
+            run.flush();
+            synchronized (job) {
+                job.setStatus(CustomerImportJob.Status.COMPLETED);
+            }
+        } catch (Exception e) {
+            log.error("Customer import {} failed", job.getJobId(), e);
+            synchronized (job) {
+                job.setStatus(CustomerImportJob.Status.FAILED);
+                job.setMessage(e.getMessage());
+            }
+        } finally {
+            synchronized (job) {
+                job.setFinishedAt(LocalDateTime.now());
+            }
+        }
+        log.info("Customer import {} finished: imported={}, duplicates={}, failed={}",
+            job.getJobId(), job.getImportedRows(), job.getDuplicateRows(), job.getFailedRows());
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete customer import file {}", file, e);
+        }
+    }
+
+    @Override
+    public CustomerImportJob getJob(String jobId) {
+        CustomerImportJob job;
+        synchronized (jobs) {
+            job = jobs.get(jobId);
+        }
+        if (job == null) {
+            throw new RuntimeException("Import job not found: " + jobId);
+        }
+        return job.snapshot();
+    }
+
+    @Override
+    public List<CustomerImportJob> getJobs(Long tenantId) {
+        List<CustomerImportJob> result;
+        synchronized (jobs) {
+            result = jobs.values().stream()
+                .filter(job -> job.getTenantId().equals(tenantId))
+                .collect(Collectors.toList());
+        }
+        return result.stream().map(CustomerImportJob::snapshot).collect(Collectors.toList());
+    }
+
+    private void register(CustomerImportJob job) {
+        synchronized (jobs) {
+            jobs.put(job.getJobId(), job);
+            if (jobs.size() > maxJobs) {
+                jobs.remove(jobs.keySet().iterator().next());
+            }
+        }
+    }
+
+    private void readCsv(BufferedReader reader, ImportRun run) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.readRecord();
+        if (header == null) {
+            return;
+        }
+        List<String> columns = header.stream().map(this::normalizeColumn).collect(Collectors.toList());
+        if (!columns.contains("phone")) {
+            throw new RuntimeException("CSV header must contain a phone column");
+        }
+        List<String> record;
+        while ((record = csv.readRecord()) != null) {
+            long line = csv.getRecordLine();
+            Map<String, Object> values = new HashMap<>();
+            for (int i = 0; i < columns.size() && i < record.size(); i++) {
+                String value = record.get(i).trim();
+                if (!value.isEmpty()) {
+                    values.put(columns.get(i), value);
+                }
+            }
+            Object preferred = values.get("preferredServiceIds");
+            if (preferred != null) {
+                values.put("preferredServiceIds", Arrays.stream(preferred.toString().split("[;|]"))
+                    .map(String::trim).filter(s -> !s.isEmpty()).collect(Collectors.toList()));
+            }
+            // 导出的 CSV 时间列为 yyyy-MM-dd HH:mm:ss，lastVisit 按 ISO 格式绑定
+            values.computeIfPresent("lastVisit", (column, value) -> value.toString().replace(' ', 'T'));
+            CustomerDTO dto;
+            try {
+                dto = objectMapper.convertValue(values, CustomerDTO.class);
+            } catch (IllegalArgumentException e) {
+                run.reject(line, (String) values.get("phone"), "Invalid value: " + rootMessage(e));
+                continue;
+            }
+            run.accept(line, dto);
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, ImportRun run) throws IOException {
+        String text;
+        long line = 0;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            CustomerDTO dto;
+            try {
+                dto = objectMapper.readValue(text, CustomerDTO.class);
+            } catch (IOException e) {
+                run.reject(line, null, "Invalid JSON: " + rootMessage(e));
+                continue;
+            }
+            run.accept(line, dto);
+        }
+    }
+
+    /**
+     * 列名统一为驼峰形式：first_name / First Name / PHONE -> firstName / phone，lastVisitDate -> lastVisit
+     */
+    private String normalizeColumn(String column) {
+        String[] parts = column.trim().split("[_\\s-]+");
+        String first = parts[0];
+        if (first.equals(first.toUpperCase())) {
+            first = first.toLowerCase();
+        } else if (!first.isEmpty()) {
+            first = Character.toLowerCase(first.charAt(0)) + first.substring(1);
+        }
+        StringBuilder name = new StringBuilder(first);
+        for (int i = 1; i < parts.length; i++) {
+            if (!parts[i].isEmpty()) {
+                name.append(Character.toUpperCase(parts[i].charAt(0))).append(parts[i].substring(1).toLowerCase());
+            }
+        }
+        String normalized = name.toString();
+        return "lastVisitDate".equals(normalized) ? "lastVisit" : normalized;
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        String message = root.getMessage();
+        // Jackson 的消息会附带很长的来源说明，只保留第一行
+        return message != null ? message.split("\n")[0] : root.getClass().getSimpleName();
+    }
+
+    /**
+     * 单次导入的状态：查重集合和待写入的批次
+     */
+    private final class ImportRun {
+        final CustomerImportJob job;
+        final Long tenantId;
+        final Set<String> phones;
+        final List<Customer> chunk = new ArrayList<>(chunkSize);
+        final List<Long> chunkLines = new ArrayList<>(chunkSize);
+
+        ImportRun(CustomerImportJob job, Long tenantId, Set<String> phones) {
+            this.job = job;
+            this.tenantId = tenantId;
+            this.phones = phones;
+        }
+
+        void accept(long line, CustomerDTO dto) {
+            dto.setTenantId(tenantId);
+            if (dto.getPhone() != null) {
+                dto.setPhone(dto.getPhone().trim());
+            }
+            Set<ConstraintViolation<CustomerDTO>> violations = validator.validate(dto);
+            if (!violations.isEmpty()) {
+                reject(line, dto.getPhone(), violations.stream()
+                    .map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; ")));
+                return;
+            }
+            if (!phones.add(dto.getPhone())) {
+                synchronized (job) {
+                    job.setProcessedRows(job.getProcessedRows() + 1);
+                    job.setDuplicateRows(job.getDuplicateRows() + 1);
+                    addError(new CustomerImportJob.RowError(line, dto.getPhone(), "Duplicate phone number"));
+                }
+                return;
+            }
+            chunk.add(toCustomer(dto));
+            chunkLines.add(line);
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void reject(long line, String phone, String message) {
+            synchronized (job) {
+                job.setProcessedRows(job.getProcessedRows() + 1);
+                job.setFailedRows(job.getFailedRows() + 1);
+                addError(new CustomerImportJob.RowError(line, phone, message));
+            }
+        }
+
+        void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> insert(chunk));
+                synchronized (job) {
+                    job.setProcessedRows(job.getProcessedRows() + chunk.size());
+                    job.setImportedRows(job.getImportedRows() + chunk.size());
+                }
+            } catch (DataIntegrityViolationException e) {
+                // 导入期间有其他请求写入了相同电话，逐行重试找出冲突行
+                log.warn("Batch insert conflicted for import {}, retrying {} rows individually",
+                    job.getJobId(), chunk.size());
+                for (int i = 0; i < chunk.size(); i++) {
+                    Customer customer = chunk.get(i);
+                    customer.setId(null);
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> insert(List.of(customer)));
+                        synchronized (job) {
+                            job.setProcessedRows(job.getProcessedRows() + 1);
+                            job.setImportedRows(job.getImportedRows() + 1);
+                        }
+                    } catch (DataIntegrityViolationException rowError) {
+                        reject(chunkLines.get(i), customer.getPhone(), rootMessage(rowError));
+                    }
+                }
+            }
+            chunk.clear();
+            chunkLines.clear();
+        }
+
+        private void insert(List<Customer> customers) {
+            customerMapper.insertBatch(customers);
+            List<CustomerPreferredService> links = new ArrayList<>();
+            for (Customer customer : customers) {
+                if (customer.getPreferredServiceIds() == null) {
+                    continue;
+                }
+                for (Long serviceId : new HashSet<>(customer.getPreferredServiceIds())) {
+                    CustomerPreferredService link = new CustomerPreferredService();
+                    link.setCustomerId(customer.getId());
+                    link.setServiceId(serviceId);
+                    links.add(link);
+                }
+            }
+            for (int from = 0; from < links.size(); from += CustomerPreferredServices.BATCH_SIZE) {
+                customerMapper.insertPreferredServiceLinks(
+                    links.subList(from, Math.min(from + CustomerPreferredServices.BATCH_SIZE, links.size())));
+            }
+            for (Customer customer : customers) {
+                customerSearchIndex.onCustomerSaved(customer);
+                customerStatsCache.onCustomerCreated(customer);
+                customerLeaderboard.onCustomerSaved(customer);
+            }
+        }
+
+        private void addError(CustomerImportJob.RowError error) {
+            if (job.getErrors().size() < maxErrors) {
+                job.getErrors().add(error);
+            } else {
+                job.setErrorsTruncated(true);
+            }
+        }
+    }
+
+    private Customer toCustomer(CustomerDTO dto) {
+        Customer customer = new Customer();
+        customer.setTenantId(dto.getTenantId());
+        customer.setFirstName(dto.getFirstName());
+        customer.setLastName(dto.getLastName());
+        customer.setPhone(dto.getPhone());
+        customer.setEmail(dto.getEmail());
+        customer.setAddress(dto.getAddress());
+        customer.setDateOfBirth(dto.getDateOfBirth());
+        customer.setGender(dto.getGender());
+        customer.setNotes(dto.getNotes());
+        customer.setAllergies(dto.getAllergies());
+        customer.setLastVisitDate(dto.getLastVisit());
+        customer.setPreferredServiceIds(dto.getPreferredServiceIds());
+        if (dto.getPoints() != null) {
+            customer.setPoints(dto.getPoints());
+        }
+        if (dto.getTotalSpent() != null) {
+            customer.setTotalSpent(dto.getTotalSpent());
+        }
+        if (dto.getStatus() != null) {
+            customer.setStatus(dto.getStatus());
+        }
+        if (dto.getMembershipLevel() != null) {
+            customer.setMembershipLevel(dto.getMembershipLevel());
+        }
+        if (dto.getCommunicationPreference() != null) {
+            customer.setCommunicationPreference(dto.getCommunicationPreference());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        customer.setCreatedAt(now);
+        customer.setUpdatedAt(now);
+        return customer;
+    }
+}
@@ -1,21 +1,39 @@
 package com.merchant.server.businessservice.service.impl;
 
+import com.merchant.server.businessservice.cache.CustomerDetailCache;
+import com.merchant.server.businessservice.cache.CustomerLeaderboard;
+import com.merchant.server.businessservice.cache.CustomerStatsCache;
+import com.merchant.server.businessservice.dto.CustomerCursor;
 import com.merchant.server.businessservice.dto.CustomerDTO;
+import com.merchant.server.businessservice.dto.CustomerListField;
+import com.merchant.server.businessservice.dto.CustomerPageQuery;
+import com.merchant.server.businessservice.dto.CustomerSortField;
 import com.merchant.server.businessservice.entity.Customer;
+import com.merchant.server.businessservice.entity.CustomerAppointmentSummary;
+import com.merchant.server.businessservice.entity.CustomerStats;
 import com.merchant.server.businessservice.mapper.AppointmentMapper;
 import com.merchant.server.businessservice.mapper.CustomerMapper;
+import com.merchant.server.businessservice.search.CustomerSearchIndex;
 import com.merchant.server.businessservice.service.CustomerService;
-import org.springframework.beans.BeanUtils;
+import com.merchant.server.businessservice.service.support.CustomerPreferredServices;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 
 import org.springframework.stereotype.Service;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -32,47 +50,158 @@ public class CustomerServiceImpl implements CustomerService {
     @Autowired
     private AppointmentMapper appointmentMapper;
     
+    @Autowired
+    private CustomerPreferredServices customerPreferredServices;
+    
+    @Autowired
+    private CustomerSearchIndex customerSearchIndex;
+    
+    @Autowired
+    private CustomerStatsCache customerStatsCache;
+    
+    @Autowired
+    private CustomerLeaderboard customerLeaderboard;
+    
+    @Autowired
+    private CustomerDetailCache customerDetailCache;
+    
+    @Autowired
+    @Qualifier("customerDetailExecutor")
+    private ThreadPoolTaskExecutor customerDetailExecutor;
+    
+    @Value("${customer.list.estimated-count-cap:10000}")
+    private int estimatedCountCap;
+    
+    @Value("${customer.search.max-index-ids:2000}")
+    private int maxIndexIds;
+    
+    // 客户的 updated_at 早于提交时间的最大跨度（长事务、实例间时钟偏差），快照前这段时间内修改的客户也作为候选
+    @Value("${customer.search.write-lag-seconds:60}")
+    private long indexWriteLagSeconds;
+    
     @Override
     public Page<Customer> getCustomers(Long tenantId, String keyword, Customer.CustomerStatus status, Customer.MembershipLevel level, Pageable pageable) {
         try {
-            // 从Pageable中提取排序信息
-            String sortBy = "updatedAt"; // 默认排序字段
-            String sortDir = "DESC"; // 默认排序方向
+            CustomerPageQuery query = new CustomerPageQuery();
+            query.setTenantId(tenantId);
+            query.setKeyword(keyword);
+            query.setStatus(status);
+            query.setLevel(level);
             
+            // 从Pageable中提取排序信息
             if (pageable.getSort().isSorted()) {
                 Sort.Order order = pageable.getSort().iterator().next();
-                sortBy = order.getProperty();
-                sortDir = order.getDirection().name();
+                query.setSortBy(order.getProperty());
+                query.setSortDir(order.getDirection().name());
             }
             
-            // 获取所有符合条件的客户（已排序）
-            List<Customer> all = customerMapper.findByCondition(tenantId, keyword, status, level, sortBy, sortDir);
+            applyKeywordIndex(query);
             
-            // 手动分页
-            int start = (int) pageable.getOffset();
-            int end = Math.min((start + pageable.getPageSize()), all.size());
-            List<Customer> pageContent = start < all.size() ? all.subList(start, end) : new ArrayList<>();
+            // 分页下推到数据库
+            query.setOffset((int) pageable.getOffset());
+            query.setLimit(pageable.getPageSize());
+            List<Customer> pageContent = customerPreferredServices.load(customerMapper.selectPage(query));
             
-            return new PageImpl<>(pageContent, pageable, all.size());
+            return new PageImpl<>(pageContent, pageable, customerMapper.countPage(query));
         } catch (Exception e) {
             throw new RuntimeException("Failed to get customers: " + e.getMessage(), e);
         }
     }
     
     @Override
+    public CustomerPageResult getCustomerPage(CustomerPageQuery query, String cursor, CountMode countMode) {
+        CustomerSortField sortField = CustomerSortField.fromProperty(query.getSortBy());
+        query.setSortBy(sortField.getProperty());
+        query.setSortDir("ASC".equalsIgnoreCase(query.getSortDir()) ? "ASC" : "DESC");
+        if (query.getListFields() != null) {
+            query.setColumns(CustomerListField.columns(query.getListFields(), sortField.getColumn()));
+        }
+        if (StringUtils.hasText(cursor)) {
+            query.applyCursor(CustomerCursor.decode(cursor));
+        }
+        applyKeywordIndex(query);
+        
+        // 多取一行用于判断是否还有下一页
+        int pageSize = query.getLimit();
+        query.setLimit(pageSize + 1);
+        boolean projection = query.getColumns() != null;
+        List<Customer> rows = projection ? customerMapper.selectListPage(query) : customerMapper.selectPage(query);
+        query.setLimit(pageSize);
+        
+        boolean hasNext = rows.size() > pageSize;
+        List<Customer> customers = hasNext ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+        if (!projection) {
+            customerPreferredServices.load(customers);
+        }
+        String nextCursor = hasNext
+            ? CustomerCursor.after(customers.get(customers.size() - 1), sortField, query.getSortDir()).encode()
+            : null;
+        
+        Long totalItems = null;
+        boolean totalExact = false;
+        if (countMode == CountMode.EXACT) {
+            totalItems = customerMapper.countPage(query);
+            totalExact = true;
+        } else if (countMode == CountMode.ESTIMATED) {
+            query.setCountCap(estimatedCountCap);
+            totalItems = customerMapper.countPageBounded(query);
+            totalExact = totalItems < estimatedCountCap;
+        }
+        
+        return new CustomerPageResult(customers, nextCursor, hasNext, totalItems, totalExact);
+    }
+    
+    /**
+     * 关键字不少于3个字符时用内存索引给出候选客户ID，LIKE '%kw%' 只需检查这些行
+     * 索引是本实例的快照，快照之后修改过的客户（含其他实例的修改）一并作为候选，由 LIKE 决定是否匹配
+     * 短关键字或候选过多时不限定候选范围
+     */
+    private void applyKeywordIndex(CustomerPageQuery query) {
+        String keyword = query.getKeyword() != null ? query.getKeyword().trim() : "";
+        if (keyword.length() < 3) {
+            return;
+        }
+        CustomerSearchIndex.Match match = customerSearchIndex.match(query.getTenantId(), keyword, maxIndexIds + 1);
+        if (match.ids().size() > maxIndexIds) {
+            return;
+        }
+        Set<Long> candidates = new LinkedHashSet<>(match.ids());
+        candidates.addAll(customerMapper.selectIdsUpdatedSince(query.getTenantId(),
+            match.indexedAt().minusSeconds(indexWriteLagSeconds), maxIndexIds + 1));
+        if (candidates.size() <= maxIndexIds) {
+            query.setKeywordIds(new ArrayList<>(candidates));
+        }
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public CustomerDTO getCustomerById(Long id) {
+        CustomerDTO cached = customerDetailCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        
+        long generation = customerDetailCache.beginLoad();
+        long start = System.nanoTime();
+        
+        // 客户信息与预约统计互不依赖，并行查询
+        CompletableFuture<CustomerAppointmentSummary> summaryFuture = CompletableFuture.supplyAsync(
+            () -> appointmentMapper.selectCustomerAppointmentSummary(id), customerDetailExecutor);
         Customer customer = customerMapper.selectById(id);
         if (customer == null) {
+            summaryFuture.cancel(false);
             throw new RuntimeException("Customer not found with id: " + id);
         }
         
         CustomerDTO dto = convertToDTO(customer);
         
         // 添加统计信息
-        dto.setTotalAppointments(appointmentMapper.countByCustomerId(id));
-        dto.setCompletedAppointments(appointmentMapper.countByCustomerIdAndStatus(id, "COMPLETED"));
-        dto.setAverageRating(appointmentMapper.getCustomerAverageRating(id));
+        CustomerAppointmentSummary summary = summaryFuture.join();
+        dto.setTotalAppointments(summary.getTotalAppointments());
+        dto.setCompletedAppointments(summary.getCompletedAppointments());
+        dto.setAverageRating(summary.getAverageRating());
         
+        customerDetailCache.put(id, dto, generation, System.nanoTime() - start);
         return dto;
     }
     
@@ -98,6 +227,9 @@ public class CustomerServiceImpl implements CustomerService {
         if (customer.getPreferredServiceIds() != null && !customer.getPreferredServiceIds().isEmpty()) {
             customerMapper.insertPreferredServices(customer.getId(), customer.getPreferredServiceIds());
         }
+        customerSearchIndex.onCustomerSaved(customer);
+        customerStatsCache.onCustomerCreated(customer);
+        customerLeaderboard.onCustomerSaved(customer);
         
         return convertToDTO(customer);
     }
@@ -115,17 +247,23 @@ public class CustomerServiceImpl implements CustomerService {
             throw new RuntimeException("Customer with phone number already exists: " + customerDTO.getPhone());
         }
         
-        // 更新字段
-        BeanUtils.copyProperties(customerDTO, existingCustomer, "id", "createdAt", "updatedAt");
+        CustomerStatsCache.Contribution before = customerStatsCache.contributionOf(existingCustomer);
+        List<Long> currentServiceIds = existingCustomer.getPreferredServiceIds();
+        
+        // 更新字段（id、创建时间不变）
+        applyUpdate(customerDTO, existingCustomer);
         existingCustomer.setUpdatedAt(LocalDateTime.now());
         
         customerMapper.update(existingCustomer);
         
-        // 更新偏好服务
-        customerMapper.deletePreferredServices(id);
-        if (existingCustomer.getPreferredServiceIds() != null && !existingCustomer.getPreferredServiceIds().isEmpty()) {
-            customerMapper.insertPreferredServices(id, existingCustomer.getPreferredServiceIds());
-        }
+        // 更新偏好服务：只写入有变化的部分
+        customerPreferredServices.sync(
+            Collections.singletonMap(id, currentServiceIds),
+            Collections.singletonMap(id, existingCustomer.getPreferredServiceIds()));
+        customerSearchIndex.onCustomerSaved(existingCustomer);
+        customerStatsCache.onCustomerUpdated(before, existingCustomer);
+        customerLeaderboard.onCustomerSaved(existingCustomer);
+        customerDetailCache.invalidate(id);
         
         return convertToDTO(existingCustomer);
     }
@@ -137,6 +275,10 @@ public class CustomerServiceImpl implements CustomerService {
             throw new RuntimeException("Customer not found with id: " + id);
         }
         customerMapper.deleteById(id);
+        customerSearchIndex.onCustomerDeleted(customer.getTenantId(), id);
+        customerStatsCache.onCustomerDeleted(customer);
+        customerLeaderboard.onCustomerDeleted(customer.getTenantId(), id);
+        customerDetailCache.invalidate(id);
     }
     
     @Override
@@ -150,31 +292,43 @@ public class CustomerServiceImpl implements CustomerService {
     
     @Override
     public CustomerStatsDTO getCustomerStats(Long tenantId) {
-        long totalCustomers = customerMapper.countByTenantId(tenantId);
-        long activeCustomers = customerMapper.countByTenantIdAndStatus(tenantId, "ACTIVE");
-        long vipCustomers = customerMapper.countVipCustomers(tenantId);
-        
-        // 计算平均消费
-        List<Customer> customers = customerMapper.selectByTenantId(tenantId, 0, Integer.MAX_VALUE, "id", "ASC");
-        double averageSpending = customers.stream()
-            .mapToDouble(c -> c.getTotalSpent() != null ? c.getTotalSpent().doubleValue() : 0.0)
-            .average()
-            .orElse(0.0);
-        
-        return new CustomerStatsDTO(totalCustomers, activeCustomers, vipCustomers, averageSpending);
+        CustomerStats stats = customerStatsCache.get(tenantId);
+        
+        // 平均消费 = 消费总额 / 客户总数
+        double averageSpending = stats.getTotalCustomers() > 0
+            ? stats.getTotalSpent().doubleValue() / stats.getTotalCustomers()
+            : 0.0;
+        
+        return new CustomerStatsDTO(stats.getTotalCustomers(), stats.getActiveCustomers(), stats.getVipCustomers(), averageSpending);
     }
     
     @Override
     public List<CustomerDTO> getTopSpendingCustomers(Long tenantId, int limit) {
-        List<Customer> customers = customerMapper.selectTopSpendingCustomers(tenantId, limit);
-        return customers.stream()
+        return customerLeaderboard.top(tenantId, limit).stream()
             .map(this::convertToDTO)
             .collect(Collectors.toList());
     }
     
     private CustomerDTO convertToDTO(Customer customer) {
         CustomerDTO dto = new CustomerDTO();
-        BeanUtils.copyProperties(customer, dto);
+        dto.setId(customer.getId());
+        dto.setTenantId(customer.getTenantId());
+        dto.setFirstName(customer.getFirstName());
+        dto.setLastName(customer.getLastName());
+        dto.setPhone(customer.getPhone());
+        dto.setEmail(customer.getEmail());
+        dto.setAddress(customer.getAddress());
+        dto.setDateOfBirth(customer.getDateOfBirth());
+        dto.setGender(customer.getGender());
+        dto.setMembershipLevel(customer.getMembershipLevel());
+        dto.setPoints(customer.getPoints());
+        dto.setTotalSpent(customer.getTotalSpent());
+        dto.setStatus(customer.getStatus());
+        dto.setNotes(customer.getNotes());
+        dto.setAllergies(customer.getAllergies());
+        dto.setCommunicationPreference(customer.getCommunicationPreference());
+        dto.setCreatedAt(customer.getCreatedAt());
+        dto.setUpdatedAt(customer.getUpdatedAt());
         
         // 设置全名
         dto.setFullName(customer.getFullName());
@@ -188,6 +342,29 @@ public class CustomerServiceImpl implements CustomerService {
         return dto;
     }
     
+    /**
+     * 用请求中的字段覆盖客户资料，未传的字段同样置空
+     */
+    private void applyUpdate(CustomerDTO dto, Customer customer) {
+        customer.setTenantId(dto.getTenantId());
+        customer.setFirstName(dto.getFirstName());
+        customer.setLastName(dto.getLastName());
+        customer.setPhone(dto.getPhone());
+        customer.setEmail(dto.getEmail());
+        customer.setAddress(dto.getAddress());
+        customer.setDateOfBirth(dto.getDateOfBirth());
+        customer.setGender(dto.getGender());
+        customer.setMembershipLevel(dto.getMembershipLevel());
+        customer.setPoints(dto.getPoints());
+        customer.setTotalSpent(dto.getTotalSpent());
+        customer.setStatus(dto.getStatus());
+        customer.setNotes(dto.getNotes());
+        customer.setAllergies(dto.getAllergies());
+        customer.setCommunicationPreference(dto.getCommunicationPreference());
+        customer.setLastVisitDate(dto.getLastVisit());
+        customer.setPreferredServiceIds(dto.getPreferredServiceIds());
+    }
+    
     private Customer convertToEntity(CustomerDTO dto) {
         Customer customer = new Customer();
         
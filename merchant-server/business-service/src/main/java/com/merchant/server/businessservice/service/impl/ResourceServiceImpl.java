@@ -1,8 +1,21 @@
 package com.merchant.server.businessservice.service.impl;
 
+import com.merchant.server.businessservice.availability.BookingGuard;
+import com.merchant.server.businessservice.availability.ResourceBookingIndex;
+import com.merchant.server.businessservice.availability.SlotBitmap;
+import com.merchant.server.businessservice.availability.WeeklyHours;
+import com.merchant.server.businessservice.availability.WeeklyHoursIndex;
+import com.merchant.server.businessservice.cache.OccupancyCache;
+import com.merchant.server.businessservice.cache.ResourceCatalogCache;
+import com.merchant.server.businessservice.cache.ServiceEligibilityIndex;
+import com.merchant.server.businessservice.dto.ResourceCatalog;
+import com.merchant.server.businessservice.dto.ResourceOccupancy;
+import com.merchant.server.businessservice.dto.ResourceSlots;
+import com.merchant.server.businessservice.entity.Appointment;
 import com.merchant.server.businessservice.entity.Resource;
 import com.merchant.server.businessservice.entity.ResourceAvailability;
 import com.merchant.server.businessservice.entity.Staff;
+import com.merchant.server.businessservice.mapper.AppointmentMapper;
 import com.merchant.server.businessservice.mapper.ResourceMapper;
 import com.merchant.server.businessservice.mapper.StaffMapper;
 import com.merchant.server.businessservice.service.ResourceService;
@@ -15,7 +28,14 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -24,19 +44,23 @@ public class ResourceServiceImpl implements ResourceService {
 
     private final ResourceMapper resourceMapper;
     private final StaffMapper staffMapper;
+    private final AppointmentMapper appointmentMapper;
+    private final ResourceBookingIndex bookingIndex;
+    private final BookingGuard bookingGuard;
+    private final OccupancyCache occupancyCache;
+    private final ResourceCatalogCache resourceCatalogCache;
+    private final WeeklyHoursIndex weeklyHoursIndex;
+    private final ServiceEligibilityIndex serviceEligibilityIndex;
 
     @Override
     public List<Resource> getAllResourcesByTenantId(Long tenantId) {
         log.info("Getting all resources for tenant: {}", tenantId);
-        List<Resource> resources = resourceMapper.findByTenantId(tenantId);
-        
-        // 为每个资源加载可用性信息
-        for (Resource resource : resources) {
-            List<ResourceAvailability> availabilities = resourceMapper.findAvailabilitiesByResourceId(resource.getId());
-            resource.setAvailabilities(availabilities);
-        }
-        
-        return resources;
+        return resourceCatalogCache.get(tenantId).resources();
+    }
+
+    @Override
+    public ResourceCatalog getResourceCatalog(Long tenantId) {
+        return resourceCatalogCache.get(tenantId);
     }
 
     @Override
@@ -50,13 +74,210 @@ public class ResourceServiceImpl implements ResourceService {
     @Override
     public List<Resource> getAvailableResourcesByService(Long serviceId, Long tenantId) {
         log.info("Getting available resources for service: {} in tenant: {}", serviceId, tenantId);
-        return resourceMapper.findAvailableResourcesByService(serviceId, tenantId);
+        return serviceEligibilityIndex.eligibleResources(tenantId, serviceId);
+    }
+
+    @Override
+    public void refreshServiceEligibility(Long tenantId) {
+        log.info("Refreshing service eligibility rules for tenant: {}", tenantId);
+        serviceEligibilityIndex.invalidateRules(tenantId);
     }
 
     @Override
     public boolean checkResourceAvailability(Long resourceId, LocalDate date, LocalTime startTime, LocalTime endTime) {
-        log.info("Checking availability for resource: {} on {} from {} to {}", resourceId, date, startTime, endTime);
-        return resourceMapper.isResourceAvailable(resourceId, date, startTime, endTime);
+        log.debug("Checking availability for resource: {} on {} from {} to {}", resourceId, date, startTime, endTime);
+        int capacity = capacityOf(resourceMapper.findById(resourceId));
+        if (capacity > 1) {
+            int startMinute = minuteOf(startTime);
+            int endMinute = minuteOf(endTime);
+            return bookingIndex.hasCapacity(resourceId, date, startMinute, endMinute, capacity, () -> {
+                List<ResourceBookingIndex.Booking> bookings = appointmentMapper
+                    .selectBookedSlotsByResourceIds(Collections.singletonList(resourceId), date, date).stream()
+                    .map(bookingIndex::bookingOf)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+                return ResourceBookingIndex.peakConcurrency(bookings, startMinute, endMinute) < capacity;
+            });
+        }
+        return bookingIndex.isAvailable(resourceId, date, startTime, endTime,
+            () -> resourceMapper.isResourceAvailable(resourceId, date, startTime, endTime));
+    }
+
+    @Override
+    public Map<String, Object> getAvailabilityIndexStats() {
+        Map<String, Object> stats = new HashMap<>(bookingIndex.stats());
+        stats.put("bookingGuard", bookingGuard.stats());
+        stats.put("occupancyCache", occupancyCache.stats());
+        stats.put("resourceCatalog", resourceCatalogCache.stats());
+        stats.put("weeklyHours", weeklyHoursIndex.stats());
+        stats.put("serviceEligibility", serviceEligibilityIndex.stats());
+        return stats;
+    }
+
+    @Override
+    public List<ResourceSlots> findFreeSlots(Long tenantId, Long serviceId, LocalDate date, int days, int duration) {
+        long start = System.nanoTime();
+        List<Resource> resources = serviceEligibilityIndex.eligibleResources(tenantId, serviceId);
+        List<ResourceSlots> result = new ArrayList<>(resources.size());
+        if (resources.isEmpty()) {
+            return result;
+        }
+        List<Long> resourceIds = resources.stream().map(Resource::getId).collect(Collectors.toList());
+        LocalDate endDate = date.plusDays(days - 1L);
+        Map<Long, WeeklyHours> weeklyHours = weeklyHoursIndex.getAll(resourceIds);
+        Map<Long, Map<LocalDate, SlotBitmap>> busy = loadBusySlots(resources, date, endDate);
+
+        int slotCount = (duration + SlotBitmap.SLOT_MINUTES - 1) / SlotBitmap.SLOT_MINUTES;
+        LocalDateTime now = LocalDateTime.now();
+        for (Resource resource : resources) {
+            ResourceSlots slots = new ResourceSlots();
+            slots.setResourceId(resource.getId());
+            slots.setResourceName(resource.getName());
+            slots.setResourceType(resource.getType());
+            // 没有配置可用时段的资源不限制营业时间，与预约时的检查一致
+            WeeklyHours hours = weeklyHours.get(resource.getId());
+            for (LocalDate day = date; !day.isAfter(endDate); day = day.plusDays(1)) {
+                SlotBitmap free = hours.day(day.getDayOfWeek()).andNot(busy.get(resource.getId()).get(day));
+                if (day.equals(now.toLocalDate())) {
+                    free.clearBefore(now.getHour() * 60 + now.getMinute());
+                }
+                SlotBitmap starts = free.fittingStarts(slotCount);
+                if (!starts.isEmpty()) {
+                    slots.getSlots().put(day.toString(), starts.startTimes().stream()
+                        .map(LocalTime::toString)
+                        .collect(Collectors.toList()));
+                }
+            }
+            result.add(slots);
+        }
+        log.debug("Computed free slots for service {} ({} resources, {} days) in {} µs",
+            serviceId, resources.size(), days, (System.nanoTime() - start) / 1000);
+        return result;
+    }
+
+    @Override
+    public List<Resource> getWorkingResources(Long tenantId, LocalDateTime at) {
+        List<Resource> resources = resourceCatalogCache.get(tenantId).resources();
+        Map<Long, WeeklyHours> weeklyHours = weeklyHoursIndex.getAll(
+            resources.stream().map(Resource::getId).collect(Collectors.toList()));
+        int minute = minuteOf(at.toLocalTime());
+        return resources.stream()
+            .filter(resource -> resource.getStatus() == Resource.ResourceStatus.ACTIVE)
+            .filter(resource -> weeklyHours.get(resource.getId()).isOpenAt(at.getDayOfWeek(), minute))
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<ResourceOccupancy> getWeeklyOccupancy(Long tenantId, LocalDate date, int bucketMinutes) {
+        LocalDate weekStart = OccupancyCache.weekStartOf(date);
+        return occupancyCache.get(tenantId, weekStart, bucketMinutes, () -> {
+            long start = System.nanoTime();
+            LocalDate weekEnd = weekStart.plusDays(6);
+            List<Resource> resources = resourceMapper.findByTenantId(tenantId);
+            List<Appointment> appointments = appointmentMapper.selectOccupancyByTenant(tenantId, weekStart, weekEnd);
+            List<ResourceOccupancy> result = aggregateOccupancy(resources, appointments, weekStart, bucketMinutes);
+            log.debug("Computed occupancy for tenant {} week {} ({} resources, {} appointments) in {} µs",
+                tenantId, weekStart, resources.size(), appointments.size(), (System.nanoTime() - start) / 1000);
+            return result;
+        });
+    }
+
+    /**
+     * 将一周的预约按资源、日期和时间段累加占用分钟数；跨过午夜的预约只计到当天 24:00，
+     * 不属于给定资源（如已删除资源）的预约忽略
+     */
+    static List<ResourceOccupancy> aggregateOccupancy(List<Resource> resources, List<Appointment> appointments,
+                                                      LocalDate weekStart, int bucketMinutes) {
+        int bucketCount = 24 * 60 / bucketMinutes;
+        Map<Long, int[][]> byResource = new HashMap<>();
+        for (Resource resource : resources) {
+            byResource.put(resource.getId(), new int[7][bucketCount]);
+        }
+        for (Appointment appointment : appointments) {
+            int[][] week = byResource.get(appointment.getResourceId());
+            int day = (int) (appointment.getAppointmentDate().toEpochDay() - weekStart.toEpochDay());
+            if (week == null || day < 0 || day >= 7 || appointment.getDuration() == null) {
+                continue;
+            }
+            int startMinute = minuteOf(appointment.getAppointmentTime());
+            int endMinute = Math.min(startMinute + appointment.getDuration(), 24 * 60);
+            int[] buckets = week[day];
+            for (int bucket = startMinute / bucketMinutes; bucket * bucketMinutes < endMinute; bucket++) {
+                int bucketStart = bucket * bucketMinutes;
+                buckets[bucket] += Math.min(endMinute, bucketStart + bucketMinutes) - Math.max(startMinute, bucketStart);
+            }
+        }
+        List<ResourceOccupancy> result = new ArrayList<>(resources.size());
+        for (Resource resource : resources) {
+            ResourceOccupancy occupancy = new ResourceOccupancy();
+            occupancy.setResourceId(resource.getId());
+            occupancy.setResourceName(resource.getName());
+            occupancy.setResourceType(resource.getType());
+            int[][] week = byResource.get(resource.getId());
+            for (int day = 0; day < 7; day++) {
+                occupancy.getOccupancy().put(weekStart.plusDays(day).toString(), week[day]);
+            }
+            result.add(occupancy);
+        }
+        return result;
+    }
+
+    /**
+     * 每个资源每天不可再预约的时段（容量为 1 的资源为已占用时段，其余为占用数达到容量的时段）：
+     * 优先读取内存占用索引，索引无法确定的 (资源, 日期) 用一条查询补齐
+     */
+    private Map<Long, Map<LocalDate, SlotBitmap>> loadBusySlots(List<Resource> resources, LocalDate startDate, LocalDate endDate) {
+        Map<Long, Map<LocalDate, SlotBitmap>> busy = new HashMap<>();
+        Map<Long, Map<LocalDate, SlotBitmap>> missing = new HashMap<>();
+        Map<Long, Integer> capacities = new HashMap<>();
+        for (Resource resource : resources) {
+            Long resourceId = resource.getId();
+            int capacity = capacityOf(resource);
+            capacities.put(resourceId, capacity);
+            Map<LocalDate, SlotBitmap> byDay = busy.computeIfAbsent(resourceId, id -> new HashMap<>());
+            for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+                SlotBitmap booked = new SlotBitmap();
+                byDay.put(day, booked);
+                if (!bookingIndex.markFull(resourceId, day, capacity, booked)) {
+                    missing.computeIfAbsent(resourceId, id -> new HashMap<>()).put(day, booked);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            List<Appointment> appointments = appointmentMapper.selectBookedSlotsByResourceIds(
+                new ArrayList<>(missing.keySet()), startDate, endDate);
+            // 容量大于 1 的资源先按时段计数，再取达到容量的时段
+            Map<SlotBitmap, int[]> counts = new IdentityHashMap<>();
+            for (Appointment appointment : appointments) {
+                ResourceBookingIndex.Booking booking = bookingIndex.bookingOf(appointment);
+                Map<LocalDate, SlotBitmap> byDay = booking != null ? missing.get(booking.getResourceId()) : null;
+                SlotBitmap booked = byDay != null ? byDay.get(booking.getDate()) : null;
+                if (booked == null) {
+                    continue;
+                }
+                if (capacities.get(booking.getResourceId()) > 1) {
+                    SlotBitmap.countTouching(counts.computeIfAbsent(booked, b -> new int[SlotBitmap.SLOTS_PER_DAY]),
+                        booking.getStartMinute(), booking.getEndMinute());
+                } else {
+                    booked.setTouching(booking.getStartMinute(), booking.getEndMinute());
+                }
+            }
+            missing.forEach((resourceId, byDay) -> byDay.values().forEach(booked -> {
+                int[] slotCounts = counts.get(booked);
+                if (slotCounts != null) {
+                    booked.or(SlotBitmap.atLeast(slotCounts, capacities.get(resourceId)));
+                }
+            }));
+        }
+        return busy;
+    }
+
+    private static int capacityOf(Resource resource) {
+        return resource != null && resource.getCapacity() != null ? Math.max(resource.getCapacity(), 1) : 1;
+    }
+
+    private static int minuteOf(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
     }
 
     @Override
@@ -73,6 +294,7 @@ public class ResourceServiceImpl implements ResourceService {
         
         resourceMapper.insert(resource);
         log.info("Resource created with ID: {}", resource.getId());
+        onResourcesChanged(resource.getTenantId());
         
         return resource;
     }
@@ -83,6 +305,11 @@ public class ResourceServiceImpl implements ResourceService {
         log.info("Updating resource: {}", resource.getId());
         resource.setUpdatedAt(LocalDateTime.now());
         resourceMapper.update(resource);
+        // 请求体可能不带租户，按ID补查
+        Resource stored = resource.getTenantId() != null ? resource : resourceMapper.findById(resource.getId());
+        if (stored != null) {
+            onResourcesChanged(stored.getTenantId());
+        }
         return resource;
     }
 
@@ -97,6 +324,7 @@ public class ResourceServiceImpl implements ResourceService {
             resource.setStatus(Resource.ResourceStatus.DELETED);
             resource.setUpdatedAt(LocalDateTime.now());
             resourceMapper.update(resource);
+            onResourcesChanged(resource.getTenantId());
             log.info("Resource {} marked as DELETED", id);
         } else {
             log.warn("Resource {} not found for deletion", id);
@@ -108,8 +336,11 @@ public class ResourceServiceImpl implements ResourceService {
         log.info("Getting resource by id: {}", id);
         Resource resource = resourceMapper.findActiveById(id);
         if (resource != null) {
-            List<ResourceAvailability> availabilities = resourceMapper.findAvailabilitiesByResourceId(id);
-            resource.setAvailabilities(availabilities);
+            // 可用时段从租户资源目录中读取
+            Resource cached = resourceCatalogCache.get(resource.getTenantId()).find(id);
+            resource.setAvailabilities(cached != null && cached.getAvailabilities() != null
+                ? new ArrayList<>(cached.getAvailabilities())
+                : resourceMapper.findAvailabilitiesByResourceId(id));
         }
         return resource;
     }
@@ -118,17 +349,66 @@ public class ResourceServiceImpl implements ResourceService {
     @Transactional
     public void setResourceAvailability(Long resourceId, List<ResourceAvailability> availabilities) {
         log.info("Setting availability for resource: {}", resourceId);
-        
-        // 先删除现有的可用性记录
-        resourceMapper.deleteAvailabilitiesByResourceId(resourceId);
-        
-        // 插入新的可用性记录
-        for (ResourceAvailability availability : availabilities) {
-            availability.setResourceId(resourceId);
-            availability.setCreatedAt(LocalDateTime.now());
-            availability.setUpdatedAt(LocalDateTime.now());
-            resourceMapper.insertAvailability(availability);
+        setResourceAvailabilities(Collections.singletonMap(resourceId, availabilities));
+    }
+
+    @Override
+    @Transactional
+    public void setResourceAvailabilities(Map<Long, List<ResourceAvailability>> availabilitiesByResource) {
+        if (availabilitiesByResource.isEmpty()) {
+            return;
         }
+        List<Long> resourceIds = new ArrayList<>(availabilitiesByResource.keySet());
+        List<Resource> resources = resourceMapper.findByIds(resourceIds);
+        if (resources.size() != resourceIds.size()) {
+            Set<Long> found = resources.stream().map(Resource::getId).collect(Collectors.toSet());
+            throw new RuntimeException("Resources not found: " + resourceIds.stream()
+                .filter(id -> !found.contains(id))
+                .collect(Collectors.toList()));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<ResourceAvailability> rows = new ArrayList<>();
+        availabilitiesByResource.forEach((resourceId, availabilities) -> {
+            if (availabilities == null) {
+                return;
+            }
+            for (ResourceAvailability availability : availabilities) {
+                if (availability.getDayOfWeek() == null || availability.getDayOfWeek() < 1 || availability.getDayOfWeek() > 7
+                        || availability.getStartTime() == null || availability.getEndTime() == null) {
+                    throw new RuntimeException("Availability of resource " + resourceId
+                        + " requires dayOfWeek 1-7, startTime and endTime");
+                }
+                availability.setResourceId(resourceId);
+                if (availability.getIsAvailable() == null) {
+                    availability.setIsAvailable(true);
+                }
+                availability.setCreatedAt(now);
+                availability.setUpdatedAt(now);
+                rows.add(availability);
+            }
+        });
+
+        // 按 (资源, 星期, 开始, 结束) 比对：删除不再存在的时段，新增或更新其余时段，语句数与行数无关
+        int deleted = resourceMapper.deleteAvailabilitiesNotIn(resourceIds, rows);
+        if (!rows.isEmpty()) {
+            resourceMapper.upsertAvailabilities(rows);
+        }
+        log.info("Set {} availability rows for {} resources ({} removed)", rows.size(), resourceIds.size(), deleted);
+
+        resourceIds.forEach(weeklyHoursIndex::invalidate);
+        resources.stream()
+            .map(Resource::getTenantId)
+            .distinct()
+            .forEach(this::onResourcesChanged);
+    }
+
+    /**
+     * 租户的资源或可用时段变更后，提交时失效资源目录和占用热力图
+     */
+    private void onResourcesChanged(Long tenantId) {
+        resourceCatalogCache.invalidate(tenantId);
+        occupancyCache.invalidateTenant(tenantId);
     }
 
     @Override
@@ -0,0 +1,50 @@
+package com.merchant.server.businessservice.service.support;
+
+import com.merchant.server.businessservice.entity.Appointment;
+import com.merchant.server.businessservice.entity.AppointmentService;
+import com.merchant.server.businessservice.mapper.AppointmentMapper;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 预约服务明细的批量加载
+ *
+ * 预约列表、分页和通知都通过这里填充服务明细，每 {@link #BATCH_SIZE} 个预约只发一条 IN 查询，替代逐条查询。
+ */
+@Component
+public class AppointmentServiceLines {
+
+    public static final int BATCH_SIZE = 1000;
+
+    private final AppointmentMapper appointmentMapper;
+
+    public AppointmentServiceLines(AppointmentMapper appointmentMapper) {
+        this.appointmentMapper = appointmentMapper;
+    }
+
+    /**
+     * 为预约列表批量填充服务详情，返回传入的列表
+     */
+    public List<Appointment> load(List<Appointment> appointments) {
+        if (appointments == null || appointments.isEmpty()) {
+            return appointments;
+        }
+        Map<Long, Appointment> byId = new HashMap<>();
+        for (Appointment appointment : appointments) {
+            appointment.setAppointmentServices(new ArrayList<>());
+            byId.put(appointment.getId(), appointment);
+        }
+        List<Long> ids = new ArrayList<>(byId.keySet());
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+            for (AppointmentService row : appointmentMapper.findAppointmentServicesByAppointmentIds(chunk)) {
+                byId.get(row.getAppointmentId()).getAppointmentServices().add(row);
+            }
+        }
+        return appointments;
+    }
+}
@@ -0,0 +1,113 @@
+package com.merchant.server.businessservice.service.support;
+
+import com.merchant.server.businessservice.entity.Appointment;
+import com.merchant.server.businessservice.mapper.AppointmentMapper;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * 客户预约统计汇总行的增量维护
+ *
+ * 预约写入时按修改前后两个版本的差值累加汇总行，只锁定客户的汇总行，
+ * 不在预约事务里重新扫描客户的全部预约（聚合读取会对预约行加共享锁，与并发预约写入互相死锁）。
+ */
+@Component
+public class CustomerAppointmentStatsUpdater {
+
+    private final AppointmentMapper appointmentMapper;
+
+    public CustomerAppointmentStatsUpdater(AppointmentMapper appointmentMapper) {
+        this.appointmentMapper = appointmentMapper;
+    }
+
+    /**
+     * 记录一次预约变化，before 为 null 表示新增，after 为 null 表示删除
+     */
+    public void onAppointmentChanged(Appointment before, Appointment after) {
+        Contribution removed = Contribution.of(before);
+        Contribution added = Contribution.of(after);
+        if (sameCustomer(before, after)) {
+            apply(after, added.minus(removed));
+            return;
+        }
+        // 涉及两个客户时按客户ID顺序加锁，避免两个换客户的事务互相等待
+        if (counts(before) && counts(after) && after.getCustomerId() < before.getCustomerId()) {
+            apply(after, added);
+            apply(before, Contribution.NONE.minus(removed));
+        } else {
+            apply(before, Contribution.NONE.minus(removed));
+            apply(after, added);
+        }
+    }
+
+    /**
+     * 记录一次只改状态的预约变化，appointment 已是修改后的状态
+     */
+    public void onStatusChanged(Appointment appointment, Appointment.AppointmentStatus oldStatus) {
+        apply(appointment, Contribution.of(appointment, appointment.getStatus())
+            .minus(Contribution.of(appointment, oldStatus)));
+    }
+
+    private void apply(Appointment appointment, Contribution delta) {
+        if (!counts(appointment) || delta.isZero()) {
+            return;
+        }
+        appointmentMapper.addCustomerAppointmentStats(appointment.getTenantId(), appointment.getCustomerId(),
+            delta.total, delta.completed, delta.spent, delta.ratingSum, delta.rated);
+    }
+
+    private static boolean sameCustomer(Appointment before, Appointment after) {
+        return counts(before) && counts(after)
+            && Objects.equals(before.getTenantId(), after.getTenantId())
+            && Objects.equals(before.getCustomerId(), after.getCustomerId());
+    }
+
+    private static boolean counts(Appointment appointment) {
+        return appointment != null && appointment.getTenantId() != null && appointment.getCustomerId() != null;
+    }
+
+    /**
+     * 一个预约计入汇总行的各项数值
+     */
+    private static final class Contribution {
+
+        static final Contribution NONE = new Contribution(0, 0, BigDecimal.ZERO, 0, 0);
+
+        final long total;
+        final long completed;
+        final BigDecimal spent;
+        final long ratingSum;
+        final long rated;
+
+        Contribution(long total, long completed, BigDecimal spent, long ratingSum, long rated) {
+            this.total = total;
+            this.completed = completed;
+            this.spent = spent;
+            this.ratingSum = ratingSum;
+            this.rated = rated;
+        }
+
+        static Contribution of(Appointment appointment) {
+            return counts(appointment) ? of(appointment, appointment.getStatus()) : NONE;
+        }
+
+        static Contribution of(Appointment appointment, Appointment.AppointmentStatus status) {
+            boolean completed = status == Appointment.AppointmentStatus.COMPLETED;
+            BigDecimal spent = completed && appointment.getTotalAmount() != null
+                ? appointment.getTotalAmount() : BigDecimal.ZERO;
+            boolean rated = appointment.getRating() != null && appointment.getRating() > 0;
+            return new Contribution(1, completed ? 1 : 0, spent, rated ? appointment.getRating() : 0, rated ? 1 : 0);
+        }
+
+        Contribution minus(Contribution other) {
+            return new Contribution(total - other.total, completed - other.completed,
+                spent.subtract(other.spent), ratingSum - other.ratingSum, rated - other.rated);
+        }
+
+        boolean isZero() {
+            return total == 0 && completed == 0 && spent.signum() == 0 && ratingSum == 0 && rated == 0;
+        }
+    }
+}
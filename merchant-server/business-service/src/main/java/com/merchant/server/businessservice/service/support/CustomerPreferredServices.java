@@ -0,0 +1,96 @@
+package com.merchant.server.businessservice.service.support;
+
+import com.merchant.server.businessservice.entity.Customer;
+import com.merchant.server.businessservice.entity.CustomerPreferredService;
+import com.merchant.server.businessservice.mapper.CustomerMapper;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 客户偏好服务的批量读写
+ *
+ * 偏好服务存放在关联表中，列表、导出、榜单等批量场景都通过这里按批次访问关联表，
+ * 每 {@link #BATCH_SIZE} 个客户只发一条 IN 查询。
+ */
+@Component
+public class CustomerPreferredServices {
+
+    public static final int BATCH_SIZE = 1000;
+
+    private final CustomerMapper customerMapper;
+
+    public CustomerPreferredServices(CustomerMapper customerMapper) {
+        this.customerMapper = customerMapper;
+    }
+
+    /**
+     * 为列表查询结果批量填充偏好服务ID，返回传入的列表
+     * 列表查询的结果映射不再逐行嵌套查询
+     */
+    public List<Customer> load(List<Customer> customers) {
+        if (customers == null || customers.isEmpty()) {
+            return customers;
+        }
+        Map<Long, Customer> byId = new HashMap<>();
+        for (Customer customer : customers) {
+            customer.setPreferredServiceIds(new ArrayList<>());
+            byId.put(customer.getId(), customer);
+        }
+        List<Long> ids = new ArrayList<>(byId.keySet());
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+            for (CustomerPreferredService row : customerMapper.selectPreferredServicesByCustomerIds(chunk)) {
+                byId.get(row.getCustomerId()).getPreferredServiceIds().add(row.getServiceId());
+            }
+        }
+        return customers;
+    }
+
+    /**
+     * 按差异同步多个客户的偏好服务：只删除移除的、只插入新增的，没有变化时不访问关联表
+     *
+     * @param current 客户ID -> 当前偏好服务ID
+     * @param desired 客户ID -> 期望的偏好服务ID（null 或空表示清空）
+     * @return 变更的行数
+     */
+    public int sync(Map<Long, List<Long>> current, Map<Long, List<Long>> desired) {
+        List<CustomerPreferredService> removed = new ArrayList<>();
+        List<CustomerPreferredService> added = new ArrayList<>();
+        for (Map.Entry<Long, List<Long>> entry : desired.entrySet()) {
+            Long customerId = entry.getKey();
+            Set<Long> before = current.get(customerId) != null ? new HashSet<>(current.get(customerId)) : Set.of();
+            Set<Long> after = entry.getValue() != null ? new LinkedHashSet<>(entry.getValue()) : Set.of();
+            for (Long serviceId : before) {
+                if (!after.contains(serviceId)) {
+                    removed.add(link(customerId, serviceId));
+                }
+            }
+            for (Long serviceId : after) {
+                if (serviceId != null && !before.contains(serviceId)) {
+                    added.add(link(customerId, serviceId));
+                }
+            }
+        }
+        for (int from = 0; from < removed.size(); from += BATCH_SIZE) {
+            customerMapper.deletePreferredServiceLinks(removed.subList(from, Math.min(from + BATCH_SIZE, removed.size())));
+        }
+        for (int from = 0; from < added.size(); from += BATCH_SIZE) {
+            customerMapper.insertPreferredServiceLinks(added.subList(from, Math.min(from + BATCH_SIZE, added.size())));
+        }
+        return removed.size() + added.size();
+    }
+
+    private static CustomerPreferredService link(Long customerId, Long serviceId) {
+        CustomerPreferredService link = new CustomerPreferredService();
+        link.setCustomerId(customerId);
+        link.setServiceId(serviceId);
+        return link;
+    }
+}
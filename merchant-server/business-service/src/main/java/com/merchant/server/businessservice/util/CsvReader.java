@@ -0,0 +1,124 @@
+package com.merchant.server.businessservice.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 流式 CSV 读取器（RFC 4180）
+ * 逐条读取记录，支持引号包裹的字段、字段内换行和 "" 转义，不会把整个文件读入内存
+ */
+public class CsvReader {
+
+    private final Reader reader;
+
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+
+    // 下一个字符所在行号（从 1 开始）
+    private long line = 1;
+    // 最近一条记录的起始行号
+    private long recordLine;
+
+    private boolean firstChar = true;
+
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * 读取下一条记录，到达文件末尾时返回 null
+     */
+    public List<String> readRecord() throws IOException {
+        int c = read();
+        // 跳过空行
+        while (c == '\r' || c == '\n') {
+            c = read();
+        }
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Unterminated quoted field starting at line " + recordLine);
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    int next = read();
+                    if (next != '\n') {
+                        unread();
+                    }
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * 最近一条记录的起始行号
+     */
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    private int read() throws IOException {
+        if (position >= limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        char c = buffer[position++];
+        // 去掉 UTF-8 BOM
+        if (firstChar) {
+            firstChar = false;
+            if (c == '\uFEFF') {
+                return read();
+            }
+        }
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+
+    private void unread() {
+        if (position > 0 && limit > 0) {
+            position--;
+            if (buffer[position] == '\n') {
+                line--;
+            }
+        }
+    }
+}
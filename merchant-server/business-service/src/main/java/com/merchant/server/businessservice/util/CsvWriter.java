@@ -0,0 +1,53 @@
+package com.merchant.server.businessservice.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * CSV 写入器（RFC 4180），与 {@link CsvReader} 对应
+ */
+public class CsvWriter {
+
+    private final Writer writer;
+
+    public CsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    public void writeRecord(List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = values.get(i);
+            if (value != null) {
+                writeField(value.toString());
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private void writeField(String field) throws IOException {
+        boolean needsQuotes = false;
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+                needsQuotes = true;
+                break;
+            }
+        }
+        // 以空白开头或结尾的字段也加引号，避免导入时被 trim
+        if (!needsQuotes && !field.isEmpty()
+                && (Character.isWhitespace(field.charAt(0)) || Character.isWhitespace(field.charAt(field.length() - 1)))) {
+            needsQuotes = true;
+        }
+        if (!needsQuotes) {
+            writer.write(field);
+            return;
+        }
+        writer.write('"');
+        writer.write(field.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
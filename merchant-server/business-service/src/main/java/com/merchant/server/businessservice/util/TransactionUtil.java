@@ -0,0 +1,54 @@
+package com.merchant.server.businessservice.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public final class TransactionUtil {
+
+    private TransactionUtil() {
+    }
+
+    /**
+     * 在当前事务提交后执行；没有事务时立即执行
+     * 用于维护内存中的索引/缓存，避免事务回滚后内存状态与数据库不一致
+     */
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 在当前事务结束后执行：提交时先执行 committed，无论提交还是回滚最后都执行 completed；没有事务时依次立即执行
+     * 用于在事务进行期间标记内存状态为“待定”，结束后再清除标记
+     */
+    public static void afterCompletion(Runnable committed, Runnable completed) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    try {
+                        if (status == STATUS_COMMITTED) {
+                            committed.run();
+                        }
+                    } finally {
+                        completed.run();
+                    }
+                }
+            });
+        } else {
+            try {
+                committed.run();
+            } finally {
+                completed.run();
+            }
+        }
+    }
+}
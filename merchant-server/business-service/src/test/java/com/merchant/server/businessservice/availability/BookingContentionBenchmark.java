@@ -0,0 +1,79 @@
+package com.merchant.server.businessservice.availability;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多个并发客户端预约时的吞吐量（含冲突拒绝），数据库行锁和查询由 {@link InMemoryBookings} 模拟
+ * resources=1 时所有请求争用同一资源，资源越多争用越分散；capacity 大于 1 时先经过本实例的时段计数，再持有当天守卫行检查容量。
+ * 运行：mvn -pl business-service test-compile 后执行 main，或在 IDE 中直接运行
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+public class BookingContentionBenchmark {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2026, 11, 2);
+
+    private static final int DAYS = 30;
+
+    @Param({"1", "16", "256"})
+    private int resources;
+
+    @Param({"1", "4"})
+    private int capacity;
+
+    private InMemoryBookings bookings;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bookings = new InMemoryBookings();
+        for (long resourceId = 1; resourceId <= resources; resourceId++) {
+            bookings.setCapacity(resourceId, capacity);
+        }
+    }
+
+    /**
+     * 每轮清空已提交的预约，避免日程被占满后只剩冲突拒绝
+     */
+    @Setup(Level.Iteration)
+    public void clearBookings() {
+        bookings.clear();
+    }
+
+    @Benchmark
+    public boolean book() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long resourceId = 1 + random.nextInt(resources);
+        LocalDate date = FIRST_DAY.plusDays(random.nextInt(DAYS));
+        int start = (8 * 60) + random.nextInt(12 * 12) * 5;
+        int duration = 15 + random.nextInt(12) * 5;
+        return bookings.book(resourceId, date, start, duration);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BookingContentionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
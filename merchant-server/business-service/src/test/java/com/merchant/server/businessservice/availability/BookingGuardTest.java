@@ -0,0 +1,126 @@
+package com.merchant.server.businessservice.availability;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookingGuardTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 11, 2);
+
+    @Test
+    void requiresATransaction() {
+        InMemoryBookings bookings = new InMemoryBookings();
+
+        assertThrows(IllegalStateException.class, () -> bookings.guard()
+            .reserve(null, null, new ResourceBookingIndex.Booking(1L, DAY, 600, 660)));
+    }
+
+    @Test
+    void concurrentBookingsOfTheSameSlotAcceptExactlyOne() throws Exception {
+        InMemoryBookings bookings = new InMemoryBookings();
+
+        for (int round = 0; round < 100; round++) {
+            bookings.clear();
+            assertEquals(1, bookConcurrently(bookings, 16, 600, 60));
+            assertEquals(1, bookings.peakOccupancy(1L, DAY));
+        }
+    }
+
+    @Test
+    void overlappingRandomBookingsNeverDoubleBook() throws Exception {
+        InMemoryBookings bookings = new InMemoryBookings();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            Random random = new Random(5);
+            for (int i = 0; i < 5000; i++) {
+                int start = 480 + random.nextInt(120) * 5;
+                int duration = 15 + random.nextInt(12) * 5;
+                results.add(executor.submit(() -> bookings.book(1L, DAY, start, duration)));
+            }
+            int accepted = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(30, TimeUnit.SECONDS)) {
+                    accepted++;
+                }
+            }
+            assertTrue(accepted > 0);
+            assertEquals(accepted, bookings.count(1L, DAY));
+            assertEquals(1, bookings.peakOccupancy(1L, DAY));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentBookingsOfASharedResourceFillItsCapacity() throws Exception {
+        InMemoryBookings bookings = new InMemoryBookings();
+        bookings.setCapacity(1L, 4);
+
+        for (int round = 0; round < 100; round++) {
+            bookings.clear();
+            assertEquals(4, bookConcurrently(bookings, 32, 600, 60));
+            assertEquals(4, bookings.peakOccupancy(1L, DAY));
+        }
+    }
+
+    @Test
+    void overlappingRandomBookingsNeverExceedCapacity() throws Exception {
+        InMemoryBookings bookings = new InMemoryBookings();
+        bookings.setCapacity(1L, 4);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            Random random = new Random(9);
+            for (int i = 0; i < 5000; i++) {
+                int start = 480 + random.nextInt(120) * 5;
+                int duration = 15 + random.nextInt(12) * 5;
+                results.add(executor.submit(() -> bookings.book(1L, DAY, start, duration)));
+            }
+            for (Future<Boolean> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+            assertEquals(4, bookings.peakOccupancy(1L, DAY));
+            assertEquals(0, bookings.guard().stats().get("slotCounterDays"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int bookConcurrently(InMemoryBookings bookings, int threads, int startMinute, int duration)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CyclicBarrier barrier = new CyclicBarrier(threads);
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    barrier.await();
+                    return bookings.book(1L, DAY, startMinute, duration);
+                }));
+            }
+            int accepted = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(10, TimeUnit.SECONDS)) {
+                    accepted++;
+                }
+            }
+            return accepted;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
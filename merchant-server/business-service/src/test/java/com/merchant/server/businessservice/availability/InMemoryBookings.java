@@ -0,0 +1,180 @@
+package com.merchant.server.businessservice.availability;
+
+import com.merchant.server.businessservice.entity.Appointment;
+import com.merchant.server.businessservice.entity.Resource;
+import com.merchant.server.businessservice.mapper.AppointmentMapper;
+import com.merchant.server.businessservice.mapper.ResourceMapper;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 内存中的预约存储，代替数据库驱动 {@link BookingGuard}
+ *
+ * 守卫行锁用 ReentrantLock 模拟，在模拟事务结束时释放；预约在持有锁期间写入，相当于随事务提交。
+ */
+final class InMemoryBookings {
+
+    private final Map<Long, Integer> capacities = new ConcurrentHashMap<>();
+
+    private final Map<String, List<Appointment>> committed = new ConcurrentHashMap<>();
+
+    private final Map<String, ReentrantLock> rowLocks = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<List<ReentrantLock>> held = ThreadLocal.withInitial(ArrayList::new);
+
+    private final AtomicLong ids = new AtomicLong();
+
+    private final BookingGuard guard;
+
+    InMemoryBookings() {
+        ResourceMapper resourceMapper = (ResourceMapper) Proxy.newProxyInstance(ResourceMapper.class.getClassLoader(),
+            new Class<?>[] {ResourceMapper.class}, (proxy, method, args) -> switch (method.getName()) {
+                case "findById" -> resource((Long) args[0]);
+                case "findAvailabilitiesByResourceIds" -> Collections.emptyList();
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+        AppointmentMapper appointmentMapper = (AppointmentMapper) Proxy.newProxyInstance(
+            AppointmentMapper.class.getClassLoader(), new Class<?>[] {AppointmentMapper.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "lockResourceDay" -> lock("day:" + args[0] + ":" + args[1]);
+                case "countOverlappingBookings", "selectOverlappingBookings" -> {
+                    // 加锁读只能在持有当天守卫行时进行，否则数据库中会出现间隙锁交叉死锁
+                    if (!holdsDay((Long) args[0], (LocalDate) args[1])) {
+                        throw new IllegalStateException("Overlap read without the resource-day guard row");
+                    }
+                    List<Appointment> overlapping = overlapping((Long) args[0], (LocalDate) args[1],
+                        (LocalTime) args[2], (LocalTime) args[3]);
+                    yield "countOverlappingBookings".equals(method.getName()) ? overlapping.size() : overlapping;
+                }
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+        this.guard = new BookingGuard(appointmentMapper, new WeeklyHoursIndex(resourceMapper, 600_000),
+            resourceMapper, new SlotReservations(), 256, 5000);
+    }
+
+    void setCapacity(Long resourceId, int capacity) {
+        capacities.put(resourceId, capacity);
+    }
+
+    BookingGuard guard() {
+        return guard;
+    }
+
+    /**
+     * 在模拟事务内预约 [startMinute, startMinute + duration)，冲突时返回 false
+     */
+    boolean book(Long resourceId, LocalDate date, int startMinute, int duration) {
+        Appointment appointment = new Appointment();
+        appointment.setId(ids.incrementAndGet());
+        appointment.setResourceId(resourceId);
+        appointment.setAppointmentDate(date);
+        appointment.setAppointmentTime(LocalTime.of(startMinute / 60, startMinute % 60));
+        appointment.setDuration(duration);
+        ResourceBookingIndex.Booking booking =
+            new ResourceBookingIndex.Booking(resourceId, date, startMinute, startMinute + duration);
+
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        boolean committed = false;
+        try {
+            guard.reserve(null, null, booking);
+            this.committed.computeIfAbsent(resourceId + ":" + date, key -> Collections.synchronizedList(new ArrayList<>()))
+                .add(appointment);
+            committed = true;
+        } catch (BookingConflictException e) {
+            committed = false;
+        } finally {
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+            held.get().forEach(ReentrantLock::unlock);
+            held.get().clear();
+            int status = committed ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK;
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+        }
+        return committed;
+    }
+
+    /**
+     * 已提交预约在每分钟的最大同时进行数
+     */
+    int peakOccupancy(Long resourceId, LocalDate date) {
+        int[] perMinute = new int[24 * 60];
+        for (Appointment appointment : bookings(resourceId, date)) {
+            int start = minuteOf(appointment.getAppointmentTime());
+            for (int minute = start; minute < Math.min(start + appointment.getDuration(), 24 * 60); minute++) {
+                perMinute[minute]++;
+            }
+        }
+        int peak = 0;
+        for (int count : perMinute) {
+            peak = Math.max(peak, count);
+        }
+        return peak;
+    }
+
+    int count(Long resourceId, LocalDate date) {
+        return bookings(resourceId, date).size();
+    }
+
+    void clear() {
+        committed.clear();
+    }
+
+    private List<Appointment> bookings(Long resourceId, LocalDate date) {
+        List<Appointment> bookings = committed.get(resourceId + ":" + date);
+        if (bookings == null) {
+            return Collections.emptyList();
+        }
+        synchronized (bookings) {
+            return new ArrayList<>(bookings);
+        }
+    }
+
+    private Resource resource(Long resourceId) {
+        Resource resource = new Resource();
+        resource.setId(resourceId);
+        resource.setCapacity(capacities.getOrDefault(resourceId, 1));
+        return resource;
+    }
+
+    private int lock(String row) {
+        ReentrantLock lock = rowLocks.computeIfAbsent(row, key -> new ReentrantLock());
+        lock.lock();
+        held.get().add(lock);
+        return 1;
+    }
+
+    private boolean holdsDay(Long resourceId, LocalDate date) {
+        ReentrantLock lock = rowLocks.get("day:" + resourceId + ":" + date);
+        return lock != null && lock.isHeldByCurrentThread();
+    }
+
+    private List<Appointment> overlapping(Long resourceId, LocalDate date, LocalTime startTime, LocalTime endTime) {
+        int start = minuteOf(startTime);
+        int end = endTime.equals(LocalTime.MAX) ? 24 * 60 : minuteOf(endTime);
+        List<Appointment> result = new ArrayList<>();
+        for (Appointment appointment : bookings(resourceId, date)) {
+            int bookedStart = minuteOf(appointment.getAppointmentTime());
+            if (bookedStart < end && bookedStart + appointment.getDuration() > start) {
+                result.add(appointment);
+            }
+        }
+        return result;
+    }
+
+    private static int minuteOf(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+}
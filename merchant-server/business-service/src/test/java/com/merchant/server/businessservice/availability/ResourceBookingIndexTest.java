@@ -0,0 +1,128 @@
+package com.merchant.server.businessservice.availability;
+
+import com.merchant.server.businessservice.entity.Appointment;
+import com.merchant.server.businessservice.mapper.AppointmentMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ResourceBookingIndexTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 2);
+
+    @Test
+    void peakConcurrencyMatchesBruteForce() {
+        Random random = new Random(42);
+        for (int round = 0; round < 5000; round++) {
+            List<ResourceBookingIndex.Booking> bookings = randomBookings(random, random.nextInt(12));
+            int start = random.nextInt(24 * 60);
+            int end = start + random.nextInt(240);
+            assertEquals(bruteForcePeak(bookings, start, end),
+                ResourceBookingIndex.peakConcurrency(bookings, start, end));
+        }
+    }
+
+    @Test
+    void zeroLengthBookingsDoNotCount() {
+        List<ResourceBookingIndex.Booking> bookings = List.of(
+            booking(600, 600), booking(600, 660), booking(630, 630));
+
+        assertEquals(1, ResourceBookingIndex.peakConcurrency(bookings, 540, 720));
+        assertEquals(0, ResourceBookingIndex.peakConcurrency(bookings, 600, 600));
+    }
+
+    @Test
+    void daySlotsPeakMatchesBruteForce() {
+        Random random = new Random(7);
+        for (int round = 0; round < 5000; round++) {
+            List<ResourceBookingIndex.Booking> bookings = randomBookings(random, random.nextInt(12));
+            ResourceBookingIndex.DaySlots slots = ResourceBookingIndex.DaySlots.EMPTY;
+            long id = 1;
+            for (ResourceBookingIndex.Booking booking : bookings) {
+                slots = slots.with(id++, booking.start, booking.end);
+            }
+            int start = random.nextInt(24 * 60);
+            int end = start + random.nextInt(240);
+            assertEquals(bruteForcePeak(bookings, start, end), slots.peak(start, end));
+        }
+    }
+
+    @Test
+    void daySlotsPeakSkipsBookingsThatEndBeforeTheWindow() {
+        ResourceBookingIndex.DaySlots slots = ResourceBookingIndex.DaySlots.EMPTY
+            .with(1, 480, 540)
+            .with(2, 500, 500)
+            .with(3, 600, 660);
+
+        assertEquals(0, slots.peak(540, 600));
+        assertEquals(1, slots.peak(540, 610));
+    }
+
+    @Test
+    void hasCapacityToleratesZeroDurationAppointments() {
+        AppointmentMapper mapper = mock(AppointmentMapper.class);
+        LocalDate today = LocalDate.now();
+        when(mapper.selectBookedSlots(any(), any())).thenReturn(List.of(
+            appointment(1L, today, LocalTime.of(10, 0), 0),
+            appointment(2L, today, LocalTime.of(10, 0), 60),
+            appointment(3L, today.plusDays(1), LocalTime.of(10, 0), 0)));
+        ResourceBookingIndex index = new ResourceBookingIndex(mapper, 30);
+        index.reload();
+
+        assertTrue(index.hasCapacity(9L, today, 600, 660, 2, () -> fail("index should answer")));
+        assertFalse(index.hasCapacity(9L, today, 600, 660, 1, () -> fail("index should answer")));
+        assertTrue(index.hasCapacity(9L, today, 600, 600, 1, () -> fail("index should answer")));
+        assertTrue(index.hasCapacity(9L, today.plusDays(1), 590, 620, 1, () -> fail("index should answer")));
+    }
+
+    private static List<ResourceBookingIndex.Booking> randomBookings(Random random, int count) {
+        List<ResourceBookingIndex.Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int start = random.nextInt(24 * 60);
+            // 约十分之一为零时长
+            int length = random.nextInt(10) == 0 ? 0 : 5 + random.nextInt(180);
+            bookings.add(booking(start, start + length));
+        }
+        return bookings;
+    }
+
+    private static int bruteForcePeak(List<ResourceBookingIndex.Booking> bookings, int start, int end) {
+        int peak = 0;
+        for (int minute = start; minute < end; minute++) {
+            int active = 0;
+            for (ResourceBookingIndex.Booking booking : bookings) {
+                if (booking.start <= minute && minute < booking.end) {
+                    active++;
+                }
+            }
+            peak = Math.max(peak, active);
+        }
+        return peak;
+    }
+
+    private static ResourceBookingIndex.Booking booking(int start, int end) {
+        return new ResourceBookingIndex.Booking(1L, DAY, start, end);
+    }
+
+    private static Appointment appointment(Long id, LocalDate date, LocalTime time, int duration) {
+        Appointment appointment = new Appointment();
+        appointment.setId(id);
+        appointment.setResourceId(9L);
+        appointment.setAppointmentDate(date);
+        appointment.setAppointmentTime(time);
+        appointment.setDuration(duration);
+        return appointment;
+    }
+}
@@ -0,0 +1,93 @@
+package com.merchant.server.businessservice.availability;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlotBitmapTest {
+
+    @Test
+    void setInsideDropsPartialSlotsAndSetTouchingKeepsThem() {
+        assertEquals(List.of(LocalTime.of(9, 5)), new SlotBitmap().setInside(542, 550).startTimes());
+        assertEquals(List.of(LocalTime.of(9, 0), LocalTime.of(9, 5), LocalTime.of(9, 10)),
+            new SlotBitmap().setTouching(542, 553).startTimes());
+        assertTrue(new SlotBitmap().setInside(541, 544).isEmpty());
+    }
+
+    @Test
+    void coversTheWholeDayAcrossWordBoundaries() {
+        SlotBitmap day = new SlotBitmap().setInside(0, 24 * 60);
+        assertEquals(SlotBitmap.SLOTS_PER_DAY, day.cardinality());
+        assertEquals(LocalTime.of(23, 55), day.startTimes().get(SlotBitmap.SLOTS_PER_DAY - 1));
+
+        // 64 位边界两侧：第 63、64 个时段为 05:15、05:20
+        SlotBitmap boundary = new SlotBitmap().setTouching(315, 325);
+        assertEquals(List.of(LocalTime.of(5, 15), LocalTime.of(5, 20)), boundary.startTimes());
+    }
+
+    @Test
+    void clearBeforeRemovesSlotsStartingEarlier() {
+        SlotBitmap day = new SlotBitmap().setInside(540, 600).clearBefore(552);
+        assertEquals(LocalTime.of(9, 15), day.startTimes().get(0));
+        assertEquals(9, day.cardinality());
+    }
+
+    @Test
+    void fittingStartsMatchesBruteForce() {
+        Random random = new Random(11);
+        for (int round = 0; round < 2000; round++) {
+            boolean[] free = new boolean[SlotBitmap.SLOTS_PER_DAY];
+            SlotBitmap bitmap = new SlotBitmap();
+            for (int i = 0; i < 6; i++) {
+                int start = random.nextInt(SlotBitmap.SLOTS_PER_DAY);
+                int end = Math.min(start + random.nextInt(80), SlotBitmap.SLOTS_PER_DAY);
+                bitmap.setInside(start * SlotBitmap.SLOT_MINUTES, end * SlotBitmap.SLOT_MINUTES);
+                for (int slot = start; slot < end; slot++) {
+                    free[slot] = true;
+                }
+            }
+            int slotCount = 1 + random.nextInt(100);
+
+            SlotBitmap starts = bitmap.fittingStarts(slotCount);
+            for (int slot = 0; slot < SlotBitmap.SLOTS_PER_DAY; slot++) {
+                boolean fits = slot + slotCount <= SlotBitmap.SLOTS_PER_DAY;
+                for (int i = slot; fits && i < slot + slotCount; i++) {
+                    fits = free[i];
+                }
+                assertEquals(fits, starts.startTimes().contains(LocalTime.MIN.plusMinutes(slot * 5L)),
+                    "slot " + slot + " count " + slotCount);
+            }
+        }
+    }
+
+    @Test
+    void countsReachingCapacityBecomeFull() {
+        int[] counts = new int[SlotBitmap.SLOTS_PER_DAY];
+        SlotBitmap.countTouching(counts, 600, 660);
+        SlotBitmap.countTouching(counts, 630, 700);
+        SlotBitmap.countTouching(counts, 1430, 1500);
+
+        assertEquals(List.of(LocalTime.of(10, 30), LocalTime.of(10, 35), LocalTime.of(10, 40),
+            LocalTime.of(10, 45), LocalTime.of(10, 50), LocalTime.of(10, 55)), SlotBitmap.atLeast(counts, 2).startTimes());
+        assertEquals(1, counts[SlotBitmap.SLOTS_PER_DAY - 1]);
+        assertFalse(SlotBitmap.atLeast(counts, 1).isEmpty());
+        assertTrue(SlotBitmap.atLeast(counts, 3).isEmpty());
+    }
+
+    @Test
+    void allSetTreatsOutOfRangeAsUnset() {
+        long[] words = new long[SlotBitmap.WORDS];
+        new SlotBitmap().setInside(0, 24 * 60).copyTo(words, 0);
+
+        assertTrue(SlotBitmap.allSet(words, 0, 0, SlotBitmap.SLOTS_PER_DAY));
+        assertTrue(SlotBitmap.allSet(words, 0, 60, 60));
+        assertFalse(SlotBitmap.allSet(words, 0, 0, SlotBitmap.SLOTS_PER_DAY + 1));
+        assertFalse(SlotBitmap.allSet(words, 0, -1, 10));
+    }
+}
@@ -0,0 +1,91 @@
+package com.merchant.server.businessservice.availability;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlotReservationsTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 2);
+
+    @Test
+    void rejectsOnceAnySlotReachesTheLimit() {
+        SlotReservations reservations = new SlotReservations();
+        ResourceBookingIndex.Booking morning = booking(540, 600);
+        ResourceBookingIndex.Booking overlapping = booking(590, 650);
+        ResourceBookingIndex.Booking afternoon = booking(600, 660);
+
+        assertTrue(reservations.tryAcquire(morning, 1));
+        assertFalse(reservations.tryAcquire(overlapping, 1));
+        assertTrue(reservations.tryAcquire(afternoon, 1));
+
+        reservations.release(morning);
+        assertFalse(reservations.tryAcquire(overlapping, 1));
+        reservations.release(afternoon);
+        assertTrue(reservations.tryAcquire(overlapping, 1));
+        reservations.release(overlapping);
+        assertEquals(0, reservations.activeDays());
+    }
+
+    @Test
+    void failedAcquireRollsBackPartialSlots() {
+        SlotReservations reservations = new SlotReservations();
+        ResourceBookingIndex.Booking tail = booking(630, 660);
+        ResourceBookingIndex.Booking wide = booking(600, 660);
+
+        assertTrue(reservations.tryAcquire(tail, 1));
+        assertFalse(reservations.tryAcquire(wide, 1));
+        // 失败的请求不应在 [600, 630) 留下计数
+        assertTrue(reservations.tryAcquire(booking(600, 630), 1));
+    }
+
+    @Test
+    void concurrentAcquiresNeverExceedCapacity() throws Exception {
+        int threads = 32;
+        int capacity = 4;
+        SlotReservations reservations = new SlotReservations();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 200; round++) {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<ResourceBookingIndex.Booking>> results = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    // 时段互相错开但都覆盖 10:00 - 10:30
+                    ResourceBookingIndex.Booking booking = booking(570 + i % 6 * 5, 630 + i % 4 * 5);
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        return reservations.tryAcquire(booking, capacity) ? booking : null;
+                    }));
+                }
+                start.countDown();
+                List<ResourceBookingIndex.Booking> accepted = new ArrayList<>();
+                for (Future<ResourceBookingIndex.Booking> result : results) {
+                    ResourceBookingIndex.Booking booking = result.get(10, TimeUnit.SECONDS);
+                    if (booking != null) {
+                        accepted.add(booking);
+                    }
+                }
+                assertEquals(capacity, accepted.size());
+                accepted.forEach(reservations::release);
+                assertEquals(0, reservations.activeDays());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ResourceBookingIndex.Booking booking(int start, int end) {
+        return new ResourceBookingIndex.Booking(1L, DAY, start, end);
+    }
+}
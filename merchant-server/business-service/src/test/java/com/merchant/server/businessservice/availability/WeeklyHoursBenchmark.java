@@ -0,0 +1,79 @@
+package com.merchant.server.businessservice.availability;
+
+import com.merchant.server.businessservice.entity.ResourceAvailability;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.DayOfWeek;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 营业时间检查：编译后的位图对比逐行扫描可用时段规则
+ * 运行：mvn -pl business-service test-compile 后执行 main，或在 IDE 中直接运行
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WeeklyHoursBenchmark {
+
+    private static final int CHECKS = 1024;
+
+    private List<ResourceAvailability> rules;
+    private WeeklyHours hours;
+    private DayOfWeek[] days;
+    private int[] starts;
+    private int[] ends;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        rules = WeeklyHoursFixtures.typicalWeek();
+        hours = WeeklyHours.compile(rules);
+        Random random = new Random(1);
+        days = new DayOfWeek[CHECKS];
+        starts = new int[CHECKS];
+        ends = new int[CHECKS];
+        for (int i = 0; i < CHECKS; i++) {
+            days[i] = DayOfWeek.of(1 + random.nextInt(7));
+            starts[i] = random.nextInt(SlotBitmap.SLOTS_PER_DAY) * SlotBitmap.SLOT_MINUTES;
+            ends[i] = Math.min(starts[i] + SlotBitmap.SLOT_MINUTES * (1 + random.nextInt(36)), 24 * 60);
+        }
+    }
+
+    @Benchmark
+    public boolean rowScan() {
+        int i = next++ & (CHECKS - 1);
+        return WeeklyHoursFixtures.rowScanIsOpen(rules, days[i], starts[i], ends[i]);
+    }
+
+    @Benchmark
+    public boolean bitmap() {
+        int i = next++ & (CHECKS - 1);
+        return hours.isOpen(days[i], starts[i], ends[i]);
+    }
+
+    @Benchmark
+    public WeeklyHours compile() {
+        return WeeklyHours.compile(rules);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(WeeklyHoursBenchmark.class.getSimpleName()).build()).run();
+    }
+}
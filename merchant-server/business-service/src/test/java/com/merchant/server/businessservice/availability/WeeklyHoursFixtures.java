@@ -0,0 +1,74 @@
+package com.merchant.server.businessservice.availability;
+
+import com.merchant.server.businessservice.entity.ResourceAvailability;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 每周可用时段的测试数据，以及编译前逐行扫描规则的判断方式（作为位图结果的对照）
+ */
+final class WeeklyHoursFixtures {
+
+    private WeeklyHoursFixtures() {
+    }
+
+    /**
+     * 周一至周六 09:00-12:00、13:00-18:00（15:00-15:30 休息），周日 10:00-16:00
+     */
+    static List<ResourceAvailability> typicalWeek() {
+        List<ResourceAvailability> rules = new ArrayList<>();
+        for (int day = 1; day <= 6; day++) {
+            rules.add(rule(day, "09:00", "12:00", true));
+            rules.add(rule(day, "13:00", "18:00", true));
+            rules.add(rule(day, "15:00", "15:30", false));
+        }
+        rules.add(rule(7, "10:00", "16:00", true));
+        return rules;
+    }
+
+    static ResourceAvailability rule(int dayOfWeek, String start, String end, boolean available) {
+        ResourceAvailability availability = new ResourceAvailability();
+        availability.setResourceId(1L);
+        availability.setDayOfWeek(dayOfWeek);
+        availability.setStartTime(LocalTime.parse(start));
+        availability.setEndTime(LocalTime.parse(end));
+        availability.setIsAvailable(available);
+        return availability;
+    }
+
+    /**
+     * 逐行扫描：[start, end) 落在当天某条可用规则内且不与当天的休息规则重叠
+     */
+    static boolean rowScanIsOpen(List<ResourceAvailability> rules, DayOfWeek dayOfWeek, int start, int end) {
+        boolean open = false;
+        for (ResourceAvailability rule : rules) {
+            if (rule.getDayOfWeek() == dayOfWeek.getValue() && rule.getIsAvailable()
+                    && minuteOf(rule.getStartTime()) <= start && end <= endMinuteOf(rule.getEndTime())) {
+                open = true;
+                break;
+            }
+        }
+        if (!open) {
+            return false;
+        }
+        for (ResourceAvailability rule : rules) {
+            if (rule.getDayOfWeek() == dayOfWeek.getValue() && !rule.getIsAvailable()
+                    && minuteOf(rule.getStartTime()) < end && start < endMinuteOf(rule.getEndTime())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int minuteOf(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private static int endMinuteOf(LocalTime time) {
+        int minute = minuteOf(time);
+        return minute == 0 ? 24 * 60 : minute;
+    }
+}
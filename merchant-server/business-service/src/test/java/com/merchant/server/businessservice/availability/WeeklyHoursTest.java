@@ -0,0 +1,75 @@
+package com.merchant.server.businessservice.availability;
+
+import com.merchant.server.businessservice.entity.ResourceAvailability;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Random;
+
+import static com.merchant.server.businessservice.availability.WeeklyHoursFixtures.rule;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WeeklyHoursTest {
+
+    @Test
+    void matchesRowScanOfTheRules() {
+        List<ResourceAvailability> rules = WeeklyHoursFixtures.typicalWeek();
+        WeeklyHours hours = WeeklyHours.compile(rules);
+        Random random = new Random(3);
+        for (int i = 0; i < 100_000; i++) {
+            DayOfWeek day = DayOfWeek.of(1 + random.nextInt(7));
+            int start = random.nextInt(SlotBitmap.SLOTS_PER_DAY) * SlotBitmap.SLOT_MINUTES;
+            int end = Math.min(start + SlotBitmap.SLOT_MINUTES * (1 + random.nextInt(36)), 24 * 60);
+            assertEquals(WeeklyHoursFixtures.rowScanIsOpen(rules, day, start, end), hours.isOpen(day, start, end),
+                day + " " + start + "-" + end);
+        }
+    }
+
+    @Test
+    void closedRulesAreDeductedFromOpenHours() {
+        WeeklyHours hours = WeeklyHours.compile(WeeklyHoursFixtures.typicalWeek());
+
+        assertTrue(hours.isOpen(DayOfWeek.MONDAY, 14 * 60, 15 * 60));
+        assertFalse(hours.isOpen(DayOfWeek.MONDAY, 14 * 60 + 30, 15 * 60 + 5));
+        assertFalse(hours.isOpenAt(DayOfWeek.MONDAY, 15 * 60 + 10));
+        assertTrue(hours.isOpenAt(DayOfWeek.MONDAY, 15 * 60 + 30));
+        assertFalse(hours.isOpenAt(DayOfWeek.SUNDAY, 9 * 60 + 55));
+        assertEquals(LocalTime.of(10, 0), hours.day(DayOfWeek.SUNDAY).startTimes().get(0));
+    }
+
+    @Test
+    void bookingsPastMidnightAreCheckedAgainstTheNextDay() {
+        WeeklyHours hours = WeeklyHours.compile(List.of(
+            rule(5, "20:00", "00:00", true),
+            rule(6, "00:00", "02:00", true)));
+
+        assertTrue(hours.isOpen(DayOfWeek.FRIDAY, 23 * 60, 25 * 60));
+        assertFalse(hours.isOpen(DayOfWeek.FRIDAY, 23 * 60, 26 * 60 + 5));
+        assertFalse(hours.isOpen(DayOfWeek.THURSDAY, 23 * 60, 25 * 60));
+    }
+
+    @Test
+    void resourcesWithoutRulesAreOpenAllDay() {
+        WeeklyHours hours = WeeklyHours.compile(List.of(rule(1, "09:00", "12:00", true)).subList(0, 0));
+
+        assertSame(WeeklyHours.NONE, hours);
+        assertFalse(hours.isConfigured());
+        assertTrue(hours.isOpen(DayOfWeek.WEDNESDAY, 0, 24 * 60));
+        assertTrue(hours.isOpen(DayOfWeek.SUNDAY, 23 * 60, 25 * 60));
+        assertTrue(hours.isOpenAt(DayOfWeek.SATURDAY, 3 * 60));
+        assertEquals(SlotBitmap.SLOTS_PER_DAY, hours.day(DayOfWeek.MONDAY).cardinality());
+    }
+
+    @Test
+    void incompleteRulesAreIgnored() {
+        ResourceAvailability missingTime = rule(2, "09:00", "12:00", true);
+        missingTime.setEndTime(null);
+
+        assertSame(WeeklyHours.NONE, WeeklyHours.compile(List.of(missingTime, rule(8, "09:00", "12:00", true))));
+    }
+}
@@ -0,0 +1,46 @@
+package com.merchant.server.businessservice.cache;
+
+import com.merchant.server.businessservice.entity.Customer;
+import com.merchant.server.businessservice.mapper.CustomerMapper;
+import com.merchant.server.businessservice.service.support.CustomerPreferredServices;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CustomerLeaderboardTest {
+
+    @Test
+    void ranksMissingSpendingAsZero() {
+        CustomerMapper mapper = mock(CustomerMapper.class);
+        CustomerPreferredServices preferredServices = mock(CustomerPreferredServices.class);
+        when(preferredServices.load(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        // 与 ORDER BY COALESCE(total_spent, 0) DESC, id DESC 的结果一致
+        when(mapper.selectTopSpendingCustomers(anyLong(), anyInt()))
+            .thenReturn(List.of(customer(1L, "10.00"), customer(3L, null), customer(2L, "0.00")));
+        CustomerLeaderboard leaderboard = new CustomerLeaderboard(mapper, preferredServices, 10);
+        leaderboard.top(7L, 10);
+
+        // 没有事务时立即应用
+        leaderboard.onCustomerSaved(customer(4L, null));
+        leaderboard.onCustomerSaved(customer(5L, "0.00"));
+
+        assertEquals(List.of(1L, 5L, 4L, 3L, 2L),
+            leaderboard.top(7L, 10).stream().map(Customer::getId).toList());
+    }
+
+    private static Customer customer(Long id, String totalSpent) {
+        Customer customer = new Customer();
+        customer.setId(id);
+        customer.setTenantId(7L);
+        customer.setTotalSpent(totalSpent == null ? null : new BigDecimal(totalSpent));
+        return customer;
+    }
+}
@@ -0,0 +1,111 @@
+package com.merchant.server.businessservice.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GenerationGuardedCacheTest {
+
+    @Test
+    void loadsOnceUntilInvalidated() {
+        GenerationGuardedCache<Long, String> cache = new GenerationGuardedCache<>(60_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", cache.get(1L, key -> "v" + loads.incrementAndGet()));
+        assertEquals("v1", cache.get(1L, key -> "v" + loads.incrementAndGet()));
+        cache.invalidate(1L);
+        assertEquals("v2", cache.get(1L, key -> "v" + loads.incrementAndGet()));
+
+        Map<String, Object> stats = cache.stats();
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(2L, stats.get("misses"));
+        assertEquals(1L, stats.get("invalidations"));
+    }
+
+    @Test
+    void doesNotBackfillWhenInvalidatedDuringLoad() {
+        GenerationGuardedCache<Long, String> cache = new GenerationGuardedCache<>(60_000);
+
+        assertEquals("stale", cache.get(1L, key -> {
+            cache.invalidate(1L);
+            return "stale";
+        }));
+        assertEquals("fresh", cache.get(1L, key -> "fresh"));
+        assertEquals("fresh", cache.get(1L, key -> "unexpected"));
+    }
+
+    @Test
+    void invalidationOnlyDiscardsLoadsOfTheSameScope() {
+        GenerationGuardedCache<Long, String> cache = new GenerationGuardedCache<>(60_000);
+
+        cache.get(1L, key -> {
+            cache.invalidate(2L);
+            return "one";
+        });
+        assertEquals("one", cache.get(1L, key -> "reloaded"));
+    }
+
+    @Test
+    void batchLoadSkipsKeysInvalidatedDuringLoad() {
+        GenerationGuardedCache<Long, String> cache = new GenerationGuardedCache<>(60_000);
+
+        Map<Long, String> loaded = cache.getAll(List.of(1L, 2L), keys -> {
+            cache.invalidate(2L);
+            Map<Long, String> values = new HashMap<>();
+            keys.forEach(key -> values.put(key, "old" + key));
+            return values;
+        });
+        assertEquals("old1", loaded.get(1L));
+        assertEquals("old2", loaded.get(2L));
+
+        assertEquals("old1", cache.get(1L, key -> "new1"));
+        assertEquals("new2", cache.get(2L, key -> "new2"));
+    }
+
+    @Test
+    void scopeInvalidationRemovesMatchingKeysOnly() {
+        GenerationGuardedCache<String, String> cache =
+            new GenerationGuardedCache<>(60_000, 100, key -> key.substring(0, key.indexOf(':')));
+        cache.get("t1:a", key -> "a");
+        cache.get("t1:b", key -> "b");
+        cache.get("t2:a", key -> "c");
+
+        cache.invalidateScope("t1", key -> key.endsWith(":a"));
+
+        assertEquals("a2", cache.get("t1:a", key -> "a2"));
+        assertEquals("b", cache.get("t1:b", key -> "b2"));
+        assertEquals("c", cache.get("t2:a", key -> "c2"));
+    }
+
+    @Test
+    void replaceKeepsEntryOnlyWhileUnchanged() {
+        GenerationGuardedCache<Long, String> cache = new GenerationGuardedCache<>(60_000);
+        String first = cache.get(1L, key -> new String("first"));
+
+        assertTrue(cache.replace(1L, first, "second"));
+        assertFalse(cache.replace(1L, first, "third"));
+        cache.invalidate(1L);
+        assertFalse(cache.replace(1L, "second", "fourth"));
+        assertEquals("loaded", cache.get(1L, key -> "loaded"));
+    }
+
+    @Test
+    void stopsCachingAtCapacity() {
+        GenerationGuardedCache<Long, String> cache = new GenerationGuardedCache<>(60_000, 1, key -> key);
+        String one = cache.get(1L, key -> "one");
+
+        cache.get(2L, key -> "two");
+
+        assertSame(one, cache.get(1L, key -> "reloaded"));
+        assertEquals("again", cache.get(2L, key -> "again"));
+        assertEquals(1, cache.stats().get("entries"));
+    }
+}
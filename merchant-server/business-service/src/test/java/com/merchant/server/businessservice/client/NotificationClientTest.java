@@ -0,0 +1,164 @@
+package com.merchant.server.businessservice.client;
+
+import com.merchant.server.businessservice.config.RestTemplateConfig;
+import com.merchant.server.businessservice.dto.AppointmentNotificationDTO;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 针对本地桩服务器验证 NotificationClient，RestTemplate 与运行时使用同一份配置构建
+ */
+class NotificationClientTest {
+
+    private static final String BASE_PATH = "/api/v2/appointment-notifications";
+
+    private HttpServer server;
+
+    private final List<Request> requests = new CopyOnWriteArrayList<>();
+
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    private volatile int status = 200;
+
+    private volatile long delayMillis;
+
+    private NotificationClient client;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext(BASE_PATH, this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        RestTemplateConfig config = new RestTemplateConfig();
+        ReflectionTestUtils.setField(config, "connectTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(config, "readTimeoutMillis", 500L);
+        ReflectionTestUtils.setField(config, "httpVersion", HttpClient.Version.HTTP_1_1);
+        client = new NotificationClient(config.directRestTemplate(),
+            "http://localhost:" + server.getAddress().getPort());
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void postsJsonToTheEventEndpoint() {
+        assertTrue(client.sendAppointmentConfirmation(notification(42L)));
+
+        assertEquals(1, requests.size());
+        Request request = requests.get(0);
+        assertEquals(BASE_PATH + "/confirmation", request.path);
+        assertTrue(request.contentType.startsWith("application/json"));
+        assertTrue(request.body.contains("\"appointmentId\":42"));
+    }
+
+    @Test
+    void batchRemindersAreSentInOneRequest() {
+        assertTrue(client.sendAppointmentReminders(List.of(notification(1L), notification(2L), notification(3L))));
+
+        assertEquals(1, requests.size());
+        assertEquals(BASE_PATH + "/batch-reminders", requests.get(0).path);
+        assertTrue(requests.get(0).body.startsWith("["));
+        assertTrue(requests.get(0).body.contains("\"appointmentId\":3"));
+    }
+
+    @Test
+    void serverErrorsAreReportedAndCounted() {
+        status = 500;
+
+        assertFalse(client.sendAppointmentCancellation(notification(7L)));
+        assertEquals(1L, callStats("/cancellation").get("errors"));
+        assertEquals(1L, callStats("/cancellation").get("calls"));
+    }
+
+    @Test
+    void slowResponsesAreCutOffByTheReadTimeout() {
+        delayMillis = 2000;
+
+        long start = System.nanoTime();
+        assertFalse(client.sendAppointmentReminder(notification(9L)));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis < 1500, "took " + elapsedMillis + " ms");
+        assertEquals(1L, callStats("/reminder").get("errors"));
+    }
+
+    @Test
+    void connectionsAreReused() {
+        for (int i = 0; i < 20; i++) {
+            assertTrue(client.sendAppointmentCompletion(notification((long) i)));
+        }
+
+        assertEquals(20, requests.size());
+        assertEquals(1, clientPorts.size());
+        assertEquals(20L, callStats("/completion").get("calls"));
+        assertEquals(0L, callStats("/completion").get("errors"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> callStats(String path) {
+        return (Map<String, Object>) client.stats().get(path);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        requests.add(new Request(exchange.getRequestURI().getPath(),
+            exchange.getRequestHeaders().getFirst("Content-Type"), body));
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        byte[] response = "{\"success\":true}".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, response.length);
+        exchange.getResponseBody().write(response);
+        exchange.close();
+    }
+
+    private static AppointmentNotificationDTO notification(Long appointmentId) {
+        AppointmentNotificationDTO notification = new AppointmentNotificationDTO();
+        notification.setAppointmentId(appointmentId);
+        notification.setTenantId(1L);
+        notification.setCustomerName("Alice");
+        return notification;
+    }
+
+    private static final class Request {
+        final String path;
+        final String contentType;
+        final String body;
+
+        Request(String path, String contentType, String body) {
+            this.path = path;
+            this.contentType = contentType;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.merchant.server.businessservice.dto;
+
+import com.merchant.server.businessservice.entity.Customer;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CustomerPageQueryTest {
+
+    @Test
+    void defaultedColumnsSeekFromTheEntityDefault() {
+        // 数据库中为 NULL 的列读成实体默认值，游标值需与 SQL 中 COALESCE(列, 默认值) 一致
+        Customer customer = new Customer();
+        customer.setId(42L);
+
+        assertEquals(0, seekValue(customer, "points"));
+        assertEquals(BigDecimal.ZERO, seekValue(customer, "totalSpent"));
+        assertEquals(1, seekValue(customer, "membershipLevel"));
+        assertEquals(1, seekValue(customer, "status"));
+    }
+
+    @Test
+    void enumsSeekByDefinitionPosition() {
+        Customer customer = new Customer();
+        customer.setId(42L);
+        customer.setMembershipLevel(Customer.MembershipLevel.PLATINUM);
+        customer.setStatus(Customer.CustomerStatus.INACTIVE);
+
+        assertEquals(4, seekValue(customer, "membershipLevel"));
+        assertEquals(2, seekValue(customer, "status"));
+    }
+
+    @Test
+    void nullableColumnsWithoutDefaultKeepTheNullMarker() {
+        Customer customer = new Customer();
+        customer.setId(42L);
+        CustomerPageQuery query = query("email");
+
+        query.applyCursor(CustomerCursor.decode(
+            CustomerCursor.after(customer, CustomerSortField.EMAIL, "ASC").encode()));
+
+        assertTrue(query.isCursorNull());
+        assertEquals(42L, query.getCursorId());
+    }
+
+    @Test
+    void rejectsCursorForAnotherSort() {
+        Customer customer = new Customer();
+        customer.setId(42L);
+        String token = CustomerCursor.after(customer, CustomerSortField.POINTS, "ASC").encode();
+
+        assertThrows(RuntimeException.class, () -> query("totalSpent").applyCursor(CustomerCursor.decode(token)));
+    }
+
+    private static Object seekValue(Customer customer, String sortBy) {
+        CustomerPageQuery query = query(sortBy);
+        query.applyCursor(CustomerCursor.decode(
+            CustomerCursor.after(customer, CustomerSortField.fromProperty(sortBy), "ASC").encode()));
+        assertFalse(query.isCursorNull());
+        return query.getCursorValue();
+    }
+
+    private static CustomerPageQuery query(String sortBy) {
+        CustomerPageQuery query = new CustomerPageQuery();
+        query.setTenantId(1L);
+        query.setSortBy(sortBy);
+        query.setSortDir("ASC");
+        return query;
+    }
+}
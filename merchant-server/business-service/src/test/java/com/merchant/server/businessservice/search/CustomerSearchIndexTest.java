@@ -0,0 +1,68 @@
+package com.merchant.server.businessservice.search;
+
+import com.merchant.server.businessservice.entity.Customer;
+import com.merchant.server.businessservice.mapper.CustomerMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CustomerSearchIndexTest {
+
+    @Test
+    void changesCommittedDuringBuildAreReplayed() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch committed = new CountDownLatch(1);
+        CustomerMapper mapper = mock(CustomerMapper.class);
+        when(mapper.selectSearchDocuments(anyLong())).thenAnswer(invocation -> {
+            loading.countDown();
+            assertTrue(committed.await(5, TimeUnit.SECONDS));
+            // 构建读到的是变更提交前的快照
+            return List.of(customer(1L, "Alice", "13800000001"), customer(2L, "Bob", "13800000002"));
+        });
+        CustomerSearchIndex index = new CustomerSearchIndex(mapper);
+
+        CompletableFuture<List<Long>> search = CompletableFuture.supplyAsync(() -> index.search(7L, "alice", 10));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        // 没有事务时立即生效，相当于在构建期间提交
+        index.onCustomerSaved(customer(3L, "Alice", "13800000003"));
+        index.onCustomerDeleted(7L, 1L);
+        committed.countDown();
+        search.get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(3L), index.search(7L, "alice", 10));
+        assertEquals(List.of(2L), index.search(7L, "bob", 10));
+    }
+
+    @Test
+    void refreshReleasesTenantsWithoutSearches() {
+        CustomerMapper mapper = mock(CustomerMapper.class);
+        when(mapper.selectSearchDocuments(anyLong())).thenReturn(List.of(customer(1L, "Alice", "13800000001")));
+        CustomerSearchIndex index = new CustomerSearchIndex(mapper);
+        index.search(7L, "alice", 10);
+
+        index.refresh();
+        assertEquals(1, index.stats().get("tenantCount"));
+        index.refresh();
+        assertEquals(0, index.stats().get("tenantCount"));
+    }
+
+    private static Customer customer(Long id, String firstName, String phone) {
+        Customer customer = new Customer();
+        customer.setId(id);
+        customer.setTenantId(7L);
+        customer.setFirstName(firstName);
+        customer.setLastName("");
+        customer.setPhone(phone);
+        customer.setEmail("");
+        return customer;
+    }
+}
@@ -0,0 +1,149 @@
+package com.merchant.server.businessservice.service.impl;
+
+import com.merchant.server.businessservice.cache.CustomerDetailCache;
+import com.merchant.server.businessservice.config.ExecutorConfig;
+import com.merchant.server.businessservice.dto.CustomerDTO;
+import com.merchant.server.businessservice.entity.Customer;
+import com.merchant.server.businessservice.entity.CustomerAppointmentSummary;
+import com.merchant.server.businessservice.mapper.AppointmentMapper;
+import com.merchant.server.businessservice.mapper.CustomerMapper;
+import org.mockito.stubbing.Answer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 客户详情加载延迟：每次查询按 roundTripMicros 模拟一次数据库往返
+ * sequential 是改造前的路径（客户信息后依次查询预约数、已完成数、平均评分），
+ * aggregate 是客户信息与一条聚合查询在 customerDetailExecutor 上并行，cached 是缓存命中。
+ * 运行：mvn -pl business-service test-compile 后执行 main，或在 IDE 中直接运行
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CustomerDetailBenchmark {
+
+    private static final long CUSTOMER_ID = 42L;
+
+    @Param({"200", "1000"})
+    private long roundTripMicros;
+
+    private CustomerMapper customerMapper;
+    private AppointmentMapper appointmentMapper;
+    private ThreadPoolTaskExecutor executor;
+    private CustomerServiceImpl uncachedService;
+    private CustomerServiceImpl cachedService;
+
+    @Setup
+    public void setUp() {
+        customerMapper = mock(CustomerMapper.class);
+        appointmentMapper = mock(AppointmentMapper.class);
+        when(customerMapper.selectById(anyLong())).thenAnswer(roundTrip(customer()));
+        when(appointmentMapper.selectCustomerAppointmentSummary(anyLong())).thenAnswer(roundTrip(summary()));
+        when(appointmentMapper.countByCustomerId(anyLong())).thenAnswer(roundTrip(12L));
+        when(appointmentMapper.countByCustomerIdAndStatus(anyLong(), anyString())).thenAnswer(roundTrip(9L));
+        when(appointmentMapper.getCustomerAverageRating(anyLong())).thenAnswer(roundTrip(4.5));
+
+        executor = new ExecutorConfig().customerDetailExecutor(8);
+        // 条目上限为 0 时不回填，每次都走数据库
+        uncachedService = service(new CustomerDetailCache(30_000, 0));
+        cachedService = service(new CustomerDetailCache(30_000, 10));
+        cachedService.getCustomerById(CUSTOMER_ID);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public CustomerDTO sequential() {
+        Customer customer = customerMapper.selectById(CUSTOMER_ID);
+        CustomerDTO dto = new CustomerDTO();
+        dto.setId(customer.getId());
+        dto.setFirstName(customer.getFirstName());
+        dto.setLastName(customer.getLastName());
+        dto.setTotalAppointments(appointmentMapper.countByCustomerId(CUSTOMER_ID));
+        dto.setCompletedAppointments(appointmentMapper.countByCustomerIdAndStatus(CUSTOMER_ID, "COMPLETED"));
+        dto.setAverageRating(appointmentMapper.getCustomerAverageRating(CUSTOMER_ID));
+        return dto;
+    }
+
+    @Benchmark
+    public CustomerDTO aggregate() {
+        return uncachedService.getCustomerById(CUSTOMER_ID);
+    }
+
+    @Benchmark
+    public CustomerDTO cached() {
+        return cachedService.getCustomerById(CUSTOMER_ID);
+    }
+
+    private CustomerServiceImpl service(CustomerDetailCache cache) {
+        CustomerServiceImpl service = new CustomerServiceImpl();
+        ReflectionTestUtils.setField(service, "customerMapper", customerMapper);
+        ReflectionTestUtils.setField(service, "appointmentMapper", appointmentMapper);
+        ReflectionTestUtils.setField(service, "customerDetailCache", cache);
+        ReflectionTestUtils.setField(service, "customerDetailExecutor", executor);
+        return service;
+    }
+
+    private <T> Answer<T> roundTrip(T result) {
+        return invocation -> {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(roundTripMicros));
+            return result;
+        };
+    }
+
+    private static Customer customer() {
+        Customer customer = new Customer();
+        customer.setId(CUSTOMER_ID);
+        customer.setTenantId(1L);
+        customer.setFirstName("Alice");
+        customer.setLastName("Wang");
+        customer.setPhone("13800000001");
+        customer.setTotalSpent(new BigDecimal("320.00"));
+        customer.setPreferredServiceIds(List.of(1L, 2L));
+        return customer;
+    }
+
+    private static CustomerAppointmentSummary summary() {
+        CustomerAppointmentSummary summary = new CustomerAppointmentSummary();
+        summary.setCustomerId(CUSTOMER_ID);
+        summary.setTotalAppointments(12L);
+        summary.setCompletedAppointments(9L);
+        summary.setAverageRating(4.5);
+        return summary;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CustomerDetailBenchmark.class.getSimpleName()).build()).run();
+    }
+}
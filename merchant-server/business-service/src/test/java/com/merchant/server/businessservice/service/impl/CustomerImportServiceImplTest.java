@@ -0,0 +1,73 @@
+package com.merchant.server.businessservice.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.merchant.server.businessservice.cache.CustomerLeaderboard;
+import com.merchant.server.businessservice.cache.CustomerStatsCache;
+import com.merchant.server.businessservice.dto.CustomerFileFormat;
+import com.merchant.server.businessservice.dto.CustomerImportJob;
+import com.merchant.server.businessservice.mapper.CustomerMapper;
+import com.merchant.server.businessservice.search.CustomerSearchIndex;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class CustomerImportServiceImplTest {
+
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+    @AfterEach
+    void shutDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void returnsRunningJobBeforeImportFinishesAndRejectsWhenQueueIsFull() throws Exception {
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.initialize();
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CustomerImportServiceImpl service = new CustomerImportServiceImpl(mock(CustomerMapper.class),
+            mock(CustomerSearchIndex.class), mock(CustomerStatsCache.class), mock(CustomerLeaderboard.class),
+            new ObjectMapper(), mock(Validator.class), mock(PlatformTransactionManager.class), executor, 500, 1000, 100);
+
+        CustomerImportJob queued = service.submitImport(7L, CustomerFileFormat.CSV, csv("name\nAlice\n"));
+        CustomerImportJob rejected = service.submitImport(7L, CustomerFileFormat.CSV, csv("name\nBob\n"));
+
+        assertEquals(CustomerImportJob.Status.RUNNING, queued.getStatus());
+        assertEquals(CustomerImportJob.Status.FAILED, rejected.getStatus());
+
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (service.getJob(queued.getJobId()).getStatus() == CustomerImportJob.Status.RUNNING
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        CustomerImportJob finished = service.getJob(queued.getJobId());
+        // 缺少 phone 列，后台导入失败并记录原因
+        assertEquals(CustomerImportJob.Status.FAILED, finished.getStatus());
+        assertTrue(finished.getMessage().contains("phone"));
+    }
+
+    private static ByteArrayInputStream csv(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,131 @@
+package com.merchant.server.businessservice.service.impl;
+
+import com.merchant.server.businessservice.availability.BookingGuard;
+import com.merchant.server.businessservice.availability.ResourceBookingIndex;
+import com.merchant.server.businessservice.availability.WeeklyHours;
+import com.merchant.server.businessservice.availability.WeeklyHoursIndex;
+import com.merchant.server.businessservice.cache.OccupancyCache;
+import com.merchant.server.businessservice.cache.ResourceCatalogCache;
+import com.merchant.server.businessservice.cache.ServiceEligibilityIndex;
+import com.merchant.server.businessservice.dto.ResourceSlots;
+import com.merchant.server.businessservice.entity.Appointment;
+import com.merchant.server.businessservice.entity.Resource;
+import com.merchant.server.businessservice.entity.ResourceAvailability;
+import com.merchant.server.businessservice.mapper.AppointmentMapper;
+import com.merchant.server.businessservice.mapper.ResourceMapper;
+import com.merchant.server.businessservice.mapper.StaffMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 空闲时段搜索：50 个资源 × 7 天，目标单次 10ms 以内
+ * indexed=true 时占用时段全部来自内存占用索引；false 时索引不覆盖查询日期，占用时段由一条查询的结果计算（查询本身不计时）。
+ * 运行：mvn -pl business-service test-compile 后执行 main，或在 IDE 中直接运行
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FreeSlotSearchBenchmark {
+
+    private static final int RESOURCES = 50;
+
+    private static final int DAYS = 7;
+
+    private static final int DURATION = 60;
+
+    @Param({"true", "false"})
+    private boolean indexed;
+
+    @Param({"8", "20"})
+    private int appointmentsPerDay;
+
+    private ResourceServiceImpl service;
+    private LocalDate firstDay;
+
+    @Setup
+    public void setUp() {
+        // 从明天开始，避免当天按当前时间裁剪
+        firstDay = LocalDate.now().plusDays(1);
+        List<Resource> resources = OccupancyFixtures.resources(RESOURCES);
+        List<Appointment> appointments = OccupancyFixtures.appointments(resources, firstDay, appointmentsPerDay, 1);
+
+        AppointmentMapper appointmentMapper = mock(AppointmentMapper.class);
+        when(appointmentMapper.selectBookedSlots(any(), any())).thenReturn(appointments);
+        when(appointmentMapper.selectBookedSlotsByResourceIds(anyList(), any(), any())).thenReturn(appointments);
+        ResourceBookingIndex bookingIndex = new ResourceBookingIndex(appointmentMapper, indexed ? 30 : 0);
+        bookingIndex.reload();
+
+        WeeklyHours hours = WeeklyHours.compile(typicalWeek());
+        Map<Long, WeeklyHours> weeklyHours = new HashMap<>();
+        resources.forEach(resource -> weeklyHours.put(resource.getId(), hours));
+        WeeklyHoursIndex weeklyHoursIndex = mock(WeeklyHoursIndex.class);
+        when(weeklyHoursIndex.getAll(anyList())).thenReturn(weeklyHours);
+        ServiceEligibilityIndex eligibility = mock(ServiceEligibilityIndex.class);
+        when(eligibility.eligibleResources(anyLong(), anyLong())).thenReturn(resources);
+
+        service = new ResourceServiceImpl(mock(ResourceMapper.class), mock(StaffMapper.class), appointmentMapper,
+            bookingIndex, mock(BookingGuard.class), mock(OccupancyCache.class), mock(ResourceCatalogCache.class),
+            weeklyHoursIndex, eligibility);
+    }
+
+    @Benchmark
+    public List<ResourceSlots> findFreeSlots() {
+        return service.findFreeSlots(1L, 1L, firstDay, DAYS, DURATION);
+    }
+
+    /**
+     * 周一至周六 09:00-12:00、13:00-18:00（15:00-15:30 休息），周日 10:00-16:00
+     */
+    private static List<ResourceAvailability> typicalWeek() {
+        List<ResourceAvailability> rules = new ArrayList<>();
+        for (int day = 1; day <= 6; day++) {
+            rules.add(rule(day, "09:00", "12:00", true));
+            rules.add(rule(day, "13:00", "18:00", true));
+            rules.add(rule(day, "15:00", "15:30", false));
+        }
+        rules.add(rule(7, "10:00", "16:00", true));
+        return rules;
+    }
+
+    private static ResourceAvailability rule(int dayOfWeek, String start, String end, boolean available) {
+        ResourceAvailability rule = new ResourceAvailability();
+        rule.setDayOfWeek(dayOfWeek);
+        rule.setStartTime(LocalTime.parse(start));
+        rule.setEndTime(LocalTime.parse(end));
+        rule.setIsAvailable(available);
+        return rule;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FreeSlotSearchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
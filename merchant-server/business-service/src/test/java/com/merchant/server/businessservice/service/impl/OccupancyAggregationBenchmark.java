@@ -0,0 +1,62 @@
+package com.merchant.server.businessservice.service.impl;
+
+import com.merchant.server.businessservice.dto.ResourceOccupancy;
+import com.merchant.server.businessservice.entity.Appointment;
+import com.merchant.server.businessservice.entity.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 周占用热力图汇总：100 个资源 × 7 天
+ * 运行：mvn -pl business-service test-compile 后执行 main，或在 IDE 中直接运行
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OccupancyAggregationBenchmark {
+
+    private static final LocalDate WEEK_START = LocalDate.of(2026, 3, 2);
+
+    @Param({"5", "15", "60"})
+    private int bucketMinutes;
+
+    @Param({"8", "20"})
+    private int appointmentsPerDay;
+
+    private List<Resource> resources;
+    private List<Appointment> appointments;
+
+    @Setup
+    public void setUp() {
+        resources = OccupancyFixtures.resources(100);
+        appointments = OccupancyFixtures.appointments(resources, WEEK_START, appointmentsPerDay, 1);
+    }
+
+    @Benchmark
+    public List<ResourceOccupancy> aggregate() {
+        return ResourceServiceImpl.aggregateOccupancy(resources, appointments, WEEK_START, bucketMinutes);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(OccupancyAggregationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
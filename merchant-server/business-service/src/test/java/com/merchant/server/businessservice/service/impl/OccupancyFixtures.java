@@ -0,0 +1,57 @@
+package com.merchant.server.businessservice.service.impl;
+
+import com.merchant.server.businessservice.entity.Appointment;
+import com.merchant.server.businessservice.entity.Resource;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 占用热力图汇总的测试数据
+ */
+final class OccupancyFixtures {
+
+    private OccupancyFixtures() {
+    }
+
+    static List<Resource> resources(int count) {
+        List<Resource> resources = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            Resource resource = new Resource();
+            resource.setId(id);
+            resource.setName("resource-" + id);
+            resource.setType(id % 2 == 0 ? Resource.ResourceType.ROOM : Resource.ResourceType.STAFF);
+            resources.add(resource);
+        }
+        return resources;
+    }
+
+    /**
+     * 每个资源每天 perDay 个 5 分钟对齐、30-180 分钟的预约，允许跨过午夜
+     */
+    static List<Appointment> appointments(List<Resource> resources, LocalDate weekStart, int perDay, long seed) {
+        Random random = new Random(seed);
+        List<Appointment> appointments = new ArrayList<>();
+        for (Resource resource : resources) {
+            for (int day = 0; day < 7; day++) {
+                for (int i = 0; i < perDay; i++) {
+                    int start = random.nextInt(24 * 12) * 5;
+                    appointments.add(appointment(resource.getId(), weekStart.plusDays(day), start, 30 + random.nextInt(31) * 5));
+                }
+            }
+        }
+        return appointments;
+    }
+
+    static Appointment appointment(Long resourceId, LocalDate date, int startMinute, Integer duration) {
+        Appointment appointment = new Appointment();
+        appointment.setResourceId(resourceId);
+        appointment.setAppointmentDate(date);
+        appointment.setAppointmentTime(LocalTime.of(startMinute / 60, startMinute % 60));
+        appointment.setDuration(duration);
+        return appointment;
+    }
+}
@@ -0,0 +1,98 @@
+package com.merchant.server.businessservice.service.impl;
+
+import com.merchant.server.businessservice.dto.ResourceOccupancy;
+import com.merchant.server.businessservice.entity.Appointment;
+import com.merchant.server.businessservice.entity.Resource;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResourceOccupancyAggregationTest {
+
+    private static final LocalDate WEEK_START = LocalDate.of(2026, 3, 2);
+
+    @Test
+    void splitsAppointmentsAcrossBuckets() {
+        List<Resource> resources = OccupancyFixtures.resources(1);
+        List<Appointment> appointments = List.of(
+            OccupancyFixtures.appointment(1L, WEEK_START, 9 * 60 + 45, 30),
+            OccupancyFixtures.appointment(1L, WEEK_START, 10 * 60, 60));
+
+        int[] monday = aggregate(resources, appointments, 60).get(0).getOccupancy().get("2026-03-02");
+
+        assertEquals(24, monday.length);
+        assertEquals(15, monday[9]);
+        assertEquals(75, monday[10]);
+        assertEquals(0, monday[11]);
+    }
+
+    @Test
+    void clipsAtMidnightAndIgnoresForeignOrIncompleteAppointments() {
+        List<Resource> resources = OccupancyFixtures.resources(2);
+        List<Appointment> appointments = List.of(
+            OccupancyFixtures.appointment(1L, WEEK_START.plusDays(6), 23 * 60 + 30, 90),
+            OccupancyFixtures.appointment(99L, WEEK_START, 600, 60),
+            OccupancyFixtures.appointment(2L, WEEK_START.plusDays(7), 600, 60),
+            OccupancyFixtures.appointment(2L, WEEK_START, 600, null));
+
+        List<ResourceOccupancy> result = aggregate(resources, appointments, 30);
+
+        int[] sunday = result.get(0).getOccupancy().get("2026-03-08");
+        assertEquals(30, sunday[47]);
+        assertEquals(30, total(result.get(0)));
+        assertEquals(0, total(result.get(1)));
+        assertEquals(7, result.get(1).getOccupancy().size());
+    }
+
+    @Test
+    void conservesBookedMinutes() {
+        List<Resource> resources = OccupancyFixtures.resources(20);
+        List<Appointment> appointments = OccupancyFixtures.appointments(resources, WEEK_START, 8, 5);
+        List<ResourceOccupancy> byHour = aggregate(resources, appointments, 60);
+        List<ResourceOccupancy> byFiveMinutes = aggregate(resources, appointments, 5);
+
+        for (int i = 0; i < resources.size(); i++) {
+            long expected = 0;
+            for (Appointment appointment : appointments) {
+                if (appointment.getResourceId().equals(resources.get(i).getId())) {
+                    int start = appointment.getAppointmentTime().getHour() * 60 + appointment.getAppointmentTime().getMinute();
+                    expected += Math.min(start + appointment.getDuration(), 24 * 60) - start;
+                }
+            }
+            assertEquals(expected, total(byHour.get(i)));
+            assertEquals(expected, total(byFiveMinutes.get(i)));
+        }
+    }
+
+    @Test
+    void bucketsNeverExceedTheirLengthForASingleBooking() {
+        List<Resource> resources = OccupancyFixtures.resources(1);
+        List<Appointment> appointments = List.of(OccupancyFixtures.appointment(1L, WEEK_START, 0, 24 * 60));
+
+        int[] monday = aggregate(resources, appointments, 120).get(0).getOccupancy().get("2026-03-02");
+
+        int[] full = new int[12];
+        Arrays.fill(full, 120);
+        assertArrayEquals(full, monday);
+    }
+
+    private static List<ResourceOccupancy> aggregate(List<Resource> resources, List<Appointment> appointments,
+                                                     int bucketMinutes) {
+        return ResourceServiceImpl.aggregateOccupancy(resources, appointments, WEEK_START, bucketMinutes);
+    }
+
+    private static long total(ResourceOccupancy occupancy) {
+        long total = 0;
+        for (int[] buckets : occupancy.getOccupancy().values()) {
+            for (int minutes : buckets) {
+                total += minutes;
+            }
+        }
+        return total;
+    }
+}
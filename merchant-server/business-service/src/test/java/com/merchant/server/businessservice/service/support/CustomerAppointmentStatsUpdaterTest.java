@@ -0,0 +1,73 @@
+package com.merchant.server.businessservice.service.support;
+
+import com.merchant.server.businessservice.entity.Appointment;
+import com.merchant.server.businessservice.mapper.AppointmentMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.math.BigDecimal;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class CustomerAppointmentStatsUpdaterTest {
+
+    private final AppointmentMapper mapper = mock(AppointmentMapper.class);
+    private final CustomerAppointmentStatsUpdater updater = new CustomerAppointmentStatsUpdater(mapper);
+
+    @Test
+    void completingAnAppointmentAddsItsAmount() {
+        Appointment appointment = appointment(5L, Appointment.AppointmentStatus.COMPLETED, "80.00", null);
+
+        updater.onStatusChanged(appointment, Appointment.AppointmentStatus.CONFIRMED);
+
+        verify(mapper).addCustomerAppointmentStats(1L, 5L, 0, 1, new BigDecimal("80.00"), 0, 0);
+    }
+
+    @Test
+    void deletingAnAppointmentSubtractsItsContribution() {
+        Appointment appointment = appointment(5L, Appointment.AppointmentStatus.COMPLETED, "80.00", 4);
+
+        updater.onAppointmentChanged(appointment, null);
+
+        verify(mapper).addCustomerAppointmentStats(1L, 5L, -1, -1, new BigDecimal("-80.00"), -4, -1);
+    }
+
+    @Test
+    void unchangedContributionSkipsTheWrite() {
+        Appointment before = appointment(5L, Appointment.AppointmentStatus.CONFIRMED, "80.00", null);
+        Appointment after = appointment(5L, Appointment.AppointmentStatus.CONFIRMED, "120.00", null);
+
+        updater.onAppointmentChanged(before, after);
+
+        verify(mapper, never()).addCustomerAppointmentStats(anyLong(), anyLong(), anyLong(), anyLong(), any(),
+            anyLong(), anyLong());
+    }
+
+    @Test
+    void movingToAnotherCustomerLocksRowsInCustomerOrder() {
+        Appointment before = appointment(9L, Appointment.AppointmentStatus.CONFIRMED, "80.00", null);
+        Appointment after = appointment(5L, Appointment.AppointmentStatus.CONFIRMED, "80.00", null);
+
+        updater.onAppointmentChanged(before, after);
+
+        InOrder order = inOrder(mapper);
+        order.verify(mapper).addCustomerAppointmentStats(1L, 5L, 1, 0, BigDecimal.ZERO, 0, 0);
+        order.verify(mapper).addCustomerAppointmentStats(1L, 9L, -1, 0, BigDecimal.ZERO, 0, 0);
+    }
+
+    private static Appointment appointment(Long customerId, Appointment.AppointmentStatus status,
+                                           String amount, Integer rating) {
+        Appointment appointment = new Appointment();
+        appointment.setTenantId(1L);
+        appointment.setCustomerId(customerId);
+        appointment.setStatus(status);
+        appointment.setTotalAmount(new BigDecimal(amount));
+        appointment.setRating(rating);
+        return appointment;
+    }
+}
@@ -4,6 +4,8 @@ CREATE TABLE IF NOT EXISTS appointments (
     tenant_id BIGINT NOT NULL COMMENT '租户ID',
     customer_id BIGINT NOT NULL COMMENT '客户ID',
     staff_id BIGINT COMMENT '员工ID',
+    resource_id BIGINT COMMENT '预约的资源ID',
+    resource_type ENUM('STAFF', 'ROOM') COMMENT '预约的资源类型',
     appointment_date DATE NOT NULL COMMENT '预约日期',
     appointment_time TIME NOT NULL COMMENT '预约时间',
     duration INT NOT NULL DEFAULT 60 COMMENT '预约时长（分钟）',
@@ -18,6 +20,11 @@ CREATE TABLE IF NOT EXISTS appointments (
     INDEX idx_tenant_customer (tenant_id, customer_id),
     INDEX idx_appointment_date (appointment_date),
     INDEX idx_status (status),
+    INDEX idx_status_date (status, appointment_date),
+    INDEX idx_customer_status_rating (customer_id, status, rating),
+    INDEX idx_tenant_date_time_id (tenant_id, appointment_date, appointment_time, id),
+    -- 资源冲突检查和预约守卫按 (资源, 日期) 读取重叠预约，只锁定该资源当天的行
+    INDEX idx_resource_date_time (resource_id, appointment_date, appointment_time),
     
     FOREIGN KEY (customer_id) REFERENCES customers(id) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='预约表';
@@ -36,4 +43,80 @@ CREATE TABLE IF NOT EXISTS appointment_services (
     INDEX idx_service_id (service_id),
     
     FOREIGN KEY (appointment_id) REFERENCES appointments(id) ON DELETE CASCADE
-) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='预约服务关联表';
\ No newline at end of file
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='预约服务关联表';
+
+-- 创建客户预约统计汇总表（预约写入时在同一事务内按增量更新，不重新扫描客户的预约）
+CREATE TABLE IF NOT EXISTS customer_appointment_stats (
+    tenant_id BIGINT NOT NULL COMMENT '租户ID',
+    customer_id BIGINT NOT NULL COMMENT '客户ID',
+    total_appointments BIGINT NOT NULL DEFAULT 0 COMMENT '预约总数',
+    completed_appointments BIGINT NOT NULL DEFAULT 0 COMMENT '已完成预约数',
+    total_spent DECIMAL(12,2) NOT NULL DEFAULT 0.00 COMMENT '已完成预约金额合计',
+    rating_sum BIGINT NOT NULL DEFAULT 0 COMMENT '有评分预约的评分合计',
+    rated_appointments BIGINT NOT NULL DEFAULT 0 COMMENT '有评分的预约数',
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    
+    PRIMARY KEY (tenant_id, customer_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='客户预约统计汇总表';
+
+-- 回填已有预约的汇总行；汇总行只按增量维护，需在新版本上线前执行
+INSERT IGNORE INTO customer_appointment_stats (
+    tenant_id, customer_id, total_appointments, completed_appointments, total_spent, rating_sum, rated_appointments
+)
+SELECT
+    tenant_id,
+    customer_id,
+    COUNT(*),
+    SUM(CASE WHEN status = 'COMPLETED' THEN 1 ELSE 0 END),
+    SUM(CASE WHEN status = 'COMPLETED' THEN COALESCE(total_amount, 0) ELSE 0 END),
+    SUM(CASE WHEN rating > 0 THEN rating ELSE 0 END),
+    SUM(CASE WHEN rating > 0 THEN 1 ELSE 0 END)
+FROM appointments
+GROUP BY tenant_id, customer_id;
+
+-- 创建资源按天预约守卫表（串行化同一资源同一天的预约写入，多实例部署同样有效）
+CREATE TABLE IF NOT EXISTS resource_booking_guard (
+    resource_id BIGINT NOT NULL COMMENT '资源ID',
+    booking_date DATE NOT NULL COMMENT '预约日期',
+    version BIGINT NOT NULL DEFAULT 0 COMMENT '预约写入次数',
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    
+    PRIMARY KEY (resource_id, booking_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='资源预约守卫表';
+
+-- 创建定时任务租约表（多实例部署时同一任务只由一个实例执行）
+CREATE TABLE IF NOT EXISTS scheduler_lease (
+    name VARCHAR(64) NOT NULL PRIMARY KEY COMMENT '任务名称',
+    owner VARCHAR(128) NOT NULL COMMENT '持有租约的实例',
+    expires_at DATETIME(3) NOT NULL COMMENT '租约到期时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='定时任务租约表';
+
+-- 创建预约提醒记录表（每个预约每种提醒只发送一次）
+CREATE TABLE IF NOT EXISTS appointment_reminder (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    tenant_id BIGINT NOT NULL COMMENT '租户ID',
+    appointment_id BIGINT NOT NULL COMMENT '预约ID',
+    reminder_type VARCHAR(32) NOT NULL COMMENT '提醒类型',
+    sent_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '发送时间',
+    
+    UNIQUE KEY uk_appointment_type (appointment_id, reminder_type),
+    
+    FOREIGN KEY (appointment_id) REFERENCES appointments(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='预约提醒记录表';
+
+-- 创建预约通知发件箱表（与预约变更在同一事务内写入，由后台转发到通知服务）
+CREATE TABLE IF NOT EXISTS notification_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    tenant_id BIGINT NOT NULL COMMENT '租户ID',
+    appointment_id BIGINT NOT NULL COMMENT '预约ID',
+    event_type VARCHAR(32) NOT NULL COMMENT '通知类型',
+    status ENUM('PENDING', 'SENT', 'FAILED') NOT NULL DEFAULT 'PENDING' COMMENT '发送状态',
+    attempts INT NOT NULL DEFAULT 0 COMMENT '已尝试次数',
+    next_attempt_at DATETIME(3) NOT NULL COMMENT '下次发送时间',
+    last_error VARCHAR(500) COMMENT '最近一次失败原因',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    sent_at DATETIME(3) COMMENT '发送成功时间',
+    
+    INDEX idx_status_next_attempt (status, next_attempt_at, id),
+    INDEX idx_status_sent_at (status, sent_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='预约通知发件箱表';
@@ -25,12 +25,25 @@ CREATE TABLE IF NOT EXISTS customers (
     created_by BIGINT COMMENT '创建人',
     updated_by BIGINT COMMENT '更新人',
     
-    INDEX idx_tenant_phone (tenant_id, phone),
-    INDEX idx_tenant_email (tenant_id, email),
+    INDEX idx_last_visit (last_visit_date),
+    UNIQUE KEY uk_tenant_phone (tenant_id, phone),
+    
     INDEX idx_tenant_membership (tenant_id, membership_level),
     INDEX idx_tenant_status (tenant_id, status),
-    INDEX idx_last_visit (last_visit_date),
-    UNIQUE KEY uk_tenant_phone (tenant_id, phone)
+    
+    -- 客户列表 keyset 分页索引：(tenant_id, 排序列, id)，覆盖 CustomerSortField 中的全部排序字段
+    -- 可空且有实体默认值的列按 COALESCE 表达式排序，使用与 CustomerMapper.xml 完全相同的函数索引
+    -- phone 排序直接使用 uk_tenant_phone（二级索引已隐含主键 id）
+    INDEX idx_tenant_first_name_id (tenant_id, first_name, id),
+    INDEX idx_tenant_last_name_id (tenant_id, last_name, id),
+    INDEX idx_tenant_email_id (tenant_id, email, id),
+    INDEX idx_tenant_membership_id (tenant_id, (COALESCE(membership_level + 0, 1)), id),
+    INDEX idx_tenant_points_id (tenant_id, (COALESCE(points, 0)), id),
+    INDEX idx_tenant_total_spent_id (tenant_id, (COALESCE(total_spent, 0)), id),
+    INDEX idx_tenant_status_id (tenant_id, (COALESCE(status + 0, 1)), id),
+    INDEX idx_tenant_last_visit_id (tenant_id, last_visit_date, id),
+    INDEX idx_tenant_created_id (tenant_id, created_at, id),
+    INDEX idx_tenant_updated_id (tenant_id, updated_at, id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='客户基本信息表';
 
 -- 2. 客户偏好服务表
@@ -132,9 +145,11 @@ CREATE TABLE IF NOT EXISTS appointments (
     FOREIGN KEY (customer_id) REFERENCES customers(id),
     FOREIGN KEY (staff_id) REFERENCES staff(id),
     INDEX idx_tenant_date (tenant_id, appointment_date),
+    INDEX idx_tenant_date_time_id (tenant_id, appointment_date, appointment_time, id),
     INDEX idx_customer_date (customer_id, appointment_date),
     INDEX idx_staff_date (staff_id, appointment_date),
-    INDEX idx_tenant_status (tenant_id, status)
+    INDEX idx_tenant_status (tenant_id, status),
+    INDEX idx_status_date (status, appointment_date)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='预约表';
 
 -- 8. 预约服务明细表
@@ -17,6 +17,7 @@ CREATE TABLE IF NOT EXISTS resource (
     email VARCHAR(100) COMMENT '邮箱（员工专用）',
     position VARCHAR(100) COMMENT '职位（员工专用）',
     start_date DATE COMMENT '入职日期（员工专用）',
+    staff_id BIGINT COMMENT '对应的员工ID（由员工迁移的资源，技能等员工数据按此关联）',
     
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
@@ -26,7 +27,8 @@ CREATE TABLE IF NOT EXISTS resource (
     INDEX idx_status (status),
     INDEX idx_tenant_type (tenant_id, type),
     INDEX idx_email (email),
-    INDEX idx_phone (phone)
+    INDEX idx_phone (phone),
+    UNIQUE KEY uk_staff_id (staff_id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='统一资源表';
 
 -- 资源可用性表
@@ -55,8 +57,8 @@ ADD COLUMN resource_id BIGINT COMMENT '预约的资源ID',
 ADD COLUMN resource_type ENUM('STAFF', 'ROOM') COMMENT '预约的资源类型',
 ADD INDEX idx_resource_id (resource_id);
 
--- 将现有员工数据迁移到资源表
-INSERT INTO resource (tenant_id, name, type, description, specialties, status, created_at, updated_at)
+-- 将现有员工数据迁移到资源表，记录员工ID作为员工与资源的对应关系（不依赖姓名）
+INSERT INTO resource (tenant_id, name, type, description, specialties, status, staff_id, created_at, updated_at)
 SELECT 
     tenant_id,
     name,
@@ -68,6 +70,7 @@ SELECT
         WHEN status = 'INACTIVE' THEN 'INACTIVE'
         ELSE 'INACTIVE'
     END,
+    id,
     created_at,
     updated_at
 FROM staff;
@@ -75,7 +78,7 @@ FROM staff;
 -- 更新现有预约记录，关联到资源表
 UPDATE appointment a
 JOIN staff s ON a.staff_id = s.id
-JOIN resource r ON r.tenant_id = s.tenant_id AND r.name = s.name AND r.type = 'STAFF'
+JOIN resource r ON r.staff_id = s.id
 SET a.resource_id = r.id, a.resource_type = 'STAFF'
 WHERE a.staff_id IS NOT NULL;
 